@@ -0,0 +1,74 @@
+package hangman.hangman;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks loading a 5M-word list and picking secret words from it. The bytes allocated per load, reported
+ * by the gc profiler, are the heap taken by the dictionary index; the words themselves stay in the mapped file.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class DictionaryBenchmark {
+
+    private static final int WORDS = 5000000;
+
+    private Path file;
+    private WordDictionary dictionary;
+
+    @Setup(Level.Trial)
+    public void writeWordList() throws IOException {
+        this.file = Files.createTempFile("words", ".txt");
+        Random random = new Random(42);
+        try (BufferedWriter out = Files.newBufferedWriter(this.file, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < WORDS; ++i) {
+                int length = 4 + random.nextInt(9);
+                for (int j = 0; j < length; ++j) out.write('a' + random.nextInt(26));
+                out.write('\n');
+            }
+        }
+        this.dictionary = WordDictionary.load(this.file);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWordList() throws IOException {
+        Files.delete(this.file);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public WordDictionary load() throws IOException {
+        return WordDictionary.load(this.file);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Session newSession() {
+        return new Session(this.dictionary);
+    }
+}
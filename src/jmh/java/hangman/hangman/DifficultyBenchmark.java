@@ -0,0 +1,83 @@
+package hangman.hangman;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks scoring the difficulty of every word of a 1M-word list on different numbers of threads, and
+ * picking a secret word of a tier once scored.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class DifficultyBenchmark {
+
+    private static final int WORDS = 1000000;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Path file;
+    private WordDictionary dictionary;
+    private WordDifficulty difficulty;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("words", ".txt");
+        Random random = new Random(42);
+        try (BufferedWriter out = Files.newBufferedWriter(this.file, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < WORDS; ++i) {
+                int length = 4 + random.nextInt(9);
+                for (int j = 0; j < length; ++j) out.write('a' + random.nextInt(26));
+                out.write('\n');
+            }
+        }
+        this.dictionary = WordDictionary.load(this.file);
+        Path scores = Files.createTempFile("words", ".scores");
+        DifficultyScorer.write(scores, this.dictionary, DifficultyScorer.score(this.dictionary, this.threads));
+        this.difficulty = WordDifficulty.load(scores, this.dictionary);
+        Files.delete(scores);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWordList() throws IOException {
+        Files.delete(this.file);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public byte[] score() {
+        return DifficultyScorer.score(this.dictionary, this.threads);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public int randomHardWord() {
+        return this.difficulty.randomWordId(2);
+    }
+}
@@ -0,0 +1,127 @@
+package hangman.hangman;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+/**
+ * Load test of the game endpoints in both execution modes. Many players submit guesses at once over loopback
+ * while a number of other players hold idle keep-alive connections open, as browsers between guesses would.
+ * Sample time mode reports the latency percentiles of one guess; the throughput of the run follows from the
+ * sample count. Admission control is off, as all players send from one address.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(64)
+public class ExecutionModeBenchmark {
+
+    private static final String LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+
+    /**
+     * Server shared by all threads, in the execution mode under test, with the idle connections held open on it.
+     * */
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({GameExecution.BLOCKING, GameExecution.ASYNC})
+        public String mode;
+
+        @Param({"0", "2000"})
+        public int idleConnections;
+
+        private ServletWebServerApplicationContext context;
+        private SessionStore store;
+        private int port;
+        private final ArrayList<Socket> idle = new ArrayList<>();
+
+        @Setup
+        public void setUp() throws Exception {
+            this.context = (ServletWebServerApplicationContext) SpringApplication.run(HangmanApplication.class,
+                    "--server.port=0", "--hangman.journal.enabled=false", "--hangman.admission.enabled=false",
+                    "--logging.level.root=WARN",
+                    "--hangman.execution.mode=" + this.mode, "--server.tomcat.max-connections=20000",
+                    "--server.connection-timeout=600000");
+            this.store = this.context.getBean(SessionStore.class);
+            this.port = this.context.getWebServer().getPort();
+            byte[] request = ("GET /stats HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            for (int i = 0; i < this.idleConnections; ++i) {
+                Socket socket = new Socket("localhost", this.port);
+                socket.getOutputStream().write(request);
+                socket.getInputStream().read(new byte[4096]);
+                this.idle.add(socket);
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws Exception {
+            for (Socket socket : this.idle) socket.close();
+            this.context.close();
+        }
+    }
+
+    /**
+     * Per-thread player moving on to a new game whenever the last one finishes.
+     * */
+    @State(Scope.Thread)
+    public static class Player {
+
+        private final String id = UUID.randomUUID().toString();
+        private Session game;
+        private int next;
+        private char letter;
+
+        @Setup(Level.Invocation)
+        public void nextLetter(Server server) {
+            if (this.game == null || this.game.isGameFinished()) {
+                this.game = server.store.newGame(this.id);
+                this.next = 0;
+            }
+            this.letter = LETTERS.charAt(this.next++);
+        }
+    }
+
+    @Benchmark
+    public int guess(Server server, Player player) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port + "/submitGuess").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "text/plain;charset=UTF-8");
+        connection.setRequestProperty("Cookie", RController.PLAYER_COOKIE + "=" + player.id);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(("{\"value\":\"" + player.letter + "\"}").getBytes(StandardCharsets.UTF_8));
+        }
+        int bytes = 0;
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[512];
+            for (int n; (n = in.read(buffer)) > 0; ) bytes += n;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,160 @@
+package hangman.hangman;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.ContainerProvider;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+/**
+ * Benchmarks the latency of one guess over loopback against a running server, sent as a POST to submitGuess
+ * the way game.html did it, and as a frame on the WebSocket game channel. Sample time mode reports the
+ * percentiles, including p0.99. Optionally holds a number of idle game channels open on the same server, as
+ * other players' pages would.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GameChannelBenchmark {
+
+    private static final String LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+
+    /**
+     * Server shared by all threads, with the idle channels held open on it.
+     * */
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"0", "2000"})
+        public int idleChannels;
+
+        private ServletWebServerApplicationContext context;
+        private SessionStore store;
+        private int port;
+        private final ArrayList<javax.websocket.Session> idle = new ArrayList<>();
+
+        @Setup
+        public void setUp() throws Exception {
+            this.context = (ServletWebServerApplicationContext) SpringApplication.run(HangmanApplication.class,
+                    "--server.port=0", "--hangman.journal.enabled=false", "--hangman.admission.enabled=false",
+                    "--logging.level.root=WARN");
+            this.store = this.context.getBean(SessionStore.class);
+            this.port = this.context.getWebServer().getPort();
+            for (int i = 0; i < this.idleChannels; ++i) this.idle.add(connect(this, "idle-" + i, new ArrayBlockingQueue<>(1)));
+        }
+
+        @TearDown
+        public void tearDown() throws Exception {
+            for (javax.websocket.Session channel : this.idle) channel.close();
+            this.context.close();
+        }
+    }
+
+    /**
+     * Per-thread player with its own game channel, opened before its first guess, moving on to a new game whenever the last one finishes.
+     * */
+    @State(Scope.Thread)
+    public static class Player {
+
+        private final String id = UUID.randomUUID().toString();
+        private final BlockingQueue<String> frames = new ArrayBlockingQueue<>(16);
+        private javax.websocket.Session channel;
+        private Session game;
+        private int next;
+        private char letter;
+
+        @Setup(Level.Invocation)
+        public void nextLetter(Server server) throws Exception {
+            if (this.channel == null) this.channel = connect(server, this.id, this.frames);
+            if (this.game == null || this.game.isGameFinished()) {
+                this.game = server.store.newGame(this.id);
+                this.next = 0;
+            }
+            this.letter = LETTERS.charAt(this.next++);
+        }
+
+        @TearDown
+        public void tearDown() throws Exception {
+            this.channel.close();
+        }
+    }
+
+    @Benchmark
+    public int xhrGuess(Server server, Player player) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port + "/submitGuess").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "text/plain;charset=UTF-8");
+        connection.setRequestProperty("Cookie", RController.PLAYER_COOKIE + "=" + player.id);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(("{\"value\":\"" + player.letter + "\"}").getBytes(StandardCharsets.UTF_8));
+        }
+        int bytes = 0;
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[512];
+            for (int n; (n = in.read(buffer)) > 0; ) bytes += n;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public String channelGuess(Server server, Player player) throws Exception {
+        player.channel.getBasicRemote().sendText(String.valueOf(player.letter));
+        return player.frames.poll(5, TimeUnit.SECONDS);
+    }
+
+    private static javax.websocket.Session connect(Server server, String playerId,
+                                                   BlockingQueue<String> frames) throws Exception {
+        ClientEndpointConfig config = ClientEndpointConfig.Builder.create()
+                .configurator(new ClientEndpointConfig.Configurator() {
+                    @Override
+                    public void beforeRequest(Map<String, List<String>> headers) {
+                        headers.put("Cookie", Collections.singletonList(RController.PLAYER_COOKIE + "=" + playerId));
+                    }
+                }).build();
+        return ContainerProvider.getWebSocketContainer().connectToServer(new Endpoint() {
+            @Override
+            public void onOpen(javax.websocket.Session channel, EndpointConfig endpointConfig) {
+                channel.addMessageHandler(String.class, new MessageHandler.Whole<String>() {
+                    @Override
+                    public void onMessage(String frame) {
+                        frames.offer(frame);
+                    }
+                });
+            }
+        }, config, URI.create("ws://localhost:" + server.port + GameChannel.PATH));
+    }
+}
@@ -0,0 +1,86 @@
+package hangman.hangman;
+import java.util.concurrent.TimeUnit;
+import java.nio.charset.StandardCharsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Benchmarks playing a full game through the REST layer, one letter per submitGuess request versus all letters
+ * in one submitGuesses request. Each request includes decoding its body and encoding its response with GameJson
+ * the way Spring's message converter does it; the network round trip saved by batching is not included.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class GuessBatchBenchmark {
+
+    private static final String LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+
+    private final byte[][] guessJson = new byte[LETTERS.length()][];
+    private byte[] batchJson;
+    private SessionStore store;
+    private RController controller;
+
+    @Setup
+    public void setUp() {
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < LETTERS.length(); ++i) {
+            String guess = "{\"value\":\"" + LETTERS.charAt(i) + "\"}";
+            this.guessJson[i] = guess.getBytes(StandardCharsets.UTF_8);
+            batch.append(i > 0 ? "," : "").append(guess);
+        }
+        this.batchJson = batch.append("]").toString().getBytes(StandardCharsets.UTF_8);
+        this.store = new SessionStore();
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        this.controller = new RController(this.store, GameExecution.blocking(), new GameMetrics(this.store),
+                beans.getBeanProvider(HintIndex.class), beans.getBeanProvider(Rooms.class),
+                beans.getBeanProvider(WordDifficulty.class));
+    }
+
+    /**
+     * Per-thread player, so that threads play their own games.
+     * */
+    @State(Scope.Thread)
+    public static class Player {
+
+        private final String id = Thread.currentThread().getName();
+        private final MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        private final byte[] buffer = new byte[4096];
+    }
+
+    @Benchmark
+    public int singleGuesses(Player player) throws Exception {
+        Session session = this.store.newGame(player.id);
+        int bytes = 0;
+        for (int i = 0; !session.isGameFinished(); ++i) {
+            Guess guess = GameJson.decodeGuess(this.guessJson[i], 0, this.guessJson[i].length);
+            Object response = this.controller.submitGuess(guess, player.id, player.servletResponse).getBody();
+            bytes += GameJson.encodeResponse((Response) response, player.buffer);
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public int batchedGuesses(Player player) throws Exception {
+        this.store.newGame(player.id);
+        Guess[] guesses = GameJson.decodeGuesses(this.batchJson, 0, this.batchJson.length);
+        Object response = this.controller.submitGuesses(guesses, player.id, player.servletResponse).getBody();
+        return GameJson.encodeBatch((BatchResponse) response, player.buffer);
+    }
+}
@@ -0,0 +1,106 @@
+package hangman.hangman;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks hints over a 1M-word list, with the HintIndex and by testing every word of the length of the
+ * secret word, at the start of a game, when most words of that length remain, and a few guesses in.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class HintBenchmark {
+
+    private static final int WORDS = 1000000;
+    private static final String LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+
+    @Param({"start", "midGame"})
+    public String stage;
+
+    private Path file;
+    private WordDictionary dictionary;
+    private HintIndex index;
+    private String guessProgress;
+    private int attemptedMask;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("words", ".txt");
+        Random random = new Random(42);
+        try (BufferedWriter out = Files.newBufferedWriter(this.file, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < WORDS; ++i) {
+                int length = 4 + random.nextInt(9);
+                // Letters skewed towards the frequent ones, so that candidate sets shrink as in real games
+                for (int j = 0; j < length; ++j) out.write(LETTERS.charAt((int) (26 * Math.pow(random.nextDouble(), 2))));
+                out.write('\n');
+            }
+        }
+        this.dictionary = WordDictionary.load(this.file);
+        this.index = HintIndex.build(this.dictionary);
+        Session session = new Session(this.dictionary.word(this.dictionary.randomWordId(8)));
+        if (this.stage.equals("midGame")) {
+            for (char letter : "eta".toCharArray()) session.hangmanLogic(new Guess(letter));
+        }
+        this.guessProgress = session.getGuessProgress();
+        this.attemptedMask = session.getAttemptedMask();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWordList() throws IOException {
+        Files.delete(this.file);
+    }
+
+    @Benchmark
+    public HintResponse indexed() {
+        return this.index.hint(this.guessProgress, this.attemptedMask);
+    }
+
+    @Benchmark
+    public int naive() {
+        int length = (this.guessProgress.length() + 1) / 2;
+        int[] present = new int[26];
+        int candidates = 0;
+        for (int id : this.dictionary.idsOfLength(length)) {
+            int mask = 0;
+            boolean fits = true;
+            for (int i = 0; i < length && fits; ++i) {
+                char letter = Character.toLowerCase(this.dictionary.letter(id, i));
+                char shown = this.guessProgress.charAt(i * 2);
+                fits = shown == '_' ? (this.attemptedMask & (1 << (letter - 'a'))) == 0 : Character.toLowerCase(shown) == letter;
+                mask |= 1 << (letter - 'a');
+            }
+            if (!fits) continue;
+            ++candidates;
+            for (int letter = 0; letter < 26; ++letter) if ((mask & (1 << letter)) != 0) ++present[letter];
+        }
+        int best = 0;
+        for (int letter = 1; letter < 26; ++letter) {
+            if (Math.min(present[letter], candidates - present[letter]) > Math.min(present[best], candidates - present[best])) best = letter;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,54 @@
+package hangman.hangman;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+/**
+ * Benchmarks building the games history response for stores of different sizes. Every tenth stored game is
+ * left ongoing, the rest are finished.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int storedSessions;
+
+    private RController controller;
+
+    @Setup
+    public void setUp() {
+        SessionStore store = new SessionStore();
+        for (int i = 0; i < this.storedSessions; ++i) {
+            Session session = store.newGame("player-" + i);
+            if (i % 10 == 0) continue;
+            for (char letter = 'a'; !session.isGameFinished(); ++letter) store.applyGuess(session, new Guess(letter));
+        }
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        this.controller = new RController(store, GameExecution.blocking(), new GameMetrics(store),
+                beans.getBeanProvider(HintIndex.class), beans.getBeanProvider(Rooms.class),
+                beans.getBeanProvider(WordDifficulty.class));
+    }
+
+    @Benchmark
+    public Object gamesHistory() {
+        return this.controller.encodeHistory();
+    }
+}
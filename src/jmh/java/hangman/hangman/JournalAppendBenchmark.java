@@ -0,0 +1,72 @@
+package hangman.hangman;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks appending guesses to the journal from many request threads at once, each guessing in a game of its
+ * own, while the flusher writes them to disk in the background.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class JournalAppendBenchmark {
+
+    private Path directory;
+    private GameJournal journal;
+    private SessionStore store;
+
+    @State(Scope.Thread)
+    public static class Player {
+        Session session;
+
+        @Setup(Level.Trial)
+        public void newGame(JournalAppendBenchmark benchmark) {
+            this.session = benchmark.store.newGame("player" + Thread.currentThread().getId());
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void openJournal() throws IOException {
+        this.directory = Files.createTempDirectory("journal-bench");
+        this.journal = new GameJournal(true, this.directory.toString(), 5, Long.MAX_VALUE, 1 << 24);
+        this.store = new SessionStore(this.journal, WordDictionary.builtIn());
+        this.store.open();
+    }
+
+    @Benchmark
+    public void guess(Player player) {
+        this.journal.guess(player.session, 'e');
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJournal() throws IOException {
+        this.journal.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+            for (Path file : files) Files.delete(file);
+        }
+        Files.delete(this.directory);
+    }
+}
@@ -0,0 +1,77 @@
+package hangman.hangman;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks restoring a SessionStore on startup from a journal holding 1M guesses and no snapshot.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class JournalReplayBenchmark {
+
+    private static final int GUESSES = 1000000;
+
+    private Path directory;
+    private GameJournal journal;
+
+    @Setup(Level.Trial)
+    public void writeJournal() throws IOException {
+        this.directory = Files.createTempDirectory("journal-bench");
+        GameJournal writer = new GameJournal(true, this.directory.toString(), 5, Long.MAX_VALUE, 1 << 24);
+        SessionStore store = new SessionStore(writer, WordDictionary.builtIn());
+        store.open();
+        Session session = store.newGame("player0");
+        char letter = 'a';
+        for (int i = 0; i < GUESSES; ++i) {
+            if (session.isGameFinished()) {
+                session = store.newGame("player" + i % 1000);
+                letter = 'a';
+            }
+            store.applyGuess(session, new Guess(letter++));
+        }
+        writer.close();
+    }
+
+    @Benchmark
+    public SessionStore replay() throws IOException {
+        this.journal = new GameJournal(true, this.directory.toString(), 5, Long.MAX_VALUE, 1 << 24);
+        SessionStore store = new SessionStore(this.journal, WordDictionary.builtIn());
+        store.open();
+        return store;
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeJournal() throws IOException {
+        if (this.journal != null) this.journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJournal() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+            for (Path file : files) Files.delete(file);
+        }
+        Files.delete(this.directory);
+    }
+}
@@ -0,0 +1,84 @@
+package hangman.hangman;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the JSON paths of the REST layer: Guess bodies decoded with Gson the way submitGuess used to do it,
+ * with Jackson, and with the hand-written GameJson codec submitGuess uses now, and Response objects encoded with
+ * Jackson, the way Spring's default message converter does it, and with GameJson.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String guessJson = "{\"value\":\"e\"}";
+    private final byte[] guessBytes = this.guessJson.getBytes(StandardCharsets.UTF_8);
+    private final Gson gson = new Gson();
+    private final byte[] buffer = new byte[1024];
+    private Response response;
+    private String responseJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        Session session = new Session();
+        session.setSecretWord("Concurrency");
+        session.hangmanLogic(new Guess('e'));
+        this.response = session.hangmanLogic(new Guess('c'));
+        this.responseJson = this.mapper.writeValueAsString(this.response);
+    }
+
+    @Benchmark
+    public Guess decodeGuessNewGson() {
+        return new Gson().fromJson(this.guessJson, Guess.class);
+    }
+
+    @Benchmark
+    public Guess decodeGuessSharedGson() {
+        return this.gson.fromJson(this.guessJson, Guess.class);
+    }
+
+    @Benchmark
+    public Guess decodeGuessGameJson() {
+        return GameJson.decodeGuess(this.guessBytes, 0, this.guessBytes.length);
+    }
+
+    @Benchmark
+    public Guess decodeGuessJackson() throws Exception {
+        return this.mapper.readValue(this.guessJson, Guess.class);
+    }
+
+    @Benchmark
+    public byte[] encodeResponse() throws Exception {
+        return this.mapper.writeValueAsBytes(this.response);
+    }
+
+    @Benchmark
+    public int encodeResponseGameJson() {
+        return GameJson.encodeResponse(this.response, this.buffer);
+    }
+
+    @Benchmark
+    public Response decodeResponse() throws Exception {
+        return this.mapper.readValue(this.responseJson, Response.class);
+    }
+}
@@ -0,0 +1,80 @@
+package hangman.hangman;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the leaderboard with a million players: a game finishing, which moves its player in the ranking,
+ * and reading the top players from the head of the ranking, against sorting every player on each request.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(2)
+@State(Scope.Benchmark)
+public class LeaderboardBenchmark {
+
+    @Param({"1000000"})
+    public int players;
+
+    @Param({"10", "100"})
+    public int k;
+
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final AtomicLong nextGameId = new AtomicLong();
+    private String[] playerIds;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        this.playerIds = new String[this.players];
+        for (int i = 0; i < this.players; ++i) {
+            this.playerIds[i] = "player" + i;
+            for (int games = random.nextInt(20); games >= 0; --games) {
+                boolean lost = random.nextInt(3) == 0;
+                this.leaderboard.gameFinished(this.playerIds[i], this.nextGameId.getAndIncrement(), lost ? 6 : random.nextInt(6), lost);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object gameFinished() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean lost = random.nextInt(3) == 0;
+        String player = this.playerIds[random.nextInt(this.players)];
+        this.leaderboard.gameFinished(player, this.nextGameId.getAndIncrement(), lost ? 6 : random.nextInt(6), lost);
+        return player;
+    }
+
+    @Benchmark
+    public Object top() {
+        return this.leaderboard.top(this.k);
+    }
+
+    @Benchmark
+    public Object sortAll() {
+        List<Leaderboard.Entry> all = new ArrayList<>(this.leaderboard.entries());
+        all.sort(Leaderboard.RANKING);
+        return all.subList(0, this.k);
+    }
+}
@@ -0,0 +1,57 @@
+package hangman.hangman;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the metrics recording path, taken by every request and every guess, from one thread and from
+ * many threads recording into the same endpoint at once. The gc profiler shows recording allocates nothing.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    private final GameMetrics metrics = new GameMetrics(new SessionStore());
+
+    @Benchmark
+    public void requestServed() {
+        this.metrics.requestServed(GameMetrics.SUBMIT_GUESS, System.nanoTime() - 150000);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void requestServedContended() {
+        this.metrics.requestServed(GameMetrics.SUBMIT_GUESS, System.nanoTime() - 150000);
+    }
+
+    @Benchmark
+    public void guessResolved() {
+        this.metrics.guessResolved(GameMetrics.HIT);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void guessResolvedContended() {
+        this.metrics.guessResolved(GameMetrics.HIT);
+    }
+
+    @Benchmark
+    public String scrape() {
+        return this.metrics.scrape();
+    }
+}
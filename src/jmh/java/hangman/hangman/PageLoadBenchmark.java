@@ -0,0 +1,149 @@
+package hangman.hangman;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+/**
+ * Benchmarks loading game.html and all seven hangman frames over loopback, as a browser accepting gzip would,
+ * with the static files served by the default resource handling or by StaticAssets. On a first visit nothing
+ * is cached; on a repeat visit the browser holds everything from the last visit and revalidates what it must.
+ * The bytes and requests counters divided by the page loads give the body bytes and requests per page load.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageLoadBenchmark {
+
+    private static final Pattern FRAME = Pattern.compile("\"((?:assets/)?[0-6](?:\\.[0-9a-f]+)?\\.png)\"");
+
+    /**
+     * Server shared by all threads, with the asset build output served or not.
+     * */
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"false", "true"})
+        public boolean assets;
+
+        private ServletWebServerApplicationContext context;
+        private String base;
+        private final List<String> frames = new ArrayList<>();
+
+        @Setup
+        public void setUp() throws Exception {
+            this.context = (ServletWebServerApplicationContext) SpringApplication.run(HangmanApplication.class,
+                    "--server.port=0", "--hangman.journal.enabled=false", "--logging.level.root=WARN",
+                    "--hangman.assets.enabled=" + this.assets);
+            this.base = "http://localhost:" + this.context.getWebServer().getPort() + "/";
+            HttpURLConnection connection = (HttpURLConnection) new URL(this.base + "game.html").openConnection();
+            String page;
+            try (InputStream in = connection.getInputStream()) {
+                page = new String(readAll(in), StandardCharsets.UTF_8);
+            }
+            Matcher matcher = FRAME.matcher(page);
+            while (matcher.find()) if (!this.frames.contains(matcher.group(1))) this.frames.add(matcher.group(1));
+        }
+
+        @TearDown
+        public void tearDown() {
+            this.context.close();
+        }
+    }
+
+    /**
+     * Browser cache of one thread: validators of the files loaded, and whether each may be used without asking.
+     * */
+    @State(Scope.Thread)
+    public static class Browser {
+
+        @Param({"first", "repeat"})
+        public String visit;
+
+        private final HashMap<String, String[]> cache = new HashMap<>();
+
+        @Setup(Level.Invocation)
+        public void clearOnFirstVisit() {
+            if (this.visit.equals("first")) this.cache.clear();
+        }
+    }
+
+    /**
+     * Body bytes and requests sent, reported per second next to page loads per second.
+     * */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transfer {
+
+        public long bytes;
+        public long requests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.bytes = 0;
+            this.requests = 0;
+        }
+    }
+
+    @Benchmark
+    public void loadGamePage(Server server, Browser browser, Transfer transfer) throws IOException {
+        load(server.base + "game.html", browser, transfer);
+        for (String frame : server.frames) load(server.base + frame, browser, transfer);
+    }
+
+    private static void load(String url, Browser browser, Transfer transfer) throws IOException {
+        String[] cached = browser.cache.get(url);
+        if (cached != null && cached[2] != null) return;
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip, deflate");
+        if (cached != null && cached[0] != null) connection.setRequestProperty("If-None-Match", cached[0]);
+        if (cached != null && cached[1] != null) connection.setRequestProperty("If-Modified-Since", cached[1]);
+        ++transfer.requests;
+        if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            connection.getInputStream().close();
+            return;
+        }
+        try (InputStream in = connection.getInputStream()) {
+            transfer.bytes += readAll(in).length;
+        }
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        browser.cache.put(url, new String[] {connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"),
+                cacheControl != null && cacheControl.contains("immutable") ? cacheControl : null});
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        for (int n; (n = in.read(chunk)) > 0; ) bytes.write(chunk, 0, n);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,91 @@
+package hangman.hangman;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Benchmarks a client polling reloadOrResume and gamesHistory while nothing changes: serializing the state on
+ * every poll as before ETags, sending the body cached for the current version, and answering 304 to a client
+ * holding the current ETag. Every tenth stored game is left ongoing, the rest are finished.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class PollingBenchmark {
+
+    @Param({"1000", "100000"})
+    public int storedSessions;
+
+    private RController controller;
+    private Session session;
+    private String resumeTag;
+    private String historyTag;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setUp() {
+        SessionStore store = new SessionStore();
+        for (int i = 0; i < this.storedSessions; ++i) {
+            Session session = store.newGame("player-" + i);
+            if (i % 10 == 0) continue;
+            for (char letter = 'a'; !session.isGameFinished(); ++letter) store.applyGuess(session, new Guess(letter));
+        }
+        this.session = store.newGame("poller");
+        store.applyGuess(this.session, new Guess('e'));
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        this.controller = new RController(store, GameExecution.blocking(), new GameMetrics(store),
+                beans.getBeanProvider(HintIndex.class), beans.getBeanProvider(Rooms.class),
+                beans.getBeanProvider(WordDifficulty.class));
+        this.resumeTag = this.controller.reloadOrResume("poller", null, this.response).getHeaders().getETag();
+        this.historyTag = this.controller.gamesHistory(null).getHeaders().getETag();
+    }
+
+    @Benchmark
+    public Object resumeSerialized() {
+        synchronized (this.session) {
+            return GameJson.encode(this.session.updateResponse(new Response(), ""));
+        }
+    }
+
+    @Benchmark
+    public Object resumeCached() {
+        return this.controller.reloadOrResume("poller", null, this.response).getBody();
+    }
+
+    @Benchmark
+    public Object resumeNotModified() {
+        return this.controller.reloadOrResume("poller", this.resumeTag, this.response);
+    }
+
+    @Benchmark
+    public Object historySerialized() {
+        return this.controller.encodeHistory();
+    }
+
+    @Benchmark
+    public Object historyCached() {
+        return this.controller.gamesHistory(null).getBody();
+    }
+
+    @Benchmark
+    public Object historyNotModified() {
+        return this.controller.gamesHistory(this.historyTag);
+    }
+}
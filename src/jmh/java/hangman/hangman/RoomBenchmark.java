@@ -0,0 +1,113 @@
+package hangman.hangman;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the guesses per second one room takes from several guessing threads, with every guess reaching all
+ * participants. The room applies guesses by compare-and-set and leaves sending to the broadcaster thread; the
+ * baseline applies them to a Session under its lock and sends each one to every participant on the guessing
+ * thread. The broadcast latency of the room, from a guess being applied to its frame being handed to every
+ * participant, is printed at the end of each trial. Flat out, the guessing threads leave the broadcaster little
+ * CPU on small machines, so roomPaced has each thread guess once a millisecond, closer to players typing, to read
+ * the latency at a load the room keeps up with.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RoomBenchmark {
+
+    @Param({"1000"})
+    public int participants;
+
+    private ScheduledExecutorService broadcaster;
+    private LatencyHistogram broadcastLatency;
+    private Room room;
+    private final Object sessionLock = new Object();
+    private Session session;
+    private final List<Room.Participant> baselineParticipants = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WordDictionary dictionary = WordDictionary.builtIn();
+        this.broadcaster = Executors.newSingleThreadScheduledExecutor();
+        this.broadcastLatency = new LatencyHistogram();
+        this.room = new Room("bench", dictionary, this.broadcaster, TimeUnit.MILLISECONDS.toNanos(10),
+                this.broadcastLatency, System.nanoTime());
+        this.session = new Session(dictionary.word(dictionary.randomWordId()));
+        for (int i = 0; i < this.participants; ++i) {
+            this.room.join(new Counting());
+            this.baselineParticipants.add(new Counting());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.broadcaster.shutdown();
+        if (this.broadcastLatency.count() == 0) return;
+        long[] quantiles = this.broadcastLatency.quantiles(0.5, 0.99, 0.999);
+        System.out.printf("%nbroadcast latency over %d guesses: p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms%n",
+                this.broadcastLatency.count(), quantiles[0] / 1e6, quantiles[1] / 1e6, quantiles[2] / 1e6);
+    }
+
+    @Benchmark
+    public int room() {
+        return this.room.guess((char) ('a' + ThreadLocalRandom.current().nextInt(26)));
+    }
+
+    @Benchmark
+    public int roomPaced() {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        return this.room.guess((char) ('a' + ThreadLocalRandom.current().nextInt(26)));
+    }
+
+    @Benchmark
+    public Object synchronizedFanOut() {
+        Guess guess = new Guess((char) ('a' + ThreadLocalRandom.current().nextInt(26)));
+        String frame;
+        synchronized (this.sessionLock) {
+            if (this.session.isGameFinished()) this.session = new Session(this.session.getSecretWord());
+            frame = new String(GameJson.encode(this.session.hangmanLogic(guess)));
+        }
+        for (Room.Participant participant : this.baselineParticipants) participant.send(frame);
+        return frame;
+    }
+
+    /**
+     * Participant counting the characters sent to it, standing in for a WebSocket send.
+     * */
+    private static class Counting implements Room.Participant {
+
+        private long sent;
+
+        @Override
+        public void send(String frame) {
+            this.sent += frame.length();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package hangman.hangman;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the game core: creating a session, resolving each kind of guess, and filling a response.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SessionBenchmark {
+
+    private static final String WORD = "Concurrency";
+
+    private final Guess hit = new Guess('c');
+    private final Guess miss = new Guess('z');
+    private final Guess repeat = new Guess('o');
+    private final Response response = new Response();
+
+    private Session ongoing;
+    private Session finished;
+
+    /**
+     * Sessions for the repeat and finished-game cases do not change when guessed, so one instance serves
+     * the whole trial.
+     * */
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        this.ongoing = newSession();
+        this.ongoing.hangmanLogic(this.repeat);
+        this.finished = newSession();
+        for (char letter : "bdfghj".toCharArray()) this.finished.hangmanLogic(new Guess(letter));
+    }
+
+    @Benchmark
+    public Session construct() {
+        return new Session();
+    }
+
+    @Benchmark
+    public Response guessHit(FreshSession fresh) {
+        return fresh.session.hangmanLogic(this.hit);
+    }
+
+    @Benchmark
+    public Response guessMiss(FreshSession fresh) {
+        return fresh.session.hangmanLogic(this.miss);
+    }
+
+    @Benchmark
+    public Response guessRepeat() {
+        return this.ongoing.hangmanLogic(this.repeat);
+    }
+
+    @Benchmark
+    public Response guessFinished() {
+        return this.finished.hangmanLogic(this.hit);
+    }
+
+    @Benchmark
+    public Response updateResponse() {
+        return this.ongoing.updateResponse(this.response, "");
+    }
+
+    /**
+     * Hits and misses change the session, so every invocation gets a session with no guesses yet. Kept apart
+     * from the benchmark state so that only the hit and miss benchmarks pay for the per-invocation setup.
+     * */
+    @State(Scope.Thread)
+    public static class FreshSession {
+
+        private Session session;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            this.session = newSession();
+        }
+    }
+
+    private static Session newSession() {
+        Session session = new Session();
+        session.setSecretWord(WORD);
+        return session;
+    }
+}
@@ -0,0 +1,63 @@
+package hangman.hangman;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the cost of sharing games through a SessionRepository: reading a player's game, served from the
+ * near-cache or read from the repository on every request, and playing a guess, which stores it first. Each
+ * guess invocation plays a whole game, as a finished game takes no more guesses.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SharedStoreBenchmark {
+
+    /** none keeps games on this node alone, memory and file share them with the near-cache time given. */
+    @Param({"none", "memory:50", "memory:0", "file:50", "file:0"})
+    public String repository;
+
+    private SessionStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.store = new SessionStore();
+        if (!this.repository.equals("none")) {
+            String[] parts = this.repository.split(":");
+            SessionRepository shared = parts[0].equals("memory") ? new InMemorySessionRepository()
+                    : new FileSessionRepository(Files.createTempDirectory("sessions"));
+            this.store.setRepository(shared, "bench", Long.parseLong(parts[1]));
+        }
+        this.store.newGame("player");
+    }
+
+    @Benchmark
+    public Object lastGame() {
+        return this.store.lastGame("player");
+    }
+
+    @Benchmark
+    public Object playGame() {
+        Session session = this.store.newGame("player");
+        Response response = null;
+        for (char letter = 'a'; !session.isGameFinished(); ++letter) response = this.store.applyGuess(session, new Guess(letter));
+        return response;
+    }
+}
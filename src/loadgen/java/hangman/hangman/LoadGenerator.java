@@ -0,0 +1,319 @@
+package hangman.hangman;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import com.google.gson.Gson;
+
+/**
+ * Load generator playing simulated players against a running instance, for reproducing production load
+ * without real users. Run it with
+ *     mvn -Ploadgen test-compile exec:exec -Dloadgen.args="--players=64 --rate=2000 --duration=60"
+ *
+ * Every player starts a game with newGameSession and guesses letters in order of their frequency in English
+ * with submitGuess until the game ends, then starts the next game. Before a guess, a player reloads the page
+ * with reloadOrResume with the probability given by --reload, and opens the management page with gamesHistory
+ * with the probability given by --history. Each player keeps the cookie the server gave it.
+ *
+ * With a --rate, timing is open loop: each player sends its requests on a fixed schedule, spreading the rate
+ * over all players, and the latency of a request is measured from the time it was scheduled to be sent, not
+ * from when it was sent. A server that stalls therefore shows up in the latencies of all requests it delayed,
+ * instead of merely slowing the players down so fewer slow requests are sent. Without a --rate, every player
+ * sends its next request as soon as the last one is answered, and latency is the time to answer.
+ *
+ * Admission control limits each player by its cookie, and a request refused with 429 is answered at once and
+ * counted like any other. A closed-loop run must therefore be made against an instance started with
+ * --hangman.admission.enabled=false, or it measures how fast 429s come back; so should an open-loop run whose
+ * rate per player is above hangman.admission.rate. All players and flooders send from one address, so an
+ * instance with a hangman.admission.address-rate limits them all together, flooders included.
+ *
+ * With --flooders, that many misbehaving clients run alongside the players, each sending gamesHistory and
+ * submitGuess requests at --flood-rate requests per second, or as fast as they are answered with a rate of 0,
+ * without backing off when refused, for measuring how much they slow the players down. Their
+ * requests are not part of the latencies; only how many were sent and how many were refused with 429 are.
+ *
+ * Requests scheduled during the --warmup seconds are not counted. At the end, the throughput and the latency
+ * percentiles of each endpoint are printed.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class LoadGenerator {
+
+    private static final String LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+    private static final String[] ENDPOINTS = {"newGameSession", "submitGuess", "reloadOrResume", "gamesHistory"};
+    private static final int NEW_GAME_SESSION = 0;
+    private static final int SUBMIT_GUESS = 1;
+    private static final int RELOAD_OR_RESUME = 2;
+    private static final int GAMES_HISTORY = 3;
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999, 1.0};
+
+    private final String url;
+    private final int players;
+    private final double rate;
+    private final double reload;
+    private final double history;
+    private final long seed;
+    private final int flooders;
+    private final double floodRate;
+    private final LongAdder floodRequests = new LongAdder();
+    private final LongAdder floodRejected = new LongAdder();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[ENDPOINTS.length];
+    private final LongAdder[] errors = new LongAdder[ENDPOINTS.length];
+    private final LongAdder gamesFinished = new LongAdder();
+    private volatile long countFrom;
+    private volatile long stopAt;
+
+    /**
+     * Creates a load generator.
+     * @param url Base URL of the instance, such as http://localhost:8080.
+     * @param players Number of simulated players, each playing on its own thread.
+     * @param rate Requests per second across all players, or 0 for every player to go as fast as it can.
+     * @param reload Probability of a reloadOrResume before a guess.
+     * @param history Probability of a gamesHistory before a guess.
+     * @param seed Seed of the random choices of the players.
+     * @param flooders Number of flooding clients running alongside the players.
+     * @param floodRate Requests per second of each flooding client, or 0 for as fast as it is answered.
+     * */
+    public LoadGenerator(String url, int players, double rate, double reload, double history, long seed, int flooders,
+                         double floodRate) {
+        this.url = url;
+        this.players = players;
+        this.rate = rate;
+        this.reload = reload;
+        this.history = history;
+        this.seed = seed;
+        this.flooders = flooders;
+        this.floodRate = floodRate;
+        for (int i = 0; i < ENDPOINTS.length; ++i) {
+            this.latencies[i] = new LatencyHistogram();
+            this.errors[i] = new LongAdder();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        options.put("url", "http://localhost:8080");
+        options.put("players", "16");
+        options.put("rate", "0");
+        options.put("duration", "30");
+        options.put("warmup", "5");
+        options.put("reload", "0.05");
+        options.put("history", "0.01");
+        options.put("seed", "42");
+        options.put("flooders", "0");
+        options.put("flood-rate", "0");
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String name = arg.startsWith("--") && eq > 2 ? arg.substring(2, eq) : null;
+            if (name == null || !options.containsKey(name)) {
+                System.err.println("Unknown option " + arg + ", expected --name=value with a name from " + options.keySet());
+                System.exit(2);
+            }
+            options.put(name, arg.substring(eq + 1));
+        }
+        LoadGenerator generator = new LoadGenerator(options.get("url"), Integer.parseInt(options.get("players")),
+                Double.parseDouble(options.get("rate")), Double.parseDouble(options.get("reload")),
+                Double.parseDouble(options.get("history")), Long.parseLong(options.get("seed")),
+                Integer.parseInt(options.get("flooders")), Double.parseDouble(options.get("flood-rate")));
+        System.out.println("Running " + options.get("players") + " players against " + options.get("url")
+                + (generator.rate > 0 ? " at " + options.get("rate") + " requests/s, open loop" : " closed loop")
+                + (generator.flooders > 0 ? " with " + options.get("flooders") + " flooders" : "")
+                + ", " + options.get("warmup") + " s warmup and " + options.get("duration") + " s measured");
+        generator.run(Long.parseLong(options.get("warmup")), Long.parseLong(options.get("duration")));
+        System.out.print(generator.report(Long.parseLong(options.get("duration"))));
+    }
+
+    /**
+     * Plays the simulated players until the warmup and the measured time have passed.
+     * @param warmupSeconds Seconds before requests are counted.
+     * @param durationSeconds Seconds requests are counted for.
+     * */
+    public void run(long warmupSeconds, long durationSeconds) throws InterruptedException {
+        long start = System.nanoTime();
+        this.countFrom = start + warmupSeconds * 1000000000L;
+        this.stopAt = this.countFrom + durationSeconds * 1000000000L;
+        Thread[] threads = new Thread[this.players + this.flooders];
+        for (int i = 0; i < this.players; ++i) {
+            Player player = new Player(new Random(this.seed + i));
+            long firstSend = this.rate > 0 ? start + (long) (i * 1e9 / this.rate) : start;
+            threads[i] = new Thread(() -> player.play(firstSend), "player-" + i);
+            threads[i].start();
+        }
+        for (int i = 0; i < this.flooders; ++i) {
+            threads[this.players + i] = new Thread(this::flood, "flooder-" + i);
+            threads[this.players + i].start();
+        }
+        for (Thread thread : threads) thread.join();
+    }
+
+    /**
+     * Formats the throughput and latency percentiles of each endpoint.
+     * @param durationSeconds Seconds requests were counted for.
+     * @return String with one line per endpoint.
+     * */
+    public String report(long durationSeconds) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-16s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        long total = 0;
+        for (int i = 0; i < ENDPOINTS.length; ++i) {
+            long count = this.latencies[i].count();
+            long[] percentiles = this.latencies[i].quantiles(PERCENTILES);
+            total += count;
+            sb.append(String.format("%-16s %10d %8d %10.1f", ENDPOINTS[i], count, this.errors[i].sum(),
+                    (double) count / durationSeconds));
+            for (long nanos : percentiles) sb.append(String.format(" %10.3f", nanos / 1e6));
+            sb.append(System.lineSeparator());
+        }
+        sb.append(String.format("%d requests, %.1f requests/s, %d games finished%n", total,
+                (double) total / durationSeconds, this.gamesFinished.sum()));
+        if (this.flooders > 0) {
+            sb.append(String.format("flooders sent %d requests, %d refused with 429%n", this.floodRequests.sum(),
+                    this.floodRejected.sum()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Sends gamesHistory and submitGuess requests as one client, on a fixed schedule or each as soon as the last
+     * is answered, without backing off when refused.
+     * */
+    private void flood() {
+        String cookie = null;
+        long interval = this.floodRate > 0 ? (long) (1e9 / this.floodRate) : 0;
+        long scheduled = System.nanoTime();
+        for (int i = 0; System.nanoTime() < this.stopAt; ++i, scheduled += interval) {
+            for (long now; (now = System.nanoTime()) < scheduled; ) LockSupport.parkNanos(scheduled - now);
+            boolean history = i % 2 == 0;
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(this.url + (history ? "/gamesHistory" : "/submitGuess")).openConnection();
+                if (cookie != null) connection.setRequestProperty("Cookie", cookie);
+                if (!history) {
+                    connection.setRequestMethod("POST");
+                    connection.setDoOutput(true);
+                    connection.setRequestProperty("Content-Type", "text/plain;charset=UTF-8");
+                    try (OutputStream out = connection.getOutputStream()) {
+                        out.write("{\"value\":\"e\"}".getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                int status = connection.getResponseCode();
+                String setCookie = connection.getHeaderField("Set-Cookie");
+                if (setCookie != null) cookie = setCookie.split(";", 2)[0];
+                read(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+                if (System.nanoTime() >= this.countFrom) {
+                    this.floodRequests.increment();
+                    if (status == 429) this.floodRejected.increment();
+                }
+            } catch (IOException | RuntimeException e) {
+                // Keep flooding through errors
+            }
+        }
+    }
+
+    /**
+     * One simulated player, sending its requests one at a time on its own thread.
+     * */
+    private class Player {
+
+        private final Random random;
+        private final Gson gson = new Gson();
+        private final long interval = LoadGenerator.this.rate > 0 ? (long) (LoadGenerator.this.players * 1e9 / LoadGenerator.this.rate) : 0;
+        private String cookie;
+        private boolean inGame;
+        private int next;
+
+        private Player(Random random) {
+            this.random = random;
+        }
+
+        private void play(long firstSend) {
+            long scheduled = firstSend;
+            while (scheduled < LoadGenerator.this.stopAt) {
+                long now;
+                while ((now = System.nanoTime()) < scheduled) LockSupport.parkNanos(scheduled - now);
+                long from = this.interval > 0 ? scheduled : now;
+                if (from >= LoadGenerator.this.stopAt) break;
+                step(from);
+                scheduled = this.interval > 0 ? scheduled + this.interval : System.nanoTime();
+            }
+        }
+
+        private void step(long from) {
+            if (!this.inGame) {
+                Response response = call(NEW_GAME_SESSION, "GET", "/newGameSession", null, from);
+                this.inGame = response != null;
+                this.next = 0;
+                return;
+            }
+            double roll = this.random.nextDouble();
+            if (roll < LoadGenerator.this.reload) {
+                call(RELOAD_OR_RESUME, "GET", "/reloadOrResume", null, from);
+            } else if (roll < LoadGenerator.this.reload + LoadGenerator.this.history) {
+                call(GAMES_HISTORY, "GET", "/gamesHistory", null, from);
+            } else {
+                char letter = LETTERS.charAt(this.next++);
+                Response response = call(SUBMIT_GUESS, "POST", "/submitGuess", "{\"value\":\"" + letter + "\"}", from);
+                if (response == null || this.next == LETTERS.length() || "Game Over.".equals(response.getUserMessage())
+                        || "Congratulations, you won!".equals(response.getUserMessage())) {
+                    if (response != null) LoadGenerator.this.gamesFinished.increment();
+                    this.inGame = false;
+                }
+            }
+        }
+
+        /**
+         * Sends a request and records its latency from the given time.
+         * @return Response object parsed from the body of a game endpoint, an empty one for gamesHistory, or null on error.
+         * */
+        private Response call(int endpoint, String method, String path, String body, long from) {
+            Response response = null;
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(LoadGenerator.this.url + path).openConnection();
+                connection.setRequestMethod(method);
+                if (this.cookie != null) connection.setRequestProperty("Cookie", this.cookie);
+                if (body != null) {
+                    connection.setDoOutput(true);
+                    connection.setRequestProperty("Content-Type", "text/plain;charset=UTF-8");
+                    try (OutputStream out = connection.getOutputStream()) {
+                        out.write(body.getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                    String setCookie = connection.getHeaderField("Set-Cookie");
+                    if (setCookie != null) this.cookie = setCookie.split(";", 2)[0];
+                    String json = read(connection.getInputStream());
+                    response = endpoint == GAMES_HISTORY ? new Response() : this.gson.fromJson(json, Response.class);
+                } else {
+                    read(connection.getErrorStream());
+                }
+            } catch (IOException | RuntimeException e) {
+                response = null;
+            }
+            long end = System.nanoTime();
+            if (from >= LoadGenerator.this.countFrom) {
+                LoadGenerator.this.latencies[endpoint].record(end - from);
+                if (response == null) LoadGenerator.this.errors[endpoint].increment();
+            }
+            return response;
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        if (in == null) return "";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream stream = in) {
+            byte[] buffer = new byte[8192];
+            for (int n; (n = stream.read(buffer)) > 0; ) bytes.write(buffer, 0, n);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
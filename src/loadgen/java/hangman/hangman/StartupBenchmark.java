@@ -0,0 +1,132 @@
+package hangman.hangman;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup benchmark launching the packaged application again and again, in the default and the lean startup
+ * mode, and measuring how soon each instance can serve a game. Run it after packaging with
+ *     mvn -Ploadgen test-compile exec:exec -Dloadgen.main=StartupBenchmark -Dloadgen.args="--runs=10"
+ *
+ * Each run starts a new JVM on the jar given by --jar and sends GET /newGameSession every millisecond from the
+ * moment the process is started until one is answered with 200. The time until then is the time to the first
+ * game, which includes the JVM starting, the application context being refreshed and whatever the first request
+ * waits for. The resident memory of the process is read from /proc when the first game is served, so the
+ * benchmark runs on Linux only. Options given by --jvm-args, such as -XX:TieredStopAtLevel=1, are passed to
+ * every JVM, and --app-args to every application. These turn the journal and admission control off by default,
+ * as polling every millisecond from one address would otherwise be refused with 429 before the first game.
+ *
+ * At the end, the median and minimum of both measures are printed for each mode.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class StartupBenchmark {
+
+    private static final String[] MODES = {"default", HangmanApplication.LEAN};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        options.put("jar", "target/hangman-0.0.1-SNAPSHOT.jar");
+        options.put("runs", "5");
+        options.put("port", "18080");
+        options.put("timeout", "120");
+        options.put("jvm-args", "");
+        options.put("app-args", "--hangman.journal.enabled=false --hangman.admission.enabled=false");
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String name = arg.startsWith("--") && eq > 2 ? arg.substring(2, eq) : null;
+            if (name == null || !options.containsKey(name)) {
+                System.err.println("Unknown option " + arg + ", expected --name=value with a name from " + options.keySet());
+                System.exit(2);
+            }
+            options.put(name, arg.substring(eq + 1));
+        }
+        int runs = Integer.parseInt(options.get("runs"));
+        System.out.println("Starting " + options.get("jar") + " " + runs + " times in each mode");
+        StringBuilder report = new StringBuilder(String.format("%-8s %16s %16s %16s %16s%n",
+                "mode", "median ms", "min ms", "median RSS MB", "min RSS MB"));
+        for (String mode : MODES) {
+            long[] millis = new long[runs];
+            long[] rss = new long[runs];
+            for (int run = 0; run < runs; ++run) {
+                long[] result = start(options, mode);
+                millis[run] = result[0];
+                rss[run] = result[1];
+                System.out.println(mode + " run " + (run + 1) + ": first game after " + result[0] + " ms, RSS "
+                        + result[1] / 1024 + " MB");
+            }
+            Arrays.sort(millis);
+            Arrays.sort(rss);
+            report.append(String.format("%-8s %16d %16d %16d %16d%n", mode, millis[runs / 2], millis[0],
+                    rss[runs / 2] / 1024, rss[0] / 1024));
+        }
+        System.out.print(report);
+    }
+
+    /**
+     * Starts one instance and waits for its first game.
+     * @return long array of the milliseconds until the first game and the resident memory in kB at that time.
+     * */
+    private static long[] start(Map<String, String> options, String mode) throws Exception {
+        List<String> command = new ArrayList<>(Arrays.asList("sh", "-c", "echo $$; exec \"$@\" > /dev/null 2>&1", "sh", "java"));
+        command.addAll(split(options.get("jvm-args")));
+        command.addAll(Arrays.asList("-jar", options.get("jar"), "--server.port=" + options.get("port")));
+        if (mode.equals(HangmanApplication.LEAN)) command.add("--" + HangmanApplication.STARTUP + "=" + mode);
+        command.addAll(split(options.get("app-args")));
+        URL url = new URL("http://localhost:" + options.get("port") + "/newGameSession");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("timeout")));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try {
+            String pid = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            while (!served(url)) {
+                if (!process.isAlive()) throw new IllegalStateException("Application exited with " + process.exitValue());
+                if (System.nanoTime() > deadline) throw new IllegalStateException("No game served before the timeout");
+                Thread.sleep(1);
+            }
+            long millis = (System.nanoTime() - start) / 1000000;
+            return new long[] {millis, residentKilobytes(pid)};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static boolean served(URL url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(1000);
+            int status = connection.getResponseCode();
+            connection.disconnect();
+            return status == HttpURLConnection.HTTP_OK;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long residentKilobytes(String pid) throws IOException {
+        for (String line : Files.readAllLines(Paths.get("/proc", pid, "status"), StandardCharsets.US_ASCII)) {
+            if (line.startsWith("VmRSS:")) return Long.parseLong(line.replaceAll("[^0-9]", ""));
+        }
+        return -1;
+    }
+
+    private static List<String> split(String args) {
+        List<String> parts = new ArrayList<>();
+        for (String part : args.trim().split("\\s+")) if (!part.isEmpty()) parts.add(part);
+        return parts;
+    }
+}
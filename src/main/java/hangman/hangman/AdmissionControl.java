@@ -0,0 +1,252 @@
+package hangman.hangman;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Admits requests to the game endpoints, turning away at once with 429 and a Retry-After header those a
+ * player sends faster than its rate, and those for an expensive endpoint while as many are already in progress
+ * as allowed. A flooding client is then answered with a cheap rejection instead of queueing ahead of, or taking
+ * the container threads from, everyone else.
+ *
+ * Every player, told by its cookie or by its address when it has none, has a token bucket holding up to burst
+ * requests and refilled at the rate. As the cookie is chosen by the client, address limiting can be turned on
+ * with an address rate: every remote address then also has a bucket with a higher rate and burst, shared by
+ * the players behind it, so that a client sending a new cookie with every request is still limited, and cannot
+ * fill the buckets of players with new ones faster than its address rate. A request is then admitted when both
+ * the bucket of its address and that of its player, if it has a cookie, hold the tokens it takes. It is off by
+ * default, as all clients behind one proxy or NAT address would share a single address rate. The address is
+ * that of the client as the container reports it, which behind a reverse proxy is the proxy's own, unless the
+ * container is told to trust the proxy's X-Forwarded-For header, as with server.use-forward-headers=true.
+ *
+ * A bucket is a single AtomicLong holding the time at which it will be full again, so admitting a request is
+ * one compare-and-set without locks. A bucket that is full is the same as having none, so idle players' and
+ * addresses' buckets are removed by a sweeper thread, and once maxPlayers buckets of either kind exist, new
+ * ones share a single overflow bucket until the sweeper has made room. A request may take a token from a bucket
+ * just as the sweeper removes it; that token is given back, which is harmless.
+ *
+ * Expensive endpoints, which serialize or stream the whole history or the word statistics, take expensiveCost
+ * tokens of the player, and are limited to a number running at the same time across all players.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class AdmissionControl implements Filter {
+
+    public static final String[] EXPENSIVE = {"/gamesHistory", "/gamesHistoryExport", "/stats/words"};
+    public static final String RATE = "rate";
+    public static final String CONCURRENCY = "concurrency";
+
+    private static final String OVERFLOW = "";
+
+    private final ConcurrentHashMap<String, AtomicLong> players = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> addresses = new ConcurrentHashMap<>();
+    private final AtomicInteger expensiveInProgress = new AtomicInteger();
+    private final LongAdder rateRejections = new LongAdder();
+    private final LongAdder concurrencyRejections = new LongAdder();
+    private final LongSupplier clock;
+    private final long emissionNanos;
+    private final long burstNanos;
+    private final long addressEmissionNanos;
+    private final long addressBurstNanos;
+    private final int expensiveCost;
+    private final int maxExpensive;
+    private final int maxPlayers;
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Creates the admission control, sweeping idle buckets every sweepMillis.
+     * @param rate Requests per second admitted for each player.
+     * @param burst Requests a player who has been idle may send at once.
+     * @param addressRate Requests per second admitted for each remote address, whatever the players behind it,
+     *                    or 0 not to limit addresses.
+     * @param addressBurst Requests an address that has been idle may send at once, at least the burst if
+     *                     addresses are limited.
+     * @param expensiveCost Number of requests an expensive request counts as.
+     * @param maxExpensive Number of requests to expensive endpoints allowed in progress at the same time.
+     * @param maxPlayers Number of buckets of players, and of addresses, beyond which new ones share the
+     *                   overflow bucket.
+     * @param sweepMillis Time between sweeps removing the buckets of idle players and addresses.
+     * */
+    public AdmissionControl(double rate, int burst, double addressRate, int addressBurst, int expensiveCost,
+                            int maxExpensive, int maxPlayers, long sweepMillis) {
+        this(rate, burst, addressRate, addressBurst, expensiveCost, maxExpensive, maxPlayers, System::nanoTime);
+        this.sweeper.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates the admission control reading time from the given clock, with idle buckets removed only when
+     * sweep() is called.
+     * */
+    AdmissionControl(double rate, int burst, double addressRate, int addressBurst, int expensiveCost,
+                     int maxExpensive, int maxPlayers, LongSupplier clock) {
+        if (rate <= 0 || burst < 1 || addressRate < 0 || (addressRate > 0 && addressBurst < burst)) {
+            throw new IllegalArgumentException("Expected a positive rate and burst, and an address burst of at least the burst");
+        }
+        this.clock = clock;
+        this.emissionNanos = Math.max(1, (long) (1e9 / rate));
+        this.burstNanos = burst * this.emissionNanos;
+        this.addressEmissionNanos = addressRate > 0 ? Math.max(1, (long) (1e9 / addressRate)) : 0;
+        this.addressBurstNanos = addressBurst * this.addressEmissionNanos;
+        this.expensiveCost = Math.max(1, Math.min(expensiveCost, burst));
+        this.maxExpensive = maxExpensive;
+        this.maxPlayers = maxPlayers;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "admission-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        boolean expensive = isExpensive(httpRequest.getRequestURI());
+        long wait = admit(httpRequest.getRemoteAddr(), player(httpRequest), expensive ? this.expensiveCost : 1);
+        if (wait > 0) {
+            this.rateRejections.increment();
+            reject(httpResponse, wait);
+            return;
+        }
+        if (!expensive) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (this.expensiveInProgress.incrementAndGet() > this.maxExpensive) {
+            this.expensiveInProgress.decrementAndGet();
+            this.concurrencyRejections.increment();
+            reject(httpResponse, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            this.expensiveInProgress.decrementAndGet();
+        }
+    }
+
+    /**
+     * Takes tokens from the bucket of an address, if addresses are limited, then from that of a player. Tokens
+     * taken from the address are not given back when the player's bucket turns the request away.
+     * @param address Remote address of the request.
+     * @param player Key of the player, as returned by player(HttpServletRequest), or null if it has no cookie.
+     * @param tokens Number of tokens the request costs, at most the burst.
+     * @return long 0 if the request is admitted, otherwise the nanoseconds until the buckets hold the tokens.
+     * */
+    long admit(String address, String player, int tokens) {
+        long now = this.clock.getAsLong();
+        if (this.addressEmissionNanos > 0) {
+            long wait = take(this.addresses, address, now, tokens * this.addressEmissionNanos, this.addressBurstNanos);
+            if (wait > 0 || player == null) return wait;
+        } else if (player == null) {
+            // Every request without a cookie would otherwise be a new player
+            player = "addr:" + address;
+        }
+        return take(this.players, player, now, tokens * this.emissionNanos, this.burstNanos);
+    }
+
+    private long take(ConcurrentHashMap<String, AtomicLong> buckets, String key, long now, long costNanos, long burstNanos) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(buckets.size() < this.maxPlayers ? key : OVERFLOW, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + costNanos;
+            if (next - now > burstNanos) return next - now - burstNanos;
+            if (bucket.compareAndSet(fullAt, next)) return 0;
+        }
+    }
+
+    /**
+     * Removes the buckets of players and addresses that have been idle long enough for them to be full.
+     * */
+    void sweep() {
+        long now = this.clock.getAsLong();
+        for (ConcurrentHashMap<String, AtomicLong> buckets : Arrays.asList(this.players, this.addresses)) {
+            for (Iterator<Map.Entry<String, AtomicLong>> it = buckets.entrySet().iterator(); it.hasNext(); ) {
+                if (it.next().getValue().get() - now <= 0) it.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of players with a bucket, those idle since the last sweep included.
+     * @return int count of buckets.
+     * */
+    public int playerCount() {
+        return this.players.size();
+    }
+
+    /**
+     * Returns the number of addresses with a bucket, those idle since the last sweep included.
+     * @return int count of buckets.
+     * */
+    public int addressCount() {
+        return this.addresses.size();
+    }
+
+    /**
+     * Returns the number of requests turned away.
+     * @param reason RATE for requests beyond the rate of their player, CONCURRENCY for expensive requests beyond
+     *               the limit.
+     * @return long count of rejected requests.
+     * */
+    public long rejections(String reason) {
+        return (reason.equals(RATE) ? this.rateRejections : this.concurrencyRejections).sum();
+    }
+
+    @Override
+    public void destroy() {
+        this.sweeper.shutdown();
+    }
+
+    /**
+     * Returns the key of the bucket of the player sending a request: its player cookie, or null if it has none.
+     * */
+    private static String player(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (cookie.getName().equals(RController.PLAYER_COOKIE) && !cookie.getValue().isEmpty()) return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isExpensive(String path) {
+        for (String expensive : EXPENSIVE) if (expensive.equals(path)) return true;
+        return false;
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(Math.max(1, (waitNanos + 999999999L) / 1000000000L)));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Too many requests, try again later");
+    }
+}
@@ -0,0 +1,154 @@
+package hangman.hangman;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build step preparing the static files of the web pages for StaticAssets, run by Maven after the classes are
+ * compiled:
+ *     java hangman.hangman.AssetPipeline target/classes/static target/classes/assets
+ *
+ * Every file other than the HTML pages is copied under a name holding a hash of its content, such as
+ * 0.1f2e3d4c5b6a.png, so it can be cached by browsers for good and a changed file gets a new URL. References to
+ * these files in the pages, as quoted strings, are rewritten to their hashed names. Pages keep their names, as
+ * players navigate to them. Every file is also written gzipped at the highest level, when that makes it smaller.
+ *
+ * The files written are listed in manifest.txt, one per line: the path the file is served at, its name in the
+ * output directory, and the hash of its content.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class AssetPipeline {
+
+    public static final String MANIFEST = "manifest.txt";
+    public static final String ASSET_PATH = "/assets/";
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private static final int HASH_LENGTH = 12;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: AssetPipeline <static directory> <output directory>");
+            System.exit(2);
+        }
+        run(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    /**
+     * Hashes, rewrites and compresses the files of a directory.
+     * @param source Directory of the static files, not searched recursively.
+     * @param target Directory the prepared files and manifest are written to.
+     * @return int number of files prepared.
+     * */
+    public static int run(Path source, Path target) throws IOException {
+        List<Path> pages = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+            for (Path entry : entries) {
+                if (!Files.isRegularFile(entry)) continue;
+                (isPage(entry) ? pages : files).add(entry);
+            }
+        }
+        Collections.sort(pages);
+        Collections.sort(files);
+        Files.createDirectories(target);
+        StringBuilder manifest = new StringBuilder();
+        TreeMap<String, String> hashedNames = new TreeMap<>();
+        for (Path file : files) {
+            byte[] content = Files.readAllBytes(file);
+            String name = file.getFileName().toString();
+            String hash = hash(content);
+            int dot = name.lastIndexOf('.');
+            String hashedName = dot < 0 ? name + "." + hash : name.substring(0, dot) + "." + hash + name.substring(dot);
+            write(target, hashedName, content);
+            hashedNames.put(name, hashedName);
+            manifest.append(ASSET_PATH).append(hashedName).append(' ').append(hashedName).append(' ').append(hash).append('\n');
+        }
+        for (Path page : pages) {
+            String html = new String(Files.readAllBytes(page), StandardCharsets.UTF_8);
+            byte[] content = rewrite(html, hashedNames).getBytes(StandardCharsets.UTF_8);
+            String name = page.getFileName().toString();
+            write(target, name, content);
+            manifest.append('/').append(name).append(' ').append(name).append(' ').append(hash(content)).append('\n');
+        }
+        Files.write(target.resolve(MANIFEST), manifest.toString().getBytes(StandardCharsets.UTF_8));
+        return pages.size() + files.size();
+    }
+
+    /**
+     * Points the quoted references to files of a page at their hashed copies.
+     * @param html Content of the page.
+     * @param hashedNames Hashed names of the files by their original names.
+     * @return String of the page with every "name" or 'name' of a file replaced.
+     * */
+    static String rewrite(String html, TreeMap<String, String> hashedNames) {
+        if (hashedNames.isEmpty()) return html;
+        StringBuilder names = new StringBuilder();
+        for (String name : hashedNames.descendingKeySet()) {
+            if (names.length() > 0) names.append('|');
+            names.append(Pattern.quote(name));
+        }
+        Matcher matcher = Pattern.compile("([\"'])(?:\\./)?(" + names + ")\\1").matcher(html);
+        StringBuffer sb = new StringBuffer(html.length() + 64);
+        while (matcher.find()) {
+            String reference = matcher.group(1) + ASSET_PATH.substring(1) + hashedNames.get(matcher.group(2)) + matcher.group(1);
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(reference));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static boolean isPage(Path file) {
+        return file.getFileName().toString().endsWith(".html");
+    }
+
+    private static void write(Path target, String name, byte[] content) throws IOException {
+        Files.write(target.resolve(name), content);
+        byte[] gzipped = gzip(content);
+        Path gzipFile = target.resolve(name + GZIP_SUFFIX);
+        if (gzipped.length < content.length) {
+            Files.write(gzipFile, gzipped);
+        } else {
+            Files.deleteIfExists(gzipFile);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length);
+        try (OutputStream out = new GZIPOutputStream(bytes) {
+            {
+                this.def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder sb = new StringBuilder(HASH_LENGTH);
+            for (int i = 0; sb.length() < HASH_LENGTH; ++i) sb.append(String.format("%02x", digest[i]));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package hangman.hangman;
+
+/**
+ * Acts as AJAX container for the message from server to client answering a batch of guesses. Holds the
+ * response to the last guess applied and the outcome of every guess applied, in the order they were submitted.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class BatchResponse {
+
+    public static final String HIT = "Hit";
+    public static final String MISS = "Miss";
+    public static final String REPEAT = "Repeat";
+
+    private Response response;
+    private String[] outcomes;
+
+    /**
+     * Getter for the response to the last guess applied.
+     * @return Response object with the game state after the batch.
+     * */
+    public Response getResponse() {
+        return response;
+    }
+
+    public void setResponse(Response response) {
+        this.response = response;
+    }
+
+    /**
+     * Getter for the outcomes of the guesses applied. Guesses submitted after the game finished are not applied
+     * and have no outcome, so the array may be shorter than the batch.
+     * @return String array with Hit, Miss or Repeat for each guess applied.
+     * */
+    public String[] getOutcomes() {
+        return outcomes;
+    }
+
+    public void setOutcomes(String[] outcomes) {
+        this.outcomes = outcomes;
+    }
+}
@@ -0,0 +1,189 @@
+package hangman.hangman;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Build step scoring how hard every word of a word list is to guess, run by Maven after the classes are
+ * compiled for the built-in list, or by hand for any other:
+ *     java hangman.hangman.DifficultyScorer words.txt words.scores [parallelism]
+ *
+ * A word scores higher, from 0 to 255, the harder it is:
+ *     - length: short words reveal little per correct guess,
+ *     - letter rarity: the fewer words of the list contain its letters, the later players try them,
+ *     - ambiguity: the more words of the same length differ from it in a single position, such as "bat", "cat"
+ *       and "hat", the more guesses it takes to tell them apart once all but that position is revealed.
+ *
+ * Every step runs on a ForkJoinPool of the given parallelism: letter counts and word scores as parallel streams
+ * over the words, and the ambiguity index as one task per word length and position. The index holds, for each,
+ * the sorted hashes of the words with that position blanked, so the neighbours of a word sharing a blanked
+ * form are counted with a binary search.
+ *
+ * The score file is read by WordDifficulty: magic, word count and WordDictionary.fingerprint() of the list,
+ * then one byte per word in word id order.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class DifficultyScorer {
+
+    static final int MAGIC = 0x48445331;
+
+    private static final int LETTERS = 26;
+    private static final int MAX_SCORED_LENGTH = 16;
+    private static final int MAX_NEIGHBOURS_LOG = 6;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Usage: DifficultyScorer <word list> <score file> [parallelism]");
+            System.exit(2);
+        }
+        int parallelism = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        WordDictionary dictionary = WordDictionary.load(Paths.get(args[0]));
+        long start = System.nanoTime();
+        byte[] scores = score(dictionary, parallelism);
+        long millis = (System.nanoTime() - start) / 1000000;
+        write(Paths.get(args[1]), dictionary, scores);
+        System.out.println("Scored " + scores.length + " words in " + millis + " ms on " + parallelism + " threads");
+    }
+
+    /**
+     * Scores every word of a dictionary.
+     * @param dictionary WordDictionary to score.
+     * @param parallelism Number of threads to score on.
+     * @return byte array of the score of every word, unsigned, indexed by word id.
+     * */
+    public static byte[] score(WordDictionary dictionary, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> score(dictionary)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scoring words", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to score words", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Writes a score file, first to a temporary file which is renamed once complete.
+     * @param file Path of the score file.
+     * @param dictionary WordDictionary the scores were computed for.
+     * @param scores Scores of the words, indexed by word id.
+     * */
+    public static void write(Path file, WordDictionary dictionary, byte[] scores) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(scores.length);
+            out.writeLong(dictionary.fingerprint());
+            out.write(scores);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Scores every word on the pool of the calling thread.
+     * */
+    private static byte[] score(WordDictionary dictionary) {
+        int size = dictionary.size();
+        long[] wordsWithLetter = IntStream.range(0, size).parallel().collect(() -> new long[LETTERS], (counts, id) -> {
+            for (int letters = letterMask(dictionary, id); letters != 0; letters &= letters - 1) {
+                ++counts[Integer.numberOfTrailingZeros(letters)];
+            }
+        }, (a, b) -> {
+            for (int i = 0; i < LETTERS; ++i) a[i] += b[i];
+        });
+        double[] rarity = new double[LETTERS];
+        for (int i = 0; i < LETTERS; ++i) rarity[i] = size == 0 ? 0 : 1 - (double) wordsWithLetter[i] / size;
+
+        long[][][] blanked = new long[Session.MAX_WORD_LENGTH + 1][][];
+        for (int length = 1; length <= Session.MAX_WORD_LENGTH; ++length) {
+            if (dictionary.idsOfLength(length).length > 1) blanked[length] = new long[length][];
+        }
+        IntStream.range(0, blanked.length * Session.MAX_WORD_LENGTH).parallel().forEach(task -> {
+            int length = task / Session.MAX_WORD_LENGTH;
+            int position = task % Session.MAX_WORD_LENGTH;
+            if (blanked[length] == null || position >= length) return;
+            int[] ids = dictionary.idsOfLength(length);
+            long[] hashes = new long[ids.length];
+            for (int i = 0; i < ids.length; ++i) hashes[i] = blankedHash(dictionary, ids[i], length, position);
+            Arrays.sort(hashes);
+            blanked[length][position] = hashes;
+        });
+
+        byte[] scores = new byte[size];
+        IntStream.range(0, size).parallel().forEach(id -> {
+            int length = dictionary.length(id);
+            double lengthScore = (double) (MAX_SCORED_LENGTH - Math.min(length, MAX_SCORED_LENGTH)) / (MAX_SCORED_LENGTH - 1);
+            int letters = letterMask(dictionary, id);
+            double letterScore = 0;
+            for (int bits = letters; bits != 0; bits &= bits - 1) letterScore += rarity[Integer.numberOfTrailingZeros(bits)];
+            letterScore /= Integer.bitCount(letters);
+            long neighbours = 0;
+            if (blanked[length] != null) {
+                for (int position = 0; position < length; ++position) {
+                    neighbours += count(blanked[length][position], blankedHash(dictionary, id, length, position)) - 1;
+                }
+            }
+            double ambiguityScore = Math.min(1, Math.log(1 + neighbours) / Math.log(2) / MAX_NEIGHBOURS_LOG);
+            double score = 0.3 * lengthScore + 0.3 * letterScore + 0.4 * ambiguityScore;
+            scores[id] = (byte) Math.round(score * 255);
+        });
+        return scores;
+    }
+
+    private static int letterMask(WordDictionary dictionary, int id) {
+        int mask = 0;
+        for (int position = 0, length = dictionary.length(id); position < length; ++position) {
+            mask |= 1 << (Character.toLowerCase(dictionary.letter(id, position)) - 'a');
+        }
+        return mask;
+    }
+
+    /**
+     * Hashes a word with one position blanked, FNV-1a over its lower case letters. Collisions between the 64-bit
+     * hashes of words of one length only shift a score slightly.
+     * */
+    private static long blankedHash(WordDictionary dictionary, int id, int length, int position) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; ++i) {
+            hash ^= i == position ? '_' : Character.toLowerCase(dictionary.letter(id, i));
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Counts the occurrences of a value in a sorted array.
+     * */
+    private static int count(long[] sorted, long value) {
+        return firstAbove(sorted, value) - firstAbove(sorted, value - 1);
+    }
+
+    /**
+     * Finds the first element of a sorted array greater than a value.
+     * @return int index of the element, or the length of the array if there is none.
+     * */
+    private static int firstAbove(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+}
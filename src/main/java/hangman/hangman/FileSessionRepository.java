@@ -0,0 +1,98 @@
+package hangman.hangman;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SessionRepository kept in a directory all nodes can reach, one file per player, standing in for an external
+ * key-value store.
+ *
+ * A game is written to a temporary file and moved over the player's file, so reads never take a lock and
+ * always see a whole game. Writes to the file of a player are serialized by an exclusive lock on a separate
+ * lock file, taken across processes with a FileLock, and within this process with a lock stripe first, as the
+ * JVM allows only one FileLock on a file per process.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class FileSessionRepository implements SessionRepository {
+
+    private static final String GAME_SUFFIX = ".game";
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Object[] STRIPES = new Object[64];
+
+    static {
+        for (int i = 0; i < STRIPES.length; ++i) STRIPES[i] = new Object();
+    }
+
+    private final Path directory;
+
+    /**
+     * Opens the repository in a directory, creating it if needed.
+     * @param directory Directory shared by the nodes.
+     * */
+    public FileSessionRepository(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory).toAbsolutePath();
+    }
+
+    @Override
+    public StoredGame load(String playerId) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(this.directory.resolve(fileName(playerId) + GAME_SUFFIX));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        StoredGame game = StoredGame.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        // Names are hashes of the player ids, so a collision reads as no game rather than another player's
+        return game.getPlayerId().equals(playerId) ? game : null;
+    }
+
+    @Override
+    public boolean compareAndSet(String playerId, long expectedVersion, StoredGame game) throws IOException {
+        String name = fileName(playerId);
+        Path file = this.directory.resolve(name + GAME_SUFFIX);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        game.write(new DataOutputStream(bytes));
+        synchronized (STRIPES[(name.hashCode() & Integer.MAX_VALUE) % STRIPES.length]) {
+            try (FileChannel lockChannel = FileChannel.open(this.directory.resolve(name + LOCK_SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    StoredGame current = load(playerId);
+                    if ((current == null ? 0 : current.getVersion()) != expectedVersion) return false;
+                    Path temp = this.directory.resolve(name + TEMP_SUFFIX);
+                    Files.write(temp, bytes.toByteArray());
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return true;
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private static String fileName(String playerId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(playerId.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(32);
+            for (int i = 0; i < 16; ++i) sb.append(String.format("%02x", digest[i]));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
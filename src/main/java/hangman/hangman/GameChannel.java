@@ -0,0 +1,170 @@
+package hangman.hangman;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.websocket.CloseReason;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.HandshakeResponse;
+import javax.websocket.MessageHandler;
+import javax.websocket.server.HandshakeRequest;
+import javax.websocket.server.ServerContainer;
+import javax.websocket.server.ServerEndpointConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * WebSocket channel a game page keeps open to submit guesses for the last game of its player, instead of
+ * sending a new HTTP request for every guess. The player is identified by the player cookie sent with the
+ * handshake, so the channel shares games with the REST endpoints.
+ *
+ * Each guess goes up as a text frame holding the letter alone. The answer carries only what the guess changed:
+ * the attempted letter, the newly revealed positions and their letters, the wrong guess count and the user
+ * message, e.g. {"a":"c","r":[0,3],"v":"Cc","w":0,"m":"Correct!"}. Repeated guesses and guesses for a finished
+ * game change nothing and are answered with the user message alone.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class GameChannel extends Endpoint {
+
+    static final String PATH = "/gameChannel";
+
+    private static final Logger log = LoggerFactory.getLogger(GameChannel.class);
+
+    private final SessionStore sessions;
+
+    public GameChannel(SessionStore sessions) {
+        this.sessions = sessions;
+    }
+
+    @Override
+    public void onOpen(javax.websocket.Session channel, EndpointConfig config) {
+        String playerId = (String) config.getUserProperties().get(RController.PLAYER_COOKIE);
+        if (playerId == null) {
+            close(channel, new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "Missing player cookie"));
+            return;
+        }
+        channel.addMessageHandler(String.class, new MessageHandler.Whole<String>() {
+            @Override
+            public void onMessage(String letter) {
+                try {
+                    channel.getBasicRemote().sendText(guess(playerId, letter));
+                } catch (IOException e) {
+                    close(channel, new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "Send failed"));
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies a guess to the last game of the player.
+     * @param playerId Id of the player.
+     * @param letter Text of the frame received, expected to be a single lower case letter.
+     * @return String of the frame to answer with.
+     * */
+    String guess(String playerId, String letter) {
+        if (letter.length() != 1 || letter.charAt(0) < 'a' || letter.charAt(0) > 'z') {
+            return message(new StringBuilder("{"), "Please enter a single letter.").append('}').toString();
+        }
+        Guess guess = new Guess(letter.charAt(0));
+        Session session = this.sessions.lastGame(playerId);
+        synchronized (session) {
+            boolean changes = !session.isGameFinished() && !session.isAttempted(guess.getValue());
+            long revealedBefore = session.getRevealedPositions();
+            Response response = this.sessions.applyGuess(session, guess);
+            StringBuilder sb = new StringBuilder(64).append('{');
+            if (changes) {
+                sb.append("\"a\":\"").append(guess.getValue()).append("\",\"r\":[");
+                long revealed = session.getRevealedPositions() & ~revealedBefore;
+                StringBuilder letters = new StringBuilder();
+                for (long bits = revealed; bits != 0; bits &= bits - 1) {
+                    int position = Long.numberOfTrailingZeros(bits);
+                    if (letters.length() > 0) sb.append(',');
+                    sb.append(position);
+                    letters.append(session.getSecretWord().charAt(position));
+                }
+                sb.append("],\"v\":\"").append(letters).append("\",\"w\":").append(session.getWrongGuessCount()).append(',');
+            }
+            return message(sb, response.getUserMessage()).append('}').toString();
+        }
+    }
+
+    private static StringBuilder message(StringBuilder sb, String message) {
+        return sb.append("\"m\":\"").append(message).append('"');
+    }
+
+    private static void close(javax.websocket.Session channel, CloseReason reason) {
+        try {
+            channel.close(reason);
+        } catch (IOException e) {
+            log.debug("Failed to close game channel", e);
+        }
+    }
+
+    /**
+     * Registers the channel with the WebSocket container of the servlet context once the context has started,
+     * taking the player id from the cookie of every handshake.
+     * */
+    static class Registrar implements ServletContextListener {
+
+        private final SessionStore sessions;
+
+        Registrar(SessionStore sessions) {
+            this.sessions = sessions;
+        }
+
+        @Override
+        public void contextInitialized(ServletContextEvent event) {
+            ServerContainer container = (ServerContainer) event.getServletContext()
+                    .getAttribute(ServerContainer.class.getName());
+            if (container == null) {
+                log.warn("No WebSocket container, game channel disabled");
+                return;
+            }
+            ServerEndpointConfig config = ServerEndpointConfig.Builder.create(GameChannel.class, PATH)
+                    .configurator(new ServerEndpointConfig.Configurator() {
+                        @Override
+                        public void modifyHandshake(ServerEndpointConfig sec, HandshakeRequest request,
+                                                    HandshakeResponse response) {
+                            String playerId = playerCookie(request.getHeaders().get("cookie"));
+                            if (playerId != null) sec.getUserProperties().put(RController.PLAYER_COOKIE, playerId);
+                        }
+
+                        @Override
+                        public <T> T getEndpointInstance(Class<T> endpointClass) {
+                            return endpointClass.cast(new GameChannel(Registrar.this.sessions));
+                        }
+                    }).build();
+            try {
+                container.addEndpoint(config);
+            } catch (DeploymentException e) {
+                throw new IllegalStateException("Cannot register game channel at " + PATH, e);
+            }
+        }
+
+        @Override
+        public void contextDestroyed(ServletContextEvent event) {
+        }
+    }
+
+    /**
+     * Finds the player cookie in the Cookie headers of a handshake.
+     * @param headers Values of the Cookie header, or null if there is none.
+     * @return String id of the player, or null if there is no player cookie.
+     * */
+    static String playerCookie(List<String> headers) {
+        if (headers == null) return null;
+        for (String header : headers) {
+            for (String cookie : header.split(";")) {
+                int eq = cookie.indexOf('=');
+                if (eq < 0 || !cookie.substring(0, eq).trim().equals(RController.PLAYER_COOKIE)) continue;
+                String value = cookie.substring(eq + 1).trim();
+                return value.isEmpty() ? null : value;
+            }
+        }
+        return null;
+    }
+}
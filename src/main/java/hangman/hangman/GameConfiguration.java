@@ -0,0 +1,162 @@
+package hangman.hangman;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import javax.servlet.ServletContextListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.ServletListenerRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Beans of the game that are not components of their own, found by classpath scanning in a default startup
+ * and imported by LeanStartup in a lean one.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@Configuration
+public class GameConfiguration {
+
+    /**
+     * Loads the dictionary secret words are picked from.
+     * @param path Path of a word list file, or empty to use the built-in word list.
+     * @return WordDictionary shared by all game sessions.
+     * */
+    @Bean
+    public WordDictionary wordDictionary(@Value("${hangman.dictionary.path:}") String path) throws IOException {
+        return path.isEmpty() ? WordDictionary.builtIn() : WordDictionary.load(Paths.get(path));
+    }
+
+    /**
+     * Opens the repository sharing the current games of the players with the other nodes using the same
+     * directory, when hangman.repository.type is file. Without a repository the games are kept by this node alone.
+     * @param directory Directory shared by the nodes.
+     * @return FileSessionRepository over the directory.
+     * */
+    @Bean
+    @ConditionalOnProperty(name = "hangman.repository.type", havingValue = "file")
+    public SessionRepository sessionRepository(@Value("${hangman.repository.dir:shared}") String directory) throws IOException {
+        return new FileSessionRepository(Paths.get(directory));
+    }
+
+    /**
+     * Indexes the dictionary for the hints of the games.
+     * @param dictionary WordDictionary secret words are picked from.
+     * @return HintIndex over the words of the dictionary.
+     * */
+    @Bean
+    public HintIndex hintIndex(WordDictionary dictionary) {
+        return HintIndex.build(dictionary);
+    }
+
+    /**
+     * Splits the words of the dictionary into difficulty tiers, reading the scores written by DifficultyScorer.
+     * @param dictionary WordDictionary secret words are picked from.
+     * @param path Path of the word list file, or empty for the built-in list, whose scores the build writes.
+     * @param scores Path of the score file of the word list, or empty for the word list path plus ".scores".
+     * @return WordDifficulty tiers new games can pick their secret word from.
+     * */
+    @Bean
+    public WordDifficulty wordDifficulty(WordDictionary dictionary, @Value("${hangman.dictionary.path:}") String path,
+                                         @Value("${hangman.dictionary.scores:}") String scores) throws IOException {
+        if (path.isEmpty()) return WordDifficulty.builtIn();
+        return WordDifficulty.load(Paths.get(scores.isEmpty() ? path + ".scores" : scores), dictionary);
+    }
+
+    /**
+     * Registers the WebSocket game channel once the servlet context has started.
+     * @param sessions SessionStore the channel plays games in, resolved on first use so that a lean startup does
+     *                 not wait for it.
+     * @return listener registering the channel.
+     * */
+    @Bean
+    public ServletListenerRegistrationBean<ServletContextListener> gameChannel(@Lazy SessionStore sessions) {
+        return new ServletListenerRegistrationBean<>(new GameChannel.Registrar(sessions));
+    }
+
+    /**
+     * Registers the WebSocket room channel once the servlet context has started.
+     * @param rooms Rooms the channel lets players join, resolved on first use.
+     * @return listener registering the channel.
+     * */
+    @Bean
+    public ServletListenerRegistrationBean<ServletContextListener> roomChannel(@Lazy Rooms rooms) {
+        return new ServletListenerRegistrationBean<>(new RoomChannel.Registrar(rooms));
+    }
+
+    /**
+     * Serves the pages and the files they load from memory, as prepared by the AssetPipeline build step.
+     * @param enabled Whether to serve them, or leave all static files to the default resource handling.
+     * @return registration of the StaticAssets filter for the pages and hashed files.
+     * */
+    @Bean
+    public FilterRegistrationBean<StaticAssets> staticAssets(@Value("${hangman.assets.enabled:true}") boolean enabled) throws IOException {
+        FilterRegistrationBean<StaticAssets> registration = new FilterRegistrationBean<>(StaticAssets.load());
+        registration.addUrlPatterns("*.html", AssetPipeline.ASSET_PATH + "*");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    /**
+     * Creates the admission control of the game endpoints.
+     * @param rate Requests per second admitted for each player.
+     * @param burst Requests a player who has been idle may send at once.
+     * @param addressRate Requests per second admitted for each remote address, or 0 not to limit addresses.
+     * @param addressBurst Requests an address that has been idle may send at once.
+     * @param expensiveCost Number of requests a history or word stats request counts as.
+     * @param maxExpensive Number of history and word stats requests allowed in progress at the same time, or 0 for one per CPU.
+     * @param maxPlayers Number of players, and of addresses, whose rate is tracked separately.
+     * @param sweepMillis Time between removals of the state of idle players and addresses.
+     * @return AdmissionControl filter shared by the game endpoints.
+     * */
+    @Bean
+    public AdmissionControl admissionControl(@Value("${hangman.admission.rate:20}") double rate,
+                                             @Value("${hangman.admission.burst:40}") int burst,
+                                             @Value("${hangman.admission.address-rate:0}") double addressRate,
+                                             @Value("${hangman.admission.address-burst:0}") int addressBurst,
+                                             @Value("${hangman.admission.expensive-cost:10}") int expensiveCost,
+                                             @Value("${hangman.admission.expensive-concurrency:0}") int maxExpensive,
+                                             @Value("${hangman.admission.max-players:100000}") int maxPlayers,
+                                             @Value("${hangman.admission.sweep-ms:10000}") long sweepMillis) {
+        return new AdmissionControl(rate, burst, addressRate, addressBurst, expensiveCost,
+                maxExpensive > 0 ? maxExpensive : Runtime.getRuntime().availableProcessors(), maxPlayers, sweepMillis);
+    }
+
+    /**
+     * Puts the admission control in front of the game, stats, leaderboard and room endpoints, and of the
+     * handshake of the room channel, which the servlet filters see before the upgrade.
+     * @param admission AdmissionControl filter.
+     * @param enabled Whether to apply it, or admit every request.
+     * @return registration of the AdmissionControl filter for the game endpoints.
+     * */
+    @Bean
+    public FilterRegistrationBean<AdmissionControl> admissionControlRegistration(AdmissionControl admission,
+                                                                                @Value("${hangman.admission.enabled:true}") boolean enabled) {
+        FilterRegistrationBean<AdmissionControl> registration = new FilterRegistrationBean<>(admission);
+        registration.addUrlPatterns("/newGameSession", "/reloadOrResume", "/submitGuess", "/submitGuesses", "/hint",
+                "/gamesHistory", "/gamesHistoryPage", "/gamesHistoryExport", "/stats/words", "/stats/player",
+                "/leaderboard", "/rooms", "/rooms/*", "/roomChannel/*");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    /**
+     * Puts the hand-written codec of guesses and guess responses ahead of the default JSON converter.
+     * @return WebMvcConfigurer adding the GameJson converter.
+     * */
+    @Bean
+    public WebMvcConfigurer gameJson() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.add(0, new GameJson());
+            }
+        };
+    }
+}
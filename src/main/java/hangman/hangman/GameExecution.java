@@ -0,0 +1,112 @@
+package hangman.hangman;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Runs the game endpoints in the execution mode chosen in configuration.
+ *
+ * In blocking mode, the default, an endpoint runs on the container thread that received the request, as any
+ * Spring MVC handler does, and a request holds that thread until it is answered, however long it waits for a
+ * session lock, the journal or the shared repository.
+ *
+ * In async mode the request is put into asynchronous mode with a DeferredResult and the endpoint runs on a pool
+ * of game threads, so the container thread goes back to the NIO connector at once, and requests in progress are
+ * bound by the game pool and its queue instead of the container's threads. The result is dispatched back to
+ * Spring MVC and written by the same message converters, headers and status as in blocking mode. Requests the
+ * queue has no room for are answered with 503 at once.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@Component
+public class GameExecution {
+
+    public static final String BLOCKING = "blocking";
+    public static final String ASYNC = "async";
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates the execution of the given mode.
+     * @param mode blocking or async.
+     * @param threads Number of game threads in async mode, or 0 for one per CPU.
+     * @param queue Number of requests waiting for a game thread beyond which requests are answered with 503.
+     * */
+    @Autowired
+    public GameExecution(@Value("${hangman.execution.mode:blocking}") String mode,
+                         @Value("${hangman.execution.threads:0}") int threads,
+                         @Value("${hangman.execution.queue:10000}") int queue) {
+        if (mode.equals(BLOCKING)) {
+            this.executor = null;
+        } else if (mode.equals(ASYNC)) {
+            int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            AtomicInteger count = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queue), r -> {
+                Thread thread = new Thread(r, "game-execution-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            throw new IllegalArgumentException("Unknown execution mode " + mode + ", expected " + BLOCKING + " or " + ASYNC);
+        }
+    }
+
+    /**
+     * Returns an execution running endpoints on the calling thread.
+     * @return GameExecution object in blocking mode.
+     * */
+    public static GameExecution blocking() {
+        return new GameExecution(BLOCKING, 0, 0);
+    }
+
+    /**
+     * Runs an endpoint for the request being handled by Spring MVC on the calling thread. In async mode the
+     * request is left in asynchronous mode, its result written once the endpoint completes on a game thread,
+     * and null is returned.
+     * @param endpoint Endpoint body, returning the response entity of the request.
+     * @return ResponseEntity returned by the endpoint in blocking mode, or null in async mode.
+     * */
+    public ResponseEntity<Object> run(Supplier<ResponseEntity<Object>> endpoint) {
+        if (this.executor == null) return endpoint.get();
+        ServletRequestAttributes request = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        DeferredResult<ResponseEntity<Object>> result = new DeferredResult<>();
+        try {
+            // Spring MVC resumes the handler with the model container passed here, which a response body never uses
+            WebAsyncUtils.getAsyncManager(request.getRequest()).startDeferredResultProcessing(result, new ModelAndViewContainer());
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot start asynchronous processing", e);
+        }
+        try {
+            this.executor.execute(() -> {
+                try {
+                    result.setResult(endpoint.get());
+                } catch (RuntimeException e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.setResult(new ResponseEntity<>("Too many requests in progress, try again later", HttpStatus.SERVICE_UNAVAILABLE));
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (this.executor != null) this.executor.shutdown();
+    }
+}
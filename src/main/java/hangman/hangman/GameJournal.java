@@ -0,0 +1,630 @@
+package hangman.hangman;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only journal of game state changes on local disk, replayed into the SessionStore on startup so that
+ * games survive restarts and crashes.
+ *
+ * Records are appended to a ring of 8-byte words shared by all request threads, and group-committed to the
+ * current journal segment by a background thread every flush interval, so a guess neither waits for the disk
+ * nor contends with guesses of other games for a lock. A thread claims the words of its record by advancing the
+ * tail of the ring with a CAS, copies the record in and publishes it by writing its header word last; the flusher
+ * writes published records in ring order, stopping at the first one still being copied, and clears their words
+ * for reuse. Records of one game are appended in order under its Session lock, and so are written in that order.
+ * A crash loses at most the records of the last flush interval. Should the disk fall behind until
+ * maxPendingBytes are waiting, a record waits for the flusher to take them, rather than memory running out. After a
+ * configured number of records the journal rotates to a new segment and writes a snapshot of the store on a
+ * thread of its own, so startup only replays the segments written since the last snapshot. Every record
+ * carries a CRC, and replay stops at the first torn or corrupt record of a segment.
+ *
+ * Replaying a record is idempotent, so a snapshot may include changes that are also replayed from the segment
+ * following it. A change must be applied to the store before it is appended, while the Session lock is held.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@Component
+public class GameJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(GameJournal.class);
+
+    static final byte CREATED = 1;
+    static final byte GUESS = 2;
+    static final byte FINISHED = 3;
+    static final byte ABANDONED = 4;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_WORDS = (HEADER_SIZE + 9 + 2 * (2 + 0xffff) + 4 + 8 + 7) >>> 3;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+    private static final int SNAPSHOT_MAGIC = 0x48414e34;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long flushIntervalMillis;
+    private final long snapshotEvery;
+    private final long maxPendingWords;
+    private final AtomicLongArray ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final Object flushLock = new Object();
+    private final Object drained = new Object();
+    private final LongAdder recordsSinceSnapshot = new LongAdder();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(1 << 20);
+    private long segment;
+    private FileChannel channel;
+    private SessionStore store;
+    private ScheduledExecutorService flusher;
+    private ExecutorService snapshotter;
+    private boolean snapshotting;
+
+    /**
+     * Creates a journal writing to the given directory.
+     * @param enabled false to create a journal that ignores all records.
+     * @param directory Absolute path of the directory holding the journal segments and snapshots, so that the
+     *                  games restored do not depend on the directory the server was started from.
+     * @param flushIntervalMillis Longest time a record waits in memory before it is written to disk.
+     * @param snapshotEvery Number of records after which the journal is rotated and a snapshot written.
+     * @param maxPendingBytes Size the records waiting in memory may reach before new ones wait for them to be
+     *                        written.
+     * */
+    @Autowired
+    public GameJournal(@Value("${hangman.journal.enabled:false}") boolean enabled,
+                       @Value("${hangman.journal.dir:}") String directory,
+                       @Value("${hangman.journal.flush-interval-ms:5}") long flushIntervalMillis,
+                       @Value("${hangman.journal.snapshot-every:1000000}") long snapshotEvery,
+                       @Value("${hangman.journal.max-pending-bytes:16777216}") int maxPendingBytes) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        if (enabled && !this.directory.isAbsolute()) {
+            throw new IllegalArgumentException("Expected an absolute journal directory, got '" + directory + "'");
+        }
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.snapshotEvery = snapshotEvery;
+        this.maxPendingWords = Math.max(1, maxPendingBytes >>> 3);
+        // Room for the pending records, and for a record of any size plus the padding skipping to the ring start
+        int capacity = Integer.highestOneBit((int) Math.max(this.maxPendingWords, 2 * MAX_RECORD_WORDS) - 1) << 1;
+        this.ring = enabled ? new AtomicLongArray(capacity) : null;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Creates a journal that ignores all records.
+     * @return GameJournal object writing nothing.
+     * */
+    public static GameJournal disabled() {
+        return new GameJournal(false, "", 0, 0, 0);
+    }
+
+    /**
+     * Restores the store from the latest snapshot and the journal segments written after it, then starts the
+     * background flusher. Records are appended to the last segment if it was replayed to its end, so restarts
+     * do not leave a segment behind each, and to a new segment after a torn or corrupt record. Empty segments
+     * left behind by earlier restarts are deleted.
+     * @param store SessionStore to restore and to snapshot from then on.
+     * */
+    public void open(SessionStore store) throws IOException {
+        if (!this.enabled) return;
+        this.store = store;
+        Files.createDirectories(this.directory);
+        long snapshot = latest(SNAPSHOT_PREFIX);
+        if (snapshot >= 0) readSnapshot(snapshot);
+        long lastSegment = snapshot;
+        boolean replayedToEnd = false;
+        for (long seg : list(SEGMENT_PREFIX)) {
+            if (seg < snapshot) continue;
+            replayedToEnd = replay(seg);
+            lastSegment = seg;
+        }
+        if (replayedToEnd) {
+            this.segment = lastSegment;
+            this.channel = FileChannel.open(file(SEGMENT_PREFIX, this.segment), StandardOpenOption.APPEND);
+        } else {
+            this.segment = lastSegment + 1;
+            this.channel = openSegment(this.segment);
+        }
+        for (long seg : list(SEGMENT_PREFIX)) {
+            Path path = file(SEGMENT_PREFIX, seg);
+            if (seg != this.segment && Files.size(path) == 0) Files.delete(path);
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "game-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.snapshotter = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "game-journal-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushAndSnapshot, this.flushIntervalMillis,
+                this.flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends the creation of a game.
+     * @param session Session object of the new game.
+     * @param playerId Id of the player the game belongs to.
+     * @param startedAt Time the game was started, in milliseconds since the epoch.
+     * */
+    public void created(Session session, String playerId, long startedAt) {
+        if (!this.enabled) return;
+        byte[] player = playerId.getBytes(StandardCharsets.UTF_8);
+        byte[] word = session.getSecretWord().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = begin(CREATED, session.getId(), 2 + player.length + 2 + word.length + 4 + 8);
+        buf.putShort((short) player.length).put(player);
+        buf.putShort((short) word.length).put(word);
+        buf.putInt(session.getWordId());
+        buf.putLong(startedAt);
+        append(buf);
+    }
+
+    /**
+     * Appends a guess that changed the state of a game.
+     * @param session Session object of the game.
+     * @param letter Guessed letter.
+     * */
+    public void guess(Session session, char letter) {
+        if (!this.enabled) return;
+        ByteBuffer buf = begin(GUESS, session.getId(), 2);
+        buf.putChar(letter);
+        append(buf);
+    }
+
+    /**
+     * Appends the end of a game.
+     * @param session Session object of the finished game.
+     * */
+    public void finished(Session session) {
+        if (!this.enabled) return;
+        append(begin(FINISHED, session.getId(), 0));
+    }
+
+    /**
+     * Appends the abandonment of an unfinished game, which removes it from the history.
+     * @param session Session object of the abandoned game.
+     * */
+    public void abandoned(Session session) {
+        if (!this.enabled) return;
+        append(begin(ABANDONED, session.getId(), 0));
+    }
+
+    /**
+     * Writes all buffered records to disk, waiting for them to be durable. Does nothing if none are buffered.
+     * */
+    public void flush() throws IOException {
+        if (!this.enabled) return;
+        synchronized (this.flushLock) {
+            long position = this.head;
+            long end = this.tail.get();
+            if (position == end) return;
+            while (position < end) {
+                int index = (int) (position & this.mask);
+                long header = this.ring.get(index);
+                if (header == 0) {
+                    // Claimed by a thread that has yet to copy it in, which it does without blocking
+                    Thread.yield();
+                    continue;
+                }
+                int length = (int) (header >> 32);
+                int words = length < 0 ? -length : (HEADER_SIZE + length + 7) >>> 3;
+                if (length >= 0) {
+                    if (this.writeBuffer.remaining() < words << 3) write();
+                    for (int i = 0; i < words; ++i) this.writeBuffer.putLong(this.ring.get(index + i));
+                    this.writeBuffer.position(this.writeBuffer.position() - (words << 3) + HEADER_SIZE + length);
+                }
+                for (int i = 0; i < words; ++i) this.ring.lazySet(index + i, 0);
+                position += words;
+            }
+            // Records taken no longer count towards the limit while they are written
+            this.head = position;
+            synchronized (this.drained) {
+                this.drained.notifyAll();
+            }
+            write();
+            this.channel.force(false);
+        }
+    }
+
+    /**
+     * Rotates to a new journal segment and writes a snapshot of the store as of the start of that segment.
+     * Segments and snapshots older than the new snapshot are deleted once it is durable.
+     * */
+    public void snapshot() throws IOException {
+        if (!this.enabled) return;
+        long newSegment;
+        synchronized (this.flushLock) {
+            flush();
+            this.channel.close();
+            newSegment = this.segment + 1;
+            this.channel = openSegment(newSegment);
+            this.segment = newSegment;
+            this.recordsSinceSnapshot.reset();
+        }
+        writeSnapshot(newSegment);
+        for (long seg : list(SEGMENT_PREFIX)) if (seg < newSegment) Files.deleteIfExists(file(SEGMENT_PREFIX, seg));
+        for (long snap : list(SNAPSHOT_PREFIX)) {
+            if (snap < newSegment) Files.deleteIfExists(file(SNAPSHOT_PREFIX, snap));
+        }
+    }
+
+    /**
+     * Stops the background flusher and writes the remaining records to disk.
+     * */
+    @PreDestroy
+    public void close() throws IOException {
+        if (!this.enabled || this.flusher == null) return;
+        this.flusher.shutdown();
+        this.snapshotter.shutdown();
+        try {
+            this.flusher.awaitTermination(10, TimeUnit.SECONDS);
+            this.snapshotter.awaitTermination(60, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        this.channel.close();
+        this.flusher = null;
+    }
+
+    /**
+     * Writes the buffered records and, when due, hands a snapshot to the snapshotter, so that records keep being
+     * written while a snapshot waits for the locks of games in progress.
+     * */
+    private void flushAndSnapshot() {
+        try {
+            flush();
+            synchronized (this) {
+                if (this.snapshotting || this.recordsSinceSnapshot.sum() < this.snapshotEvery) return;
+                this.snapshotting = true;
+            }
+            this.snapshotter.execute(() -> {
+                try {
+                    snapshot();
+                } catch (IOException e) {
+                    log.error("Failed to write game snapshot in " + this.directory, e);
+                } finally {
+                    synchronized (this) {
+                        this.snapshotting = false;
+                    }
+                }
+            });
+        } catch (IOException e) {
+            log.error("Failed to write game journal in " + this.directory, e);
+        }
+    }
+
+    /**
+     * Starts a record in the scratch buffer of the calling thread and writes its type and game id, leaving room
+     * for the header.
+     * @param type Record type.
+     * @param gameId Id of the game the record changes.
+     * @param payloadSize Size of the record payload in bytes.
+     * @return ByteBuffer positioned at the start of the payload.
+     * */
+    private static ByteBuffer begin(byte type, long gameId, int payloadSize) {
+        Scratch scratch = SCRATCH.get();
+        int size = (HEADER_SIZE + 9 + payloadSize + 7) & ~7;
+        if (scratch.buf.capacity() < size) scratch.buf = ByteBuffer.allocate(size);
+        ByteBuffer buf = scratch.buf;
+        buf.clear();
+        buf.position(HEADER_SIZE);
+        buf.put(type).putLong(gameId);
+        return buf;
+    }
+
+    /**
+     * Fills in the header of the record whose payload has just been written to the scratch buffer, copies it
+     * into the ring and counts it towards the next snapshot.
+     * */
+    private void append(ByteBuffer buf) {
+        int length = buf.position() - HEADER_SIZE;
+        CRC32 crc = SCRATCH.get().crc;
+        crc.reset();
+        crc.update(buf.array(), HEADER_SIZE, length);
+        long header = ((long) length << 32) | (crc.getValue() & 0xffffffffL);
+        int words = (HEADER_SIZE + length + 7) >>> 3;
+        int index = (int) (claim(words) & this.mask);
+        for (int i = 1; i < words; ++i) this.ring.lazySet(index + i, buf.getLong(i << 3));
+        this.ring.lazySet(index, header);
+        this.recordsSinceSnapshot.increment();
+    }
+
+    /**
+     * Claims the words of a record at the tail of the ring. A record never wraps around the end of the ring:
+     * when it would, the words up to the end are claimed with it and marked as padding, and the record starts
+     * at the beginning. While maxPendingBytes are already waiting, waits for the flusher to take them first.
+     * @param words Number of words of the record.
+     * @return position in the ring of the first word of the record.
+     * */
+    private long claim(int words) {
+        while (true) {
+            long position = this.tail.get();
+            int index = (int) (position & this.mask);
+            int padding = index + words > this.mask + 1 ? this.mask + 1 - index : 0;
+            if (!hasRoom(position, padding + words)) {
+                awaitRoom(padding + words);
+            } else if (this.tail.compareAndSet(position, position + padding + words)) {
+                if (padding > 0) this.ring.lazySet(index, (long) -padding << 32);
+                return position + padding;
+            }
+        }
+    }
+
+    private boolean hasRoom(long position, int words) {
+        long waiting = position - this.head;
+        return waiting == 0 || waiting + words <= this.maxPendingWords;
+    }
+
+    private void awaitRoom(int words) {
+        boolean interrupted = false;
+        synchronized (this.drained) {
+            while (!hasRoom(this.tail.get(), words)) {
+                try {
+                    this.drained.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Writes the records gathered in the write buffer to the current segment. Caller must hold the flush lock.
+     * */
+    private void write() throws IOException {
+        this.writeBuffer.flip();
+        while (this.writeBuffer.hasRemaining()) this.channel.write(this.writeBuffer);
+        this.writeBuffer.clear();
+    }
+
+    /**
+     * Replays one journal segment into the store, stopping at the first torn or corrupt record, and counts its
+     * records towards the next snapshot.
+     * @return true if the whole segment was replayed, false if it ended with a torn or corrupt record.
+     * */
+    private boolean replay(long seg) throws IOException {
+        Path path = file(SEGMENT_PREFIX, seg);
+        long records = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+            CRC32 check = new CRC32();
+            while (in.read(buf) > 0 || buf.position() > 0) {
+                buf.flip();
+                while (buf.remaining() >= HEADER_SIZE) {
+                    int length = buf.getInt(buf.position());
+                    if (length < 9 || length > buf.capacity() - HEADER_SIZE) {
+                        log.warn("Corrupt record in " + path + " after " + records + " records, ignoring the rest");
+                        this.recordsSinceSnapshot.add(records);
+                        return false;
+                    }
+                    if (buf.remaining() < HEADER_SIZE + length) break;
+                    int crcValue = buf.getInt(buf.position() + 4);
+                    ByteBuffer body = buf.duplicate();
+                    body.position(buf.position() + HEADER_SIZE);
+                    body.limit(buf.position() + HEADER_SIZE + length);
+                    check.reset();
+                    check.update(body.duplicate());
+                    if ((int) check.getValue() != crcValue) {
+                        log.warn("Corrupt record in " + path + " after " + records + " records, ignoring the rest");
+                        this.recordsSinceSnapshot.add(records);
+                        return false;
+                    }
+                    apply(body);
+                    buf.position(buf.position() + HEADER_SIZE + length);
+                    ++records;
+                }
+                boolean atEnd = in.position() == in.size();
+                buf.compact();
+                if (atEnd) {
+                    if (buf.position() > 0) {
+                        log.warn("Torn record at the end of " + path + " after " + records + " records, ignoring it");
+                    }
+                    this.recordsSinceSnapshot.add(records);
+                    return buf.position() == 0;
+                }
+            }
+        }
+        this.recordsSinceSnapshot.add(records);
+        return true;
+    }
+
+    /**
+     * Applies one record body to the store.
+     * */
+    private void apply(ByteBuffer body) {
+        byte type = body.get();
+        long gameId = body.getLong();
+        switch (type) {
+            case CREATED:
+                String playerId = readString(body);
+                String word = readString(body);
+                int wordId = body.getInt();
+                long startedAt = body.getLong();
+                this.store.restoreGame(gameId, playerId, this.store.restoredSession(word, wordId), startedAt);
+                break;
+            case GUESS:
+                this.store.restoreGuess(gameId, body.getChar());
+                break;
+            case FINISHED:
+                this.store.restoreFinished(gameId);
+                break;
+            case ABANDONED:
+                this.store.restoreAbandoned(gameId);
+                break;
+            default:
+                log.warn("Unknown journal record type " + type + ", skipping it");
+        }
+    }
+
+    private static String readString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getShort() & 0xffff];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a snapshot of every stored game, every player's current game and the leaderboard, first to a
+     * temporary file which is renamed once durable so that a crash never leaves a partial snapshot behind.
+     * */
+    private void writeSnapshot(long seg) throws IOException {
+        Path tmp = this.directory.resolve(SNAPSHOT_PREFIX + seg + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            for (Session session : this.store.liveGames()) {
+                String word;
+                int wordId;
+                char[] guesses;
+                synchronized (session) {
+                    word = session.getSecretWord();
+                    wordId = session.getWordId();
+                    guesses = session.getGuessHistory();
+                }
+                out.writeBoolean(true);
+                out.writeLong(session.getId());
+                out.writeUTF(word);
+                out.writeInt(wordId);
+                out.writeLong(this.store.startedAt(session.getId()));
+                out.writeShort(guesses.length);
+                for (char letter : guesses) out.writeChar(letter);
+            }
+            out.writeBoolean(false);
+            long gameIdLimit = this.store.gameIdLimit();
+            for (long gameId = 0; gameId < gameIdLimit; ++gameId) {
+                long record = this.store.record(gameId);
+                if (record == 0) continue;
+                out.writeBoolean(true);
+                out.writeLong(gameId);
+                out.writeLong(record);
+                out.writeLong(this.store.startedAt(gameId));
+                out.writeUTF(this.store.recordWord(record));
+            }
+            out.writeBoolean(false);
+            for (Map.Entry<String, Session> entry : this.store.currentGames().entrySet()) {
+                out.writeBoolean(true);
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().getId());
+            }
+            out.writeBoolean(false);
+            for (Leaderboard.Entry player : this.store.leaderboard().entries()) {
+                out.writeBoolean(true);
+                out.writeUTF(player.playerId);
+                out.writeLong(player.lastGameId);
+                out.writeInt(player.gamesPlayed);
+                out.writeInt(player.gamesWon);
+                out.writeInt(player.currentStreak);
+                out.writeInt(player.bestStreak);
+                out.writeLong(player.wrongGuesses);
+            }
+            out.writeBoolean(false);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, file(SNAPSHOT_PREFIX, seg), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void readSnapshot(long seg) throws IOException {
+        try (InputStream file = Files.newInputStream(file(SNAPSHOT_PREFIX, seg));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a game snapshot: " + file(SNAPSHOT_PREFIX, seg));
+            }
+            while (in.readBoolean()) {
+                long gameId = in.readLong();
+                String word = in.readUTF();
+                int wordId = in.readInt();
+                long startedAt = in.readLong();
+                Session session = this.store.restoredSession(word, wordId);
+                int guesses = in.readUnsignedShort();
+                for (int i = 0; i < guesses; ++i) session.guess(in.readChar());
+                this.store.restoreGame(gameId, null, session, startedAt);
+            }
+            while (in.readBoolean()) {
+                long gameId = in.readLong();
+                long record = in.readLong();
+                long startedAt = in.readLong();
+                this.store.restoreRecord(gameId, record, in.readUTF(), startedAt);
+            }
+            while (in.readBoolean()) {
+                String playerId = in.readUTF();
+                this.store.restoreCurrent(playerId, in.readLong());
+            }
+            while (in.readBoolean()) {
+                this.store.leaderboard().restore(in.readUTF(), in.readLong(), in.readInt(), in.readInt(), in.readInt(),
+                        in.readInt(), in.readLong());
+            }
+        }
+    }
+
+    private FileChannel openSegment(long seg) throws IOException {
+        return FileChannel.open(file(SEGMENT_PREFIX, seg), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private Path file(String prefix, long seg) {
+        return this.directory.resolve(prefix + seg);
+    }
+
+    private long latest(String prefix) throws IOException {
+        ArrayList<Long> all = list(prefix);
+        return all.isEmpty() ? -1 : all.get(all.size() - 1);
+    }
+
+    /**
+     * Lists the sequence numbers of the files with the given prefix, in ascending order.
+     * */
+    private ArrayList<Long> list(String prefix) throws IOException {
+        ArrayList<Long> all = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, prefix + "*")) {
+            for (Path path : files) {
+                String name = path.getFileName().toString().substring(prefix.length());
+                if (name.matches("[0-9]+")) all.add(Long.parseLong(name));
+            }
+        }
+        Collections.sort(all);
+        return all;
+    }
+
+    /**
+     * Buffer and CRC a request thread encodes its records with before copying them into the ring.
+     * */
+    private static final class Scratch {
+        final CRC32 crc = new CRC32();
+        ByteBuffer buf = ByteBuffer.allocate(256);
+    }
+}
@@ -0,0 +1,387 @@
+package hangman.hangman;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * JSON codec of the messages exchanged on every guess: Guess bodies, single or in arrays, are read and Response
+ * and BatchResponse bodies written by hand, without building a JSON tree or reflecting over the classes. Used
+ * by Spring as the message converter of these classes, ahead of Jackson, so the guess endpoints have a single
+ * JSON path.
+ *
+ * Request bodies are read into a per-thread buffer and parsed in place, allocating nothing but the Guess
+ * objects themselves. Responses are encoded into a per-thread buffer and written to the response stream in
+ * one call. Output is plain ASCII, with any other character escaped, and has the same fields as Jackson writes.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class GameJson extends AbstractHttpMessageConverter<Object> {
+
+    static final int MAX_BODY = 4096;
+
+    private static final byte[] VALUE = {'v', 'a', 'l', 'u', 'e'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final ThreadLocal<byte[]> INPUT = ThreadLocal.withInitial(() -> new byte[MAX_BODY + 1]);
+    private static final ThreadLocal<byte[]> OUTPUT = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    public GameJson() {
+        super(MediaType.APPLICATION_JSON, MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == Guess.class || clazz == Guess[].class || clazz == Response.class || clazz == BatchResponse.class;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return true;
+    }
+
+    @Override
+    protected MediaType getDefaultContentType(Object o) {
+        return MediaType.APPLICATION_JSON_UTF8;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        byte[] body = INPUT.get();
+        int length = 0;
+        InputStream in = inputMessage.getBody();
+        for (int n; length <= MAX_BODY && (n = in.read(body, length, body.length - length)) > 0; ) length += n;
+        if (length > MAX_BODY) throw new HttpMessageNotReadableException("Body longer than " + MAX_BODY + " bytes", inputMessage);
+        try {
+            if (clazz == Guess.class) return decodeGuess(body, 0, length);
+            if (clazz == Guess[].class) return decodeGuesses(body, 0, length);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+        throw new HttpMessageNotReadableException("Cannot read " + clazz.getName(), inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object o, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream out = outputMessage.getBody();
+        int length = encodeBuffered(o);
+        out.write(OUTPUT.get(), 0, length);
+    }
+
+    /**
+     * Encodes a Response or BatchResponse object into a new array, for bodies that are kept and sent again.
+     * @param o Response or BatchResponse object.
+     * @return byte array holding exactly the JSON text.
+     * */
+    static byte[] encode(Object o) {
+        int length = encodeBuffered(o);
+        return Arrays.copyOf(OUTPUT.get(), length);
+    }
+
+    /**
+     * Encodes a Response or BatchResponse object into the per-thread buffer, growing it if it is too small.
+     * @param o Response or BatchResponse object.
+     * @return int number of bytes at the start of the buffer holding the JSON text.
+     * */
+    private static int encodeBuffered(Object o) {
+        byte[] buffer = OUTPUT.get();
+        int length = o instanceof Response ? encodeResponse((Response) o, buffer) : encodeBatch((BatchResponse) o, buffer);
+        if (length < 0) {
+            buffer = new byte[-length];
+            OUTPUT.set(buffer);
+            length = o instanceof Response ? encodeResponse((Response) o, buffer) : encodeBatch((BatchResponse) o, buffer);
+        }
+        return length;
+    }
+
+    /**
+     * Parses a Guess object, such as {"value":"e"}. Other fields are skipped, and a missing value reads as '\0'.
+     * @param b Buffer holding the JSON text.
+     * @param offset Index of the first byte of the text.
+     * @param end Index after the last byte of the text.
+     * @return Guess object holding the letter.
+     * @throws IllegalArgumentException if the text is not a JSON object, or the value is not a single character.
+     * */
+    public static Guess decodeGuess(byte[] b, int offset, int end) {
+        long parsed = parseGuess(b, skipSpace(b, offset, end), end);
+        if (skipSpace(b, (int) (parsed >>> 32), end) != end) throw malformed(b, (int) (parsed >>> 32));
+        return new Guess((char) parsed);
+    }
+
+    /**
+     * Parses an array of Guess objects, such as [{"value":"e"},{"value":"t"}].
+     * @param b Buffer holding the JSON text.
+     * @param offset Index of the first byte of the text.
+     * @param end Index after the last byte of the text.
+     * @return Guess array in the order of the text.
+     * @throws IllegalArgumentException if the text is not a JSON array of Guess objects.
+     * */
+    public static Guess[] decodeGuesses(byte[] b, int offset, int end) {
+        int i = skipSpace(b, offset, end);
+        if (i == end || b[i] != '[') throw malformed(b, i);
+        int count = 0;
+        for (int j = i + 1; j < end; ++j) if (b[j] == '{') ++count;
+        Guess[] guesses = new Guess[count];
+        int n = 0;
+        i = skipSpace(b, i + 1, end);
+        if (i < end && b[i] == ']') {
+            ++i;
+        } else {
+            while (true) {
+                long parsed = parseGuess(b, i, end);
+                guesses[n++] = new Guess((char) parsed);
+                i = skipSpace(b, (int) (parsed >>> 32), end);
+                if (i < end && b[i] == ',') {
+                    i = skipSpace(b, i + 1, end);
+                } else if (i < end && b[i] == ']') {
+                    ++i;
+                    break;
+                } else {
+                    throw malformed(b, i);
+                }
+            }
+        }
+        if (skipSpace(b, i, end) != end) throw malformed(b, i);
+        return n == count ? guesses : Arrays.copyOf(guesses, n);
+    }
+
+    /**
+     * Encodes a Response object.
+     * @param response Response object to encode.
+     * @param b Buffer to write the JSON text to, from index 0.
+     * @return int length of the text, or minus the buffer size needed if the buffer is too small.
+     * */
+    public static int encodeResponse(Response response, byte[] b) {
+        int needed = responseSize(response);
+        if (needed > b.length) return -needed;
+        return writeResponse(response, b, 0);
+    }
+
+    /**
+     * Encodes a BatchResponse object.
+     * @param batch BatchResponse object to encode.
+     * @param b Buffer to write the JSON text to, from index 0.
+     * @return int length of the text, or minus the buffer size needed if the buffer is too small.
+     * */
+    public static int encodeBatch(BatchResponse batch, byte[] b) {
+        String[] outcomes = batch.getOutcomes();
+        int needed = 32 + (batch.getResponse() == null ? 4 : responseSize(batch.getResponse()));
+        if (outcomes != null) for (String outcome : outcomes) needed += 3 + maxStringSize(outcome);
+        if (needed > b.length) return -needed;
+        int i = ascii(b, 0, "{\"response\":");
+        i = batch.getResponse() == null ? ascii(b, i, "null") : writeResponse(batch.getResponse(), b, i);
+        i = ascii(b, i, ",\"outcomes\":");
+        if (outcomes == null) {
+            i = ascii(b, i, "null");
+        } else {
+            b[i++] = '[';
+            for (int k = 0; k < outcomes.length; ++k) {
+                if (k > 0) b[i++] = ',';
+                i = string(b, i, outcomes[k]);
+            }
+            b[i++] = ']';
+        }
+        b[i++] = '}';
+        return i;
+    }
+
+    private static int responseSize(Response response) {
+        return 96 + maxStringSize(response.getGuessProgress()) + maxStringSize(response.getUserMessage())
+                + maxStringSize(response.getAttemptedString());
+    }
+
+    private static int writeResponse(Response response, byte[] b, int i) {
+        i = ascii(b, i, "{\"guessProgress\":");
+        i = string(b, i, response.getGuessProgress());
+        i = ascii(b, i, ",\"userMessage\":");
+        i = string(b, i, response.getUserMessage());
+        i = ascii(b, i, ",\"attemptedString\":");
+        i = string(b, i, response.getAttemptedString());
+        i = ascii(b, i, ",\"wrongGuessCount\":");
+        i = number(b, i, response.getWrongGuessCount());
+        b[i++] = '}';
+        return i;
+    }
+
+    /**
+     * Parses one Guess object starting at a given index.
+     * @return long with the index after the object in the upper 32 bits and the letter in the lower 16 bits.
+     * */
+    private static long parseGuess(byte[] b, int i, int end) {
+        if (i == end || b[i] != '{') throw malformed(b, i);
+        char value = 0;
+        i = skipSpace(b, i + 1, end);
+        if (i < end && b[i] == '}') return (long) (i + 1) << 32;
+        while (true) {
+            if (i == end || b[i] != '"') throw malformed(b, i);
+            int keyStart = i + 1;
+            i = skipString(b, i, end);
+            boolean isValue = i - 1 - keyStart == VALUE.length && regionEquals(b, keyStart, VALUE);
+            i = skipSpace(b, i, end);
+            if (i == end || b[i] != ':') throw malformed(b, i);
+            i = skipSpace(b, i + 1, end);
+            if (isValue) {
+                long letter = parseChar(b, i, end);
+                value = (char) letter;
+                i = (int) (letter >>> 32);
+            } else {
+                i = skipValue(b, i, end);
+            }
+            i = skipSpace(b, i, end);
+            if (i < end && b[i] == ',') {
+                i = skipSpace(b, i + 1, end);
+            } else if (i < end && b[i] == '}') {
+                return (long) (i + 1) << 32 | value;
+            } else {
+                throw malformed(b, i);
+            }
+        }
+    }
+
+    /**
+     * Parses a JSON string of one character, or null, starting at a given index.
+     * @return long with the index after the string in the upper 32 bits and the character in the lower 16 bits.
+     * */
+    private static long parseChar(byte[] b, int i, int end) {
+        if (i + 4 <= end && b[i] == 'n' && b[i + 1] == 'u' && b[i + 2] == 'l' && b[i + 3] == 'l') return (long) (i + 4) << 32;
+        if (i == end || b[i] != '"') throw malformed(b, i);
+        ++i;
+        if (i >= end) throw malformed(b, i);
+        int c = b[i] & 0xff;
+        if (c == '\\') {
+            if (i + 1 >= end) throw malformed(b, i);
+            switch (b[i + 1]) {
+                case '"': c = '"'; i += 2; break;
+                case '\\': c = '\\'; i += 2; break;
+                case '/': c = '/'; i += 2; break;
+                case 'b': c = '\b'; i += 2; break;
+                case 'f': c = '\f'; i += 2; break;
+                case 'n': c = '\n'; i += 2; break;
+                case 'r': c = '\r'; i += 2; break;
+                case 't': c = '\t'; i += 2; break;
+                case 'u':
+                    if (i + 6 > end) throw malformed(b, i);
+                    c = 0;
+                    for (int k = i + 2; k < i + 6; ++k) c = c << 4 | hexDigit(b, k);
+                    i += 6;
+                    break;
+                default:
+                    throw malformed(b, i);
+            }
+        } else if (c < 0x80) {
+            if (c == '"' || c < 0x20) throw new IllegalArgumentException("Expected a single character at index " + i);
+            ++i;
+        } else if ((c & 0xe0) == 0xc0 && i + 2 <= end) {
+            c = (c & 0x1f) << 6 | (b[i + 1] & 0x3f);
+            i += 2;
+        } else if ((c & 0xf0) == 0xe0 && i + 3 <= end) {
+            c = (c & 0x0f) << 12 | (b[i + 1] & 0x3f) << 6 | (b[i + 2] & 0x3f);
+            i += 3;
+        } else {
+            throw new IllegalArgumentException("Expected a single character at index " + i);
+        }
+        if (i >= end || b[i] != '"') throw new IllegalArgumentException("Expected a single character at index " + i);
+        return (long) (i + 1) << 32 | c;
+    }
+
+    private static int hexDigit(byte[] b, int i) {
+        int c = b[i];
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        throw malformed(b, i);
+    }
+
+    /**
+     * Skips a string, number, boolean or null. Objects and arrays are not expected in a Guess.
+     * @return int index after the value.
+     * */
+    private static int skipValue(byte[] b, int i, int end) {
+        if (i < end && b[i] == '"') return skipString(b, i, end);
+        int start = i;
+        while (i < end && b[i] != ',' && b[i] != '}' && b[i] != ' ' && b[i] != '\t' && b[i] != '\n' && b[i] != '\r') {
+            if (b[i] == '{' || b[i] == '[' || b[i] == '"') throw malformed(b, i);
+            ++i;
+        }
+        if (i == start) throw malformed(b, i);
+        return i;
+    }
+
+    /**
+     * Skips a string starting with the quote at a given index.
+     * @return int index after the closing quote.
+     * */
+    private static int skipString(byte[] b, int i, int end) {
+        for (++i; i < end; ++i) {
+            if (b[i] == '\\') {
+                ++i;
+            } else if (b[i] == '"') {
+                return i + 1;
+            }
+        }
+        throw malformed(b, i);
+    }
+
+    private static int skipSpace(byte[] b, int i, int end) {
+        while (i < end && (b[i] == ' ' || b[i] == '\t' || b[i] == '\n' || b[i] == '\r')) ++i;
+        return i;
+    }
+
+    private static boolean regionEquals(byte[] b, int i, byte[] expected) {
+        for (int k = 0; k < expected.length; ++k) if (b[i + k] != expected[k]) return false;
+        return true;
+    }
+
+    private static IllegalArgumentException malformed(byte[] b, int i) {
+        return new IllegalArgumentException("Malformed guess JSON at index " + i);
+    }
+
+    private static int maxStringSize(String s) {
+        return s == null ? 4 : 2 + 6 * s.length();
+    }
+
+    private static int ascii(byte[] b, int i, String s) {
+        for (int k = 0; k < s.length(); ++k) b[i++] = (byte) s.charAt(k);
+        return i;
+    }
+
+    private static int string(byte[] b, int i, String s) {
+        if (s == null) return ascii(b, i, "null");
+        b[i++] = '"';
+        for (int k = 0; k < s.length(); ++k) {
+            char c = s.charAt(k);
+            if (c == '"' || c == '\\') {
+                b[i++] = '\\';
+                b[i++] = (byte) c;
+            } else if (c >= 0x20 && c < 0x7f) {
+                b[i++] = (byte) c;
+            } else {
+                b[i++] = '\\';
+                b[i++] = 'u';
+                b[i++] = HEX[c >>> 12];
+                b[i++] = HEX[(c >>> 8) & 0xf];
+                b[i++] = HEX[(c >>> 4) & 0xf];
+                b[i++] = HEX[c & 0xf];
+            }
+        }
+        b[i++] = '"';
+        return i;
+    }
+
+    private static int number(byte[] b, int i, int n) {
+        if (n < 0) {
+            if (n == Integer.MIN_VALUE) return ascii(b, i, "-2147483648");
+            b[i++] = '-';
+            n = -n;
+        }
+        int digits = 1;
+        for (int m = n; m >= 10; m /= 10) ++digits;
+        for (int k = i + digits - 1; k >= i; --k, n /= 10) b[k] = (byte) ('0' + n % 10);
+        return i + digits;
+    }
+}
@@ -0,0 +1,176 @@
+package hangman.hangman;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of the game endpoints and the game logic, exported in the Prometheus text format.
+ *
+ * Every endpoint has a LatencyHistogram, from which its request count and latency quantiles are read. The
+ * outcome of every guess a player submits is counted by the SessionStore the metrics are created for; guesses
+ * replayed when games are restored or caught up with another node are not. Gauges of
+ * live sessions and history size are read from the SessionStore when metrics are scraped, those of the
+ * multiplayer rooms from Rooms, and the requests turned away from AdmissionControl.
+ *
+ * Recording takes neither locks nor allocations: endpoints and outcomes are array indexes, and durations and
+ * counts go to preallocated atomic counters. All formatting happens when metrics are scraped.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@Component
+public class GameMetrics {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    public static final int NEW_GAME_SESSION = 0;
+    public static final int RELOAD_OR_RESUME = 1;
+    public static final int GAMES_HISTORY = 2;
+    public static final int SUBMIT_GUESS = 3;
+    public static final int SUBMIT_GUESSES = 4;
+
+    public static final int HIT = 0;
+    public static final int MISS = 1;
+    public static final int REPEAT = 2;
+    public static final int FINISHED = 3;
+
+    private static final String[] ENDPOINTS = {"newGameSession", "reloadOrResume", "gamesHistory", "submitGuess", "submitGuesses"};
+    private static final String[] OUTCOMES = {"hit", "miss", "repeat", "finished"};
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[ENDPOINTS.length];
+    private final LongAdder[] guessOutcomes = new LongAdder[OUTCOMES.length];
+    private final SessionStore sessions;
+    private Rooms rooms;
+    private AdmissionControl admission;
+
+    /**
+     * Creates the metrics of the given store, which reports the outcomes of guesses to them from then on.
+     * @param sessions SessionStore to read the gauges from.
+     * */
+    @Autowired
+    public GameMetrics(SessionStore sessions) {
+        this.sessions = sessions;
+        for (int i = 0; i < this.latencies.length; ++i) this.latencies[i] = new LatencyHistogram();
+        for (int i = 0; i < this.guessOutcomes.length; ++i) this.guessOutcomes[i] = new LongAdder();
+        sessions.setMetrics(this);
+    }
+
+    /**
+     * Sets the rooms to read the room gauges and broadcast latency from.
+     * @param rooms Rooms registry, absent when the metrics are created outside the application context.
+     * */
+    @Autowired(required = false)
+    public void setRooms(Rooms rooms) {
+        this.rooms = rooms;
+    }
+
+    /**
+     * Sets the admission control to read the rejection counts and tracked players from.
+     * @param admission AdmissionControl of the game endpoints, absent when the metrics are created outside the
+     *                  application context.
+     * */
+    @Autowired(required = false)
+    public void setAdmissionControl(AdmissionControl admission) {
+        this.admission = admission;
+    }
+
+    /**
+     * Records a request served by an endpoint.
+     * @param endpoint One of the endpoint constants, such as SUBMIT_GUESS.
+     * @param startNanos System.nanoTime() when the request reached the endpoint.
+     * */
+    public void requestServed(int endpoint, long startNanos) {
+        this.latencies[endpoint].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Counts the outcome of a guess.
+     * @param outcome One of the outcome constants, such as HIT.
+     * */
+    public void guessResolved(int outcome) {
+        this.guessOutcomes[outcome].increment();
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format.
+     * @return String with one line per sample.
+     * */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("# HELP hangman_requests_total Requests served by each game endpoint.\n");
+        sb.append("# TYPE hangman_requests_total counter\n");
+        for (int i = 0; i < ENDPOINTS.length; ++i) {
+            sample(sb, "hangman_requests_total", "endpoint", ENDPOINTS[i], this.latencies[i].count());
+        }
+        sb.append("# HELP hangman_request_duration_seconds Time from a request reaching a game endpoint to its response being ready.\n");
+        sb.append("# TYPE hangman_request_duration_seconds summary\n");
+        for (int i = 0; i < ENDPOINTS.length; ++i) {
+            LatencyHistogram latency = this.latencies[i];
+            long[] quantiles = latency.quantiles(QUANTILES);
+            for (int q = 0; q < QUANTILES.length; ++q) {
+                sb.append("hangman_request_duration_seconds{endpoint=\"").append(ENDPOINTS[i])
+                        .append("\",quantile=\"").append(QUANTILES[q]).append("\"} ")
+                        .append(seconds(quantiles[q])).append('\n');
+            }
+            sb.append("hangman_request_duration_seconds_sum{endpoint=\"").append(ENDPOINTS[i]).append("\"} ")
+                    .append(seconds(latency.sum())).append('\n');
+            sample(sb, "hangman_request_duration_seconds_count", "endpoint", ENDPOINTS[i], latency.count());
+        }
+        sb.append("# HELP hangman_guess_outcomes_total Guesses resolved by the game logic, by outcome.\n");
+        sb.append("# TYPE hangman_guess_outcomes_total counter\n");
+        for (int i = 0; i < OUTCOMES.length; ++i) {
+            sample(sb, "hangman_guess_outcomes_total", "outcome", OUTCOMES[i], this.guessOutcomes[i].sum());
+        }
+        sb.append("# HELP hangman_live_sessions Games held in memory as sessions, ongoing or current for their player.\n");
+        sb.append("# TYPE hangman_live_sessions gauge\n");
+        sb.append("hangman_live_sessions ").append(this.sessions.liveGameCount()).append('\n');
+        sb.append("# HELP hangman_history_games Games stored in the history, sessions and compacted records alike.\n");
+        sb.append("# TYPE hangman_history_games gauge\n");
+        sb.append("hangman_history_games ").append(this.sessions.gameIdLimit()).append('\n');
+        if (this.rooms != null) scrapeRooms(sb, this.rooms);
+        if (this.admission != null) scrapeAdmission(sb, this.admission);
+        return sb.toString();
+    }
+
+    private static void scrapeAdmission(StringBuilder sb, AdmissionControl admission) {
+        sb.append("# HELP hangman_admission_rejected_total Requests to the game endpoints answered with 429, by reason.\n");
+        sb.append("# TYPE hangman_admission_rejected_total counter\n");
+        for (String reason : new String[] {AdmissionControl.RATE, AdmissionControl.CONCURRENCY}) {
+            sample(sb, "hangman_admission_rejected_total", "reason", reason, admission.rejections(reason));
+        }
+        sb.append("# HELP hangman_admission_players Players whose request rate is tracked.\n");
+        sb.append("# TYPE hangman_admission_players gauge\n");
+        sb.append("hangman_admission_players ").append(admission.playerCount()).append('\n');
+        sb.append("# HELP hangman_admission_addresses Remote addresses whose request rate is tracked.\n");
+        sb.append("# TYPE hangman_admission_addresses gauge\n");
+        sb.append("hangman_admission_addresses ").append(admission.addressCount()).append('\n');
+    }
+
+    private static void scrapeRooms(StringBuilder sb, Rooms rooms) {
+        sb.append("# HELP hangman_rooms Multiplayer rooms with participants or waiting for their first one.\n");
+        sb.append("# TYPE hangman_rooms gauge\n");
+        sb.append("hangman_rooms ").append(rooms.size()).append('\n');
+        sb.append("# HELP hangman_room_guesses_total Guesses received by the rooms, applied or not.\n");
+        sb.append("# TYPE hangman_room_guesses_total counter\n");
+        sb.append("hangman_room_guesses_total ").append(rooms.guessCount()).append('\n');
+        LatencyHistogram latency = rooms.broadcastLatency();
+        long[] quantiles = latency.quantiles(QUANTILES);
+        sb.append("# HELP hangman_room_broadcast_seconds Time from a guess being applied in a room to its frame being handed to every participant.\n");
+        sb.append("# TYPE hangman_room_broadcast_seconds summary\n");
+        for (int q = 0; q < QUANTILES.length; ++q) {
+            sb.append("hangman_room_broadcast_seconds{quantile=\"").append(QUANTILES[q]).append("\"} ")
+                    .append(seconds(quantiles[q])).append('\n');
+        }
+        sb.append("hangman_room_broadcast_seconds_sum ").append(seconds(latency.sum())).append('\n');
+        sb.append("hangman_room_broadcast_seconds_count ").append(latency.count()).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String label, String value, long sample) {
+        sb.append(name).append('{').append(label).append("=\"").append(value).append("\"} ").append(sample).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+}
@@ -0,0 +1,140 @@
+package hangman.hangman;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregate statistics of the games played on this node, updated by the SessionStore as games start, finish
+ * and are abandoned, so reading them never walks the history.
+ *
+ * Every counter is a LongAdder, which spreads concurrent increments over separate cells instead of having all
+ * request threads contend on one value. Counters are read one by one, so totals read while games are being
+ * played may be off by the games that changed in between. The counters of the secret words are kept in order of
+ * the words, so that they can be read a page at a time.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class GameStats {
+
+    private static final int MAX_WRONG_GUESS_COUNT = 26;
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder won = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder[] wrongGuessCounts = new LongAdder[MAX_WRONG_GUESS_COUNT + 1];
+    private final ConcurrentSkipListMap<String, WordCounters> words = new ConcurrentSkipListMap<>();
+
+    public GameStats() {
+        for (int i = 0; i < this.wrongGuessCounts.length; ++i) this.wrongGuessCounts[i] = new LongAdder();
+    }
+
+    /**
+     * Counts a game that has started.
+     * */
+    void gameStarted() {
+        this.started.increment();
+    }
+
+    /**
+     * Counts a game that has finished.
+     * @param secretWord Secret word of the game.
+     * @param wrongGuessCount Number of wrong guesses made in the game.
+     * @param lost Whether the game was lost.
+     * */
+    void gameFinished(String secretWord, int wrongGuessCount, boolean lost) {
+        (lost ? this.lost : this.won).increment();
+        this.wrongGuessCounts[Math.min(wrongGuessCount, MAX_WRONG_GUESS_COUNT)].increment();
+        WordCounters counters = this.words.get(secretWord);
+        if (counters == null) counters = this.words.computeIfAbsent(secretWord, word -> new WordCounters());
+        counters.played.increment();
+        if (!lost) counters.won.increment();
+    }
+
+    /**
+     * Counts a game that was abandoned before it finished.
+     * */
+    void gameAbandoned() {
+        this.abandoned.increment();
+    }
+
+    /**
+     * Reads the aggregate counters. Takes the same time however many games have been played.
+     * @return StatsResponse object with the game counts and the histogram of wrong guess counts.
+     * */
+    public StatsResponse summary() {
+        StatsResponse stats = new StatsResponse();
+        long won = this.won.sum();
+        long lost = this.lost.sum();
+        long abandoned = this.abandoned.sum();
+        long started = this.started.sum();
+        stats.setGamesStarted(started);
+        stats.setGamesWon(won);
+        stats.setGamesLost(lost);
+        stats.setGamesAbandoned(abandoned);
+        stats.setGamesOngoing(Math.max(0, started - won - lost - abandoned));
+        stats.setWinRate(won + lost == 0 ? 0 : (double) won / (won + lost));
+        long[] histogram = new long[this.wrongGuessCounts.length];
+        for (int i = 0; i < histogram.length; ++i) histogram[i] = this.wrongGuessCounts[i].sum();
+        int last = histogram.length;
+        while (last > 0 && histogram[last - 1] == 0) --last;
+        long[] trimmed = new long[last];
+        System.arraycopy(histogram, 0, trimmed, 0, last);
+        stats.setWrongGuessHistogram(trimmed);
+        return stats;
+    }
+
+    /**
+     * Reads the counters of every secret word of a finished game, in order of the words. Takes time proportional
+     * to the number of distinct secret words, not to the number of games.
+     * @return array list of WordStatsResponse objects, one per secret word.
+     * */
+    public ArrayList<WordStatsResponse> words() {
+        ArrayList<WordStatsResponse> words = new ArrayList<>(this.words.size());
+        for (Map.Entry<String, WordCounters> entry : this.words.entrySet()) words.add(wordStats(entry));
+        return words;
+    }
+
+    /**
+     * Reads the counters of one page of secret words, in order of the words. Takes time proportional to the size
+     * of the page, not to the number of distinct secret words.
+     * @param cursor Cursor returned with the previous page, or null for the first page.
+     * @param size Maximum number of words on the page.
+     * @return WordStatsPage object with the words of the page and the cursor of the following page.
+     * */
+    public WordStatsPage wordsPage(String cursor, int size) {
+        Map<String, WordCounters> from = cursor == null ? this.words : this.words.tailMap(cursor, false);
+        ArrayList<WordStatsResponse> words = new ArrayList<>(size);
+        String nextCursor = null;
+        for (Map.Entry<String, WordCounters> entry : from.entrySet()) {
+            if (words.size() == size) {
+                nextCursor = words.get(size - 1).getWord();
+                break;
+            }
+            words.add(wordStats(entry));
+        }
+        WordStatsPage page = new WordStatsPage();
+        page.setWords(words.toArray(new WordStatsResponse[0]));
+        page.setNextCursor(nextCursor);
+        return page;
+    }
+
+    private static WordStatsResponse wordStats(Map.Entry<String, WordCounters> entry) {
+        WordStatsResponse w = new WordStatsResponse();
+        long played = entry.getValue().played.sum();
+        long won = entry.getValue().won.sum();
+        w.setWord(entry.getKey());
+        w.setPlayed(played);
+        w.setWon(won);
+        w.setWinRate(played == 0 ? 0 : (double) won / played);
+        return w;
+    }
+
+    private static class WordCounters {
+
+        private final LongAdder played = new LongAdder();
+        private final LongAdder won = new LongAdder();
+    }
+}
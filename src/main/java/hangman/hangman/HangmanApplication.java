@@ -5,16 +5,39 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 /**
  * Launches the Handman Spring Boot web application.
  *
+ * By default the application is set up by Spring Boot auto-configuration and classpath scanning. Launched with
+ * --hangman.startup=lean, or the hangman.startup system property or HANGMAN_STARTUP environment variable set to
+ * lean, it starts through LeanStartup instead, for instances that must serve requests as soon as possible.
+ *
  * @author Alex Momotov
  * @version 1.0
  * */
 @SpringBootApplication
 public class HangmanApplication {
 
+    static final String STARTUP = "hangman.startup";
+    static final String LEAN = "lean";
+
     /**
      * Launches the Handman application.
      * */
     public static void main(String[] args) {
-        SpringApplication.run(HangmanApplication.class, args);
+        if (LEAN.equals(startupMode(args))) {
+            LeanStartup.run(args);
+        } else {
+            SpringApplication.run(HangmanApplication.class, args);
+        }
+    }
+
+    /**
+     * Reads the startup mode, which has to be known before the application properties are loaded.
+     * @param args Command line arguments.
+     * @return String startup mode from the arguments, system properties or environment, or null if not set.
+     * */
+    static String startupMode(String[] args) {
+        String prefix = "--" + STARTUP + "=";
+        for (String arg : args) if (arg.startsWith(prefix)) return arg.substring(prefix.length());
+        String mode = System.getProperty(STARTUP);
+        return mode != null ? mode : System.getenv("HANGMAN_STARTUP");
     }
 }
@@ -0,0 +1,153 @@
+package hangman.hangman;
+import java.util.stream.IntStream;
+
+/**
+ * Index over the words of a WordDictionary for suggesting the next guess of a game. Words are grouped by
+ * length, and within a group every word is a bit position. Each group holds a bitset of the words with a given
+ * letter at a given position, for every position and letter, and a bitset of the words without a given letter,
+ * for every letter. The words still possible in a game are then found with one bitset AND per revealed position
+ * and per attempted letter, instead of by testing every word of the dictionary.
+ *
+ * The suggested letter is the one splitting the remaining words most evenly into those containing it and
+ * those not, so that whatever the answer, as few words as possible remain. Letters are scored in parallel once
+ * enough words remain for it to pay off.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class HintIndex {
+
+    private static final int LETTERS = 26;
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final Group[] groups = new Group[Session.MAX_WORD_LENGTH + 1];
+
+    private HintIndex(WordDictionary dictionary) {
+        for (int length = 1; length < this.groups.length; ++length) {
+            int[] ids = dictionary.idsOfLength(length);
+            if (ids.length > 0) this.groups[length] = new Group(dictionary, ids, length);
+        }
+    }
+
+    /**
+     * Indexes the words of a dictionary. Takes time and memory proportional to the total length of the words.
+     * @param dictionary WordDictionary to index.
+     * @return HintIndex object over the words of the dictionary.
+     * */
+    public static HintIndex build(WordDictionary dictionary) {
+        return new HintIndex(dictionary);
+    }
+
+    /**
+     * Finds the words still possible in a game and the letter splitting them most evenly.
+     * @param guessProgress Guess progress of the game, such as "C _ t".
+     * @param attemptedMask Bitmask of the attempted letters, bit 0 for 'a'.
+     * @return HintResponse object with the suggested letter, or no letter if no word or no useful letter remains.
+     * */
+    public HintResponse hint(String guessProgress, int attemptedMask) {
+        HintResponse hint = new HintResponse();
+        int length = (guessProgress.length() + 1) / 2;
+        Group group = length < this.groups.length ? this.groups[length] : null;
+        if (group == null) return hint;
+        long[] candidates = group.all.clone();
+        long unknown = 0;
+        int revealedMask = 0;
+        for (int position = 0; position < length; ++position) {
+            char c = Character.toLowerCase(guessProgress.charAt(position * 2));
+            if (c == '_') {
+                unknown |= 1L << position;
+            } else if (c >= 'a' && c <= 'z') {
+                and(candidates, group.at[position * LETTERS + c - 'a']);
+                revealedMask |= 1 << (c - 'a');
+            } else {
+                return hint;
+            }
+        }
+        int triedMask = attemptedMask | revealedMask;
+        for (int letter = 0; letter < LETTERS; ++letter) {
+            if ((triedMask & (1 << letter)) == 0) continue;
+            if ((revealedMask & (1 << letter)) == 0) {
+                and(candidates, group.without[letter]);
+            } else {
+                // A revealed letter is revealed everywhere it occurs, so no hidden position may hold it
+                for (long hidden = unknown; hidden != 0; hidden &= hidden - 1) {
+                    andNot(candidates, group.at[Long.numberOfTrailingZeros(hidden) * LETTERS + letter]);
+                }
+            }
+        }
+        int remaining = count(candidates);
+        hint.setCandidates(remaining);
+        if (remaining == 0) return hint;
+        int[] present = new int[LETTERS];
+        IntStream letters = IntStream.range(0, LETTERS).filter(letter -> (triedMask & (1 << letter)) == 0);
+        if (remaining >= PARALLEL_THRESHOLD) letters = letters.parallel();
+        letters.forEach(letter -> present[letter] = remaining - countAnd(candidates, group.without[letter]));
+        int best = -1;
+        for (int letter = 0; letter < LETTERS; ++letter) {
+            if (present[letter] == 0) continue;
+            if (best < 0 || split(present[letter], remaining) > split(present[best], remaining)
+                    || split(present[letter], remaining) == split(present[best], remaining) && present[letter] > present[best]) {
+                best = letter;
+            }
+        }
+        if (best >= 0) {
+            hint.setLetter(String.valueOf((char) ('a' + best)));
+            hint.setWordsWithLetter(present[best]);
+        }
+        return hint;
+    }
+
+    private static int split(int present, int remaining) {
+        return Math.min(present, remaining - present);
+    }
+
+    private static void and(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; ++i) target[i] &= bits[i];
+    }
+
+    private static void andNot(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; ++i) target[i] &= ~bits[i];
+    }
+
+    private static int count(long[] bits) {
+        int count = 0;
+        for (long word : bits) count += Long.bitCount(word);
+        return count;
+    }
+
+    private static int countAnd(long[] a, long[] b) {
+        int count = 0;
+        for (int i = 0; i < a.length; ++i) count += Long.bitCount(a[i] & b[i]);
+        return count;
+    }
+
+    /**
+     * Bitsets over the words of one length, bit i standing for the i-th word of that length in the word list.
+     * */
+    private static class Group {
+
+        private final long[] all;
+        private final long[][] at;
+        private final long[][] without;
+
+        private Group(WordDictionary dictionary, int[] ids, int length) {
+            int words = (ids.length + 63) >>> 6;
+            this.all = new long[words];
+            this.at = new long[length * LETTERS][words];
+            this.without = new long[LETTERS][words];
+            for (int i = 0; i < ids.length; ++i) {
+                long bit = 1L << i;
+                int mask = 0;
+                for (int position = 0; position < length; ++position) {
+                    int letter = Character.toLowerCase(dictionary.letter(ids[i], position)) - 'a';
+                    this.at[position * LETTERS + letter][i >>> 6] |= bit;
+                    mask |= 1 << letter;
+                }
+                for (int letter = 0; letter < LETTERS; ++letter) {
+                    if ((mask & (1 << letter)) == 0) this.without[letter][i >>> 6] |= bit;
+                }
+                this.all[i >>> 6] |= bit;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package hangman.hangman;
+
+/**
+ * Acts as AJAX container for the message from server to client suggesting the next guess of a game.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class HintResponse {
+
+    private String letter;
+    private int candidates;
+    private int wordsWithLetter;
+
+    /**
+     * Getter for the suggested letter.
+     * @return String of one lower case letter, or null if no letter is worth guessing.
+     * */
+    public String getLetter() {
+        return letter;
+    }
+
+    public void setLetter(String letter) {
+        this.letter = letter;
+    }
+
+    /**
+     * Getter for the number of dictionary words the secret word may still be.
+     * @return int count of candidate words.
+     * */
+    public int getCandidates() {
+        return candidates;
+    }
+
+    public void setCandidates(int candidates) {
+        this.candidates = candidates;
+    }
+
+    /**
+     * Getter for the number of candidate words containing the suggested letter.
+     * @return int count of candidate words with the letter.
+     * */
+    public int getWordsWithLetter() {
+        return wordsWithLetter;
+    }
+
+    public void setWordsWithLetter(int wordsWithLetter) {
+        this.wordsWithLetter = wordsWithLetter;
+    }
+}
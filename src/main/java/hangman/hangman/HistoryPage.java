@@ -0,0 +1,34 @@
+package hangman.hangman;
+
+/**
+ * Acts as AJAX container for the message from server to client containing one page of the games history,
+ * newest games first, and the cursor to request the following page with.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class HistoryPage {
+
+    private HistoryResponse[] games;
+    private Long nextCursor;
+
+    public HistoryResponse[] getGames() {
+        return games;
+    }
+
+    public void setGames(HistoryResponse[] games) {
+        this.games = games;
+    }
+
+    /**
+     * Getter for the cursor of the following page.
+     * @return Long cursor to pass to the next request, or null if this is the last page.
+     * */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
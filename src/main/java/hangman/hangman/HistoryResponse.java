@@ -10,10 +10,36 @@ package hangman.hangman;
  * */
 public class HistoryResponse {
 
+    public static final String ONGOING = "Ongoing";
+    public static final String WON = "Won";
+    public static final String LOST = "Lost";
+
+    private long id;
+    private long startedAt;
     private String secretWord;
     private String status;
     private String guessProgress;
 
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Getter for the time the game was started.
+     * @return long milliseconds since the epoch, or 0 if unknown.
+     * */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
     public String getSecretWord() {
         return secretWord;
     }
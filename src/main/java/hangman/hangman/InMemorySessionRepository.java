@@ -0,0 +1,29 @@
+package hangman.hangman;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SessionRepository kept in a map of this process, shared by the SessionStores handed the same instance.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class InMemorySessionRepository implements SessionRepository {
+
+    private final ConcurrentHashMap<String, StoredGame> games = new ConcurrentHashMap<>();
+
+    @Override
+    public StoredGame load(String playerId) {
+        return this.games.get(playerId);
+    }
+
+    @Override
+    public boolean compareAndSet(String playerId, long expectedVersion, StoredGame game) {
+        boolean[] stored = new boolean[1];
+        this.games.compute(playerId, (id, current) -> {
+            if ((current == null ? 0 : current.getVersion()) != expectedVersion) return current;
+            stored[0] = true;
+            return game;
+        });
+        return stored[0];
+    }
+}
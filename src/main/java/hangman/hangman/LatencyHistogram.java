@@ -0,0 +1,94 @@
+package hangman.hangman;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds, safe for concurrent recording without locks or allocation. Buckets
+ * are log-linear: each power of two is split into 16 equal buckets, so a quantile read from the histogram is
+ * within 1/16 of the true value whatever its magnitude, and the whole range of long fits in under a thousand
+ * counters allocated up front.
+ *
+ * Recording increments one bucket and one sum. Quantiles are computed only when read, from counts read one by
+ * one, so a quantile read while durations are being recorded may miss the latest of them.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records one duration.
+     * @param nanos Duration in nanoseconds, counted as 0 if negative.
+     * */
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        this.counts.incrementAndGet(bucket(nanos));
+        this.sum.add(nanos);
+    }
+
+    /**
+     * Returns the number of durations recorded.
+     * @return long count of durations.
+     * */
+    long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; ++i) count += this.counts.get(i);
+        return count;
+    }
+
+    /**
+     * Returns the sum of the durations recorded.
+     * @return long sum in nanoseconds.
+     * */
+    long sum() {
+        return this.sum.sum();
+    }
+
+    /**
+     * Estimates quantiles of the durations recorded, all from the same reading of the counts.
+     * @param quantiles Quantiles between 0 and 1 in ascending order, such as 0.5 and 0.99.
+     * @return array of the upper bounds in nanoseconds of the buckets holding the quantiles, 0 if nothing was recorded.
+     * */
+    long[] quantiles(double... quantiles) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i) total += counts[i] = this.counts.get(i);
+        long[] values = new long[quantiles.length];
+        if (total == 0) return values;
+        long seen = 0;
+        int bucket = -1;
+        for (int q = 0; q < quantiles.length; ++q) {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            while (seen < rank && bucket < BUCKETS - 1) seen += counts[++bucket];
+            values[q] = upperBound(bucket);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the bucket of a duration. Durations below 2 * SUB_BUCKETS each have their own bucket; above, the
+     * top SUB_BUCKET_BITS + 1 bits of the duration select the bucket within its power of two.
+     * */
+    static int bucket(long nanos) {
+        if (nanos < 2 * SUB_BUCKETS) return (int) nanos;
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (nanos >>> shift);
+    }
+
+    /**
+     * Returns the highest duration counted in a bucket.
+     * */
+    static long upperBound(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
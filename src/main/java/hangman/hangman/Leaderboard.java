@@ -0,0 +1,182 @@
+package hangman.hangman;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Statistics of every player who finished a game on this node, and their ranking, updated by the SessionStore
+ * as games finish so reading the top players never sorts them.
+ *
+ * The statistics of a player are an immutable Entry, replaced on every game the player finishes. The current
+ * entry of each player is kept both in a map by player id and in a ConcurrentSkipListSet ordered by rank: most
+ * games won first, then the best win streak, then the fewest games played, then whoever finished their last
+ * game first. Game ids are unique, so the last one breaks every tie without the comparisons on the way down the
+ * list reading any strings. Finishing a game removes the old entry from the set and adds the new one, O(log n),
+ * inside the compute of the map, so updates of one player are applied one at a time while those of different
+ * players run concurrently. Reading the top K walks the head of the set, O(log n + K). A reader racing with an
+ * update may miss the player being moved.
+ *
+ * Each entry remembers the id of the last game counted, and a game with an id not above it is ignored: the
+ * games of a player finish in the order they were started, as starting a game abandons the previous one, and
+ * games replayed from the journal after a snapshot holding the statistics are not counted twice.
+ *
+ * Player ids double as the players' cookies, so players are shown by a name hashed from their id instead.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class Leaderboard {
+
+    static final Comparator<Entry> RANKING = Comparator.comparingInt((Entry e) -> -e.gamesWon)
+            .thenComparingInt(e -> -e.bestStreak)
+            .thenComparingInt(e -> e.gamesPlayed)
+            .thenComparingLong(e -> e.lastGameId);
+
+    private final ConcurrentHashMap<String, Entry> players = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+
+    /**
+     * Counts a game finished by a player.
+     * @param playerId Id of the player.
+     * @param gameId Id of the game.
+     * @param wrongGuessCount Number of wrong guesses made in the game.
+     * @param lost Whether the game was lost.
+     * */
+    void gameFinished(String playerId, long gameId, int wrongGuessCount, boolean lost) {
+        this.players.compute(playerId, (id, previous) -> {
+            if (previous != null && gameId <= previous.lastGameId) return previous;
+            Entry entry = previous == null
+                    ? new Entry(id, publicName(id), gameId, 1, lost ? 0 : 1, lost ? 0 : 1, lost ? 0 : 1, wrongGuessCount)
+                    : previous.next(gameId, wrongGuessCount, lost);
+            replace(previous, entry);
+            return entry;
+        });
+    }
+
+    /**
+     * Restores the statistics of a player from a snapshot.
+     * @param playerId Id of the player.
+     * @param lastGameId Id of the last game counted.
+     * @param gamesPlayed Number of games finished.
+     * @param gamesWon Number of games won.
+     * @param currentStreak Number of games won in a row up to the last one.
+     * @param bestStreak Most games won in a row.
+     * @param wrongGuesses Number of wrong guesses made over all games.
+     * */
+    void restore(String playerId, long lastGameId, int gamesPlayed, int gamesWon, int currentStreak, int bestStreak,
+                 long wrongGuesses) {
+        Entry entry = new Entry(playerId, publicName(playerId), lastGameId, gamesPlayed, gamesWon, currentStreak,
+                bestStreak, wrongGuesses);
+        replace(this.players.put(playerId, entry), entry);
+    }
+
+    /**
+     * Returns the top players.
+     * @param k Number of players to return.
+     * @return array list of at most k PlayerStatsResponse objects, best first, ranked from 1.
+     * */
+    public ArrayList<PlayerStatsResponse> top(int k) {
+        ArrayList<PlayerStatsResponse> top = new ArrayList<>(Math.min(k, 128));
+        Iterator<Entry> entries = this.ranking.iterator();
+        while (top.size() < k && entries.hasNext()) {
+            PlayerStatsResponse player = entries.next().describe();
+            player.setRank(top.size() + 1);
+            top.add(player);
+        }
+        return top;
+    }
+
+    /**
+     * Returns the statistics of a player, without a rank, as working out the rank would walk every player
+     * above them.
+     * @param playerId Id of the player.
+     * @return PlayerStatsResponse object, or null if the player has not finished a game.
+     * */
+    public PlayerStatsResponse player(String playerId) {
+        Entry entry = this.players.get(playerId);
+        return entry == null ? null : entry.describe();
+    }
+
+    public int size() {
+        return this.players.size();
+    }
+
+    /**
+     * Returns the current entries of the players, for writing a snapshot.
+     * @return Collection view of the entries.
+     * */
+    Collection<Entry> entries() {
+        return this.players.values();
+    }
+
+    /**
+     * Derives the name a player is shown by from their id.
+     * @param playerId Id of the player.
+     * @return String "player-" followed by 8 hex digits of the SHA-256 hash of the id.
+     * */
+    static String publicName(String playerId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(playerId.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(15).append("player-");
+            for (int i = 0; i < 4; ++i) sb.append(String.format("%02x", digest[i]));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void replace(Entry previous, Entry entry) {
+        if (previous != null) this.ranking.remove(previous);
+        this.ranking.add(entry);
+    }
+
+    /**
+     * Statistics of one player as of the last game they finished.
+     * */
+    static final class Entry {
+
+        final String playerId;
+        final String name;
+        final long lastGameId;
+        final int gamesPlayed;
+        final int gamesWon;
+        final int currentStreak;
+        final int bestStreak;
+        final long wrongGuesses;
+
+        private Entry(String playerId, String name, long lastGameId, int gamesPlayed, int gamesWon, int currentStreak,
+                      int bestStreak, long wrongGuesses) {
+            this.playerId = playerId;
+            this.name = name;
+            this.lastGameId = lastGameId;
+            this.gamesPlayed = gamesPlayed;
+            this.gamesWon = gamesWon;
+            this.currentStreak = currentStreak;
+            this.bestStreak = bestStreak;
+            this.wrongGuesses = wrongGuesses;
+        }
+
+        private Entry next(long gameId, int wrongGuessCount, boolean lost) {
+            int streak = lost ? 0 : this.currentStreak + 1;
+            return new Entry(this.playerId, this.name, gameId, this.gamesPlayed + 1, this.gamesWon + (lost ? 0 : 1), streak,
+                    Math.max(this.bestStreak, streak), this.wrongGuesses + wrongGuessCount);
+        }
+
+        private PlayerStatsResponse describe() {
+            PlayerStatsResponse player = new PlayerStatsResponse();
+            player.setPlayer(this.name);
+            player.setGamesPlayed(this.gamesPlayed);
+            player.setGamesWon(this.gamesWon);
+            player.setCurrentStreak(this.currentStreak);
+            player.setBestStreak(this.bestStreak);
+            player.setAverageWrongGuesses((double) this.wrongGuesses / this.gamesPlayed);
+            return player;
+        }
+    }
+}
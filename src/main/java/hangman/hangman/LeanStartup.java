@@ -0,0 +1,103 @@
+package hangman.hangman;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.HttpEncodingAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.error.ErrorMvcAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Lean startup of the application, for new instances launched to absorb a spike, which should take requests as
+ * soon as possible.
+ *
+ * Instead of scanning the classpath for components and evaluating every auto-configuration on it, only the
+ * auto-configurations of an embedded servlet container serving Spring MVC, static files and WebSockets are
+ * imported, along with the components and GameConfiguration beans of the game, listed explicitly. Every bean is
+ * made lazy, so the port opens once the web server is up, and the SessionStore, with the journal it replays
+ * and the dictionary it picks words from, is then created in the background together with what serves the
+ * first game. Everything else, such as the hint index and difficulty tiers, is created when first used.
+ *
+ * Deliberately not annotated as a configuration, so that classpath scanning in a default startup skips it.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@ImportAutoConfiguration({
+        PropertyPlaceholderAutoConfiguration.class,
+        ServletWebServerFactoryAutoConfiguration.class,
+        DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class,
+        HttpEncodingAutoConfiguration.class,
+        HttpMessageConvertersAutoConfiguration.class,
+        JacksonAutoConfiguration.class,
+        ErrorMvcAutoConfiguration.class,
+        WebSocketServletAutoConfiguration.class})
+@Import({GameConfiguration.class, GameJournal.class, SessionStore.class, GameExecution.class, GameMetrics.class,
+        Rooms.class, RController.class})
+public class LeanStartup {
+
+    private static final Logger log = LoggerFactory.getLogger(LeanStartup.class);
+    private static final Class<?>[] WARM = {WordDictionary.class, SessionStore.class, RController.class,
+            RequestMappingHandlerMapping.class, RequestMappingHandlerAdapter.class};
+
+    /**
+     * Launches the application with a lean startup.
+     * @param args Command line arguments.
+     * @return ConfigurableApplicationContext of the running application.
+     * */
+    public static ConfigurableApplicationContext run(String... args) {
+        SpringApplication application = new SpringApplication(LeanStartup.class);
+        application.addListeners(new Warmup());
+        return application.run(args);
+    }
+
+    /**
+     * Makes every bean lazy, so that the only ones created during startup are those the web server needs.
+     * @return BeanFactoryPostProcessor marking all bean definitions lazy.
+     * */
+    @Bean
+    public static BeanFactoryPostProcessor lazyInitialization() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) beanFactory.getBeanDefinition(name).setLazyInit(true);
+        };
+    }
+
+    /**
+     * Creates the beans serving the first game on a background thread once the application is ready. A request
+     * arriving before they are done waits for them.
+     * */
+    private static class Warmup implements ApplicationListener<ApplicationReadyEvent> {
+
+        @Override
+        public void onApplicationEvent(ApplicationReadyEvent event) {
+            ApplicationContext context = event.getApplicationContext();
+            Thread thread = new Thread(() -> {
+                long start = System.nanoTime();
+                try {
+                    for (Class<?> type : WARM) context.getBean(type);
+                    log.info("Warmed up the game in {} ms", (System.nanoTime() - start) / 1000000);
+                } catch (RuntimeException e) {
+                    log.error("Failed to warm up the game, it is set up by the first request instead", e);
+                }
+            }, "lean-warmup");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package hangman.hangman;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Growable array of primitive longs, safe for concurrent use without locks. Storage is allocated in chunks
+ * as indexes are first written, so an index may be set before all lower ones, and slots never written read
+ * as 0. Values can also be appended at the end, each append taking the next free index.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+class LongLog {
+
+    private static final int CHUNK_BITS = 15;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << 16;
+
+    private final AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * Returns the value at an index.
+     * @param index Index of the value.
+     * @return long value, or 0 if the slot has never been written.
+     * */
+    long get(long index) {
+        AtomicLongArray chunk = this.chunks.get((int) (index >>> CHUNK_BITS));
+        return chunk == null ? 0 : chunk.get((int) (index & (CHUNK_SIZE - 1)));
+    }
+
+    /**
+     * Sets the value at an index, growing the array if needed.
+     * @param index Index of the value, below 2^31.
+     * @param value New value.
+     * */
+    void set(long index, long value) {
+        chunk(index).set((int) (index & (CHUNK_SIZE - 1)), value);
+        long known;
+        while ((known = this.size.get()) <= index && !this.size.compareAndSet(known, index + 1)) { }
+    }
+
+    /**
+     * Appends a value at the next free index. Until the value is written, a concurrent reader may see the new
+     * size with 0 at that index.
+     * @param value Value to append.
+     * @return long index of the value.
+     * */
+    long append(long value) {
+        long index = this.size.getAndIncrement();
+        chunk(index).set((int) (index & (CHUNK_SIZE - 1)), value);
+        return index;
+    }
+
+    /**
+     * Returns one more than the highest index written.
+     * @return long size of the array.
+     * */
+    long size() {
+        return this.size.get();
+    }
+
+    private AtomicLongArray chunk(long index) {
+        int c = (int) (index >>> CHUNK_BITS);
+        if (c >= MAX_CHUNKS) throw new IllegalStateException("LongLog full at index " + index);
+        AtomicLongArray chunk = this.chunks.get(c);
+        if (chunk == null) {
+            this.chunks.compareAndSet(c, null, new AtomicLongArray(CHUNK_SIZE));
+            chunk = this.chunks.get(c);
+        }
+        return chunk;
+    }
+}
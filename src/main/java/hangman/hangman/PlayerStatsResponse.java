@@ -0,0 +1,87 @@
+package hangman.hangman;
+
+/**
+ * Acts as AJAX container for the message from server to client containing the statistics of one player across
+ * the games they finished on this node.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class PlayerStatsResponse {
+
+    private String player;
+    private int rank;
+    private int gamesPlayed;
+    private int gamesWon;
+    private int currentStreak;
+    private int bestStreak;
+    private double averageWrongGuesses;
+
+    /**
+     * Getter for the public name of the player. Player ids are the players' cookies and never leave the server.
+     * @return String name derived from a hash of the player id.
+     * */
+    public String getPlayer() {
+        return player;
+    }
+
+    public void setPlayer(String player) {
+        this.player = player;
+    }
+
+    /**
+     * Getter for the position of the player on the leaderboard.
+     * @return int rank starting from 1, or 0 if the rank was not worked out.
+     * */
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    public void setGamesPlayed(int gamesPlayed) {
+        this.gamesPlayed = gamesPlayed;
+    }
+
+    public int getGamesWon() {
+        return gamesWon;
+    }
+
+    public void setGamesWon(int gamesWon) {
+        this.gamesWon = gamesWon;
+    }
+
+    /**
+     * Getter for the number of games won in a row up to the last game finished.
+     * @return int length of the current win streak, 0 if the last game was lost.
+     * */
+    public int getCurrentStreak() {
+        return currentStreak;
+    }
+
+    public void setCurrentStreak(int currentStreak) {
+        this.currentStreak = currentStreak;
+    }
+
+    public int getBestStreak() {
+        return bestStreak;
+    }
+
+    public void setBestStreak(int bestStreak) {
+        this.bestStreak = bestStreak;
+    }
+
+    public double getAverageWrongGuesses() {
+        return averageWrongGuesses;
+    }
+
+    public void setAverageWrongGuesses(double averageWrongGuesses) {
+        this.averageWrongGuesses = averageWrongGuesses;
+    }
+}
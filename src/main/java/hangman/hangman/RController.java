@@ -1,13 +1,27 @@
 package hangman.hangman;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Random;
-import com.google.gson.Gson;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CookieValue;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -20,78 +34,411 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class RController {
 
-    private ArrayList<Session> sessions = new ArrayList<Session>();
+    static final String PLAYER_COOKIE = "playerId";
+    static final int MAX_PAGE_SIZE = 100;
+    static final String NDJSON = "application/x-ndjson";
+    static final int MAX_BATCH_SIZE = 64;
+    static final int RESUME_CACHE_SIZE = 4096;
+
+    // Shared by the history endpoints, which write to the response stream themselves and must not close it
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final SessionStore sessions;
+    private final GameExecution execution;
+    private final GameMetrics metrics;
+    private final ObjectProvider<HintIndex> hints;
+    private final ObjectProvider<Rooms> rooms;
+    private final ObjectProvider<WordDifficulty> difficulty;
+    private volatile TaggedBody historyJson;
+    // reloadOrResume bodies of recent game versions, each in the slot its ETag hashes to, so the cache takes
+    // fixed memory and the body of an older version is simply overwritten
+    private final AtomicReferenceArray<TaggedBody> resumeJson = new AtomicReferenceArray<>(RESUME_CACHE_SIZE);
+
+    /**
+     * Creates the controller. The game endpoints run in the mode of the given execution. The hint index, rooms
+     * and difficulty tiers are looked up on use, so that a lean startup does not build them before the first game
+     * is served.
+     * */
+    @Autowired
+    public RController(SessionStore sessions, GameExecution execution, GameMetrics metrics,
+                       ObjectProvider<HintIndex> hints, ObjectProvider<Rooms> rooms,
+                       ObjectProvider<WordDifficulty> difficulty) {
+        this.sessions = sessions;
+        this.execution = execution;
+        this.metrics = metrics;
+        this.hints = hints;
+        this.rooms = rooms;
+        this.difficulty = difficulty;
+    }
 
     /**
      * Acts as landing method handling AJAX requests for a new game session.
-     * @return Response object with initial new session parameters, including a random secret word.
+     * @param difficulty Tier to pick the secret word from, one of WordDifficulty.TIERS, or absent for any word.
+     * @return Response object with initial new session parameters, including a random secret word, or 409 if the
+     *         tier asked for holds no words of the word list.
      * */
     @RequestMapping(value="/newGameSession", method= RequestMethod.GET)
-    public ResponseEntity<Object> newGameSession() {
-        if (this.sessions.size() != 0 && !sessions.get(sessions.size()-1).isGameFinished()) {
-            this.sessions.remove(sessions.size()-1);
+    public ResponseEntity<Object> newGameSession(@CookieValue(value=PLAYER_COOKIE, required=false) String playerId,
+                                                 @RequestParam(value="difficulty", required=false) String difficulty,
+                                                 HttpServletResponse servletResponse) {
+        int tier = difficulty == null ? -1 : WordDifficulty.tier(difficulty);
+        if (difficulty != null && tier < 0) {
+            return new ResponseEntity<>("Expected difficulty to be one of " + String.join(", ", WordDifficulty.TIERS), HttpStatus.BAD_REQUEST);
         }
-        Session newSession = new Session();
-        this.sessions.add(newSession);
-        Response response = new Response();
-        String userMessage = "";
-        response = newSession.updateResponse(response, userMessage);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        long start = System.nanoTime();
+        String player = resolvePlayer(playerId, servletResponse);
+        return this.execution.run(() -> {
+            int wordId = tier < 0 ? -1 : this.difficulty.getObject().randomWordId(tier);
+            if (tier >= 0 && wordId < 0) {
+                String message = "The word list has no " + WordDifficulty.TIERS[tier] + " words";
+                return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+            }
+            Session newSession = this.sessions.newGame(player, wordId);
+            Response response = new Response();
+            String userMessage = "";
+            synchronized (newSession) {
+                response = newSession.updateResponse(response, userMessage);
+            }
+            this.metrics.requestServed(GameMetrics.NEW_GAME_SESSION, start);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        });
     }
 
     /**
-     * Handles AJAX requests for resuming an ongoing game or refreshing browser page.
+     * Handles AJAX requests for resuming an ongoing game or refreshing browser page. The response carries the
+     * version of the game as its ETag, and a request naming the current version in If-None-Match is answered
+     * with 304 without a body. The body is serialized once per version and cached under its ETag.
+     * @param ifNoneMatch ETags held by the client, or absent.
      * @return Response object with ongoing game session parameters and a saved session progress.
      * */
     @RequestMapping(value="/reloadOrResume", method= RequestMethod.GET)
-    public ResponseEntity<Object> reloadOrResume() {
-        Session lastSession;
-        if (this.sessions.size() != 0 && !this.sessions.get(this.sessions.size()-1).isGameFinished()) {
-            lastSession = this.sessions.get(this.sessions.size() - 1);
-        } else {
-            lastSession = new Session();
-            this.sessions.add(lastSession);
-        }
-        Response response = new Response();
-        String userMessage = "";
-        response = lastSession.updateResponse(response, userMessage);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+    public ResponseEntity<Object> reloadOrResume(@CookieValue(value=PLAYER_COOKIE, required=false) String playerId,
+                                                 @RequestHeader(value=HttpHeaders.IF_NONE_MATCH, required=false) String ifNoneMatch,
+                                                 HttpServletResponse servletResponse) {
+        long start = System.nanoTime();
+        String player = resolvePlayer(playerId, servletResponse);
+        return this.execution.run(() -> {
+            Session lastSession = this.sessions.ongoingGame(player);
+            String etag;
+            byte[] body = null;
+            synchronized (lastSession) {
+                etag = this.sessions.gameTag(lastSession);
+                if (!matches(ifNoneMatch, etag)) {
+                    int slot = resumeSlot(etag);
+                    TaggedBody cached = this.resumeJson.get(slot);
+                    if (cached != null && cached.etag.equals(etag)) {
+                        body = cached.body;
+                    } else {
+                        String userMessage = "";
+                        body = GameJson.encode(lastSession.updateResponse(new Response(), userMessage));
+                        this.resumeJson.set(slot, new TaggedBody(etag, body));
+                    }
+                }
+            }
+            this.metrics.requestServed(GameMetrics.RELOAD_OR_RESUME, start);
+            return conditional(etag, body);
+        });
     }
 
     /**
      * Handles AJAX requests for fetching management page info to display finished and ongoing game sessions list.
-     * @return array list of HistoryResponse objects, each containing details of one game session.
+     * The response carries the version of the history as its ETag, and a request naming the current version in
+     * If-None-Match is answered with 304 without a body. The body of the latest version is kept and sent again
+     * until a game changes.
+     * @param ifNoneMatch ETags held by the client, or absent.
+     * @return array of HistoryResponse objects, each containing details of one game session.
      * */
     @RequestMapping(value="/gamesHistory", method= RequestMethod.GET)
-    public ResponseEntity<Object> gamesHistory() {
-        HistoryResponse[] hist = new HistoryResponse[this.sessions.size()];
-        for (int i = 0; i < this.sessions.size(); ++i) {
-            HistoryResponse h = new HistoryResponse();
-            h.setGuessProgress(this.sessions.get(i).getGuessProgress());
-            h.setSecretWord(this.sessions.get(i).getSecretWord());
-            if (!this.sessions.get(i).isGameFinished()) {
-                h.setStatus("Ongoing");
-            } else if (this.sessions.get(i).getWrongGuessCount() >= this.sessions.get(i).getWRONG_GUESS_LIMIT()) {
-                h.setStatus("Lost");
+    public ResponseEntity<Object> gamesHistory(@RequestHeader(value=HttpHeaders.IF_NONE_MATCH, required=false) String ifNoneMatch) {
+        long start = System.nanoTime();
+        String etag = this.sessions.historyTag();
+        byte[] body = null;
+        if (!matches(ifNoneMatch, etag)) {
+            TaggedBody cached = this.historyJson;
+            if (cached != null && cached.etag.equals(etag)) {
+                body = cached.body;
             } else {
-                h.setStatus("Won");
+                body = encodeHistory();
+                this.historyJson = new TaggedBody(etag, body);
             }
-            hist[i] = h;
         }
-        return new ResponseEntity<>(hist, HttpStatus.OK);
+        this.metrics.requestServed(GameMetrics.GAMES_HISTORY, start);
+        return conditional(etag, body);
+    }
+
+    /**
+     * Serializes the whole games history, without looking at the cached body.
+     * @return byte array of the JSON array of HistoryResponse objects, oldest game first.
+     * */
+    byte[] encodeHistory() {
+        HistoryResponse[] games = this.sessions.history().toArray(new HistoryResponse[0]);
+        try {
+            return JSON.writeValueAsBytes(games);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode the games history", e);
+        }
+    }
+
+    /**
+     * Handles AJAX requests for fetching one page of the management page info, newest games first.
+     * @param cursor Cursor returned with the previous page, or absent for the first page.
+     * @param size Maximum number of games on the page.
+     * @param status Ongoing, Won or Lost to list only games with that status, or absent for all games.
+     * @return HistoryPage object containing the games of the page and the cursor of the following page.
+     * */
+    @RequestMapping(value="/gamesHistoryPage", method= RequestMethod.GET)
+    public ResponseEntity<Object> gamesHistoryPage(@RequestParam(value="cursor", required=false) Long cursor,
+                                                   @RequestParam(value="size", defaultValue="20") int size,
+                                                   @RequestParam(value="status", required=false) String status) {
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        HistoryPage page;
+        try {
+            page = this.sessions.historyPage(cursor, size, status);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    /**
+     * Handles requests for exporting the whole games history, oldest games first, as newline-delimited JSON with
+     * one game per line. Games are written straight to the response as they are read from the store, so the
+     * response is sent in chunks as it is produced and memory use does not grow with the number of games.
+     * @param from Earliest start time of the games to export in milliseconds since the epoch, or absent for no limit.
+     * @param to Start time in milliseconds since the epoch before which games must have started, or absent for no limit.
+     * @param status Ongoing, Won or Lost to export only games with that status, or absent for all games.
+     * @param servletResponse Servlet response the games are written to.
+     * */
+    @RequestMapping(value="/gamesHistoryExport", method= RequestMethod.GET)
+    public void gamesHistoryExport(@RequestParam(value="from", required=false) Long from,
+                                   @RequestParam(value="to", required=false) Long to,
+                                   @RequestParam(value="status", required=false) String status,
+                                   HttpServletResponse servletResponse) throws IOException {
+        Iterator<HistoryResponse> games;
+        try {
+            games = this.sessions.export(from, to, status);
+        } catch (IllegalArgumentException e) {
+            servletResponse.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        servletResponse.setContentType(NDJSON);
+        servletResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        JsonGenerator out = JSON.getFactory().createGenerator(servletResponse.getOutputStream());
+        out.setRootValueSeparator(null);
+        while (games.hasNext()) {
+            JSON.writeValue(out, games.next());
+            out.writeRaw('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * Handles AJAX requests for the aggregate statistics of all games played. Served from counters kept up to
+     * date as games finish, so the cost does not depend on the number of games.
+     * @return StatsResponse object with the game counts, win rate and histogram of wrong guess counts.
+     * */
+    @RequestMapping(value="/stats", method= RequestMethod.GET)
+    public ResponseEntity<Object> stats() {
+        return new ResponseEntity<>(this.sessions.stats().summary(), HttpStatus.OK);
+    }
+
+    /**
+     * Handles AJAX requests for fetching one page of the statistics of the secret words of finished games, in
+     * alphabetical order.
+     * @param cursor Cursor returned with the previous page, or absent for the first page.
+     * @param size Maximum number of words on the page.
+     * @return WordStatsPage object containing the words of the page and the cursor of the following page.
+     * */
+    @RequestMapping(value="/stats/words", method= RequestMethod.GET)
+    public ResponseEntity<Object> wordStats(@RequestParam(value="cursor", required=false) String cursor,
+                                            @RequestParam(value="size", defaultValue="20") int size) {
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return new ResponseEntity<>(this.sessions.stats().wordsPage(cursor, size), HttpStatus.OK);
+    }
+
+    /**
+     * Handles AJAX requests for the statistics of the player sending the request.
+     * @return PlayerStatsResponse object with the games played and won, win streaks and average wrong guesses.
+     * */
+    @RequestMapping(value="/stats/player", method= RequestMethod.GET)
+    public ResponseEntity<Object> playerStats(@CookieValue(value=PLAYER_COOKIE, required=false) String playerId,
+                                              HttpServletResponse servletResponse) {
+        String player = resolvePlayer(playerId, servletResponse);
+        PlayerStatsResponse stats = this.sessions.leaderboard().player(player);
+        if (stats == null) {
+            stats = new PlayerStatsResponse();
+            stats.setPlayer(Leaderboard.publicName(player));
+        }
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
+    /**
+     * Handles AJAX requests for the top players, ranked by games won, then best win streak, then fewest games
+     * played. Read from the head of a ranking kept in order as games finish, so the cost depends on k alone.
+     * @param k Number of players to return, at most MAX_PAGE_SIZE.
+     * @return array of PlayerStatsResponse objects, best first.
+     * */
+    @RequestMapping(value="/leaderboard", method= RequestMethod.GET)
+    public ResponseEntity<Object> leaderboard(@RequestParam(value="k", defaultValue="10") int k) {
+        k = Math.max(1, Math.min(k, MAX_PAGE_SIZE));
+        return new ResponseEntity<>(this.sessions.leaderboard().top(k).toArray(new PlayerStatsResponse[0]), HttpStatus.OK);
+    }
+
+    /**
+     * Handles AJAX requests for a hint in the last game of the player. Only what the player can see is used: the
+     * revealed letters and the attempted letters. Never starts a game.
+     * @return HintResponse object with the letter best splitting the dictionary words the secret word may still be,
+     *         or 404 if the player has not played yet.
+     * */
+    @RequestMapping(value="/hint", method= RequestMethod.GET)
+    public ResponseEntity<Object> hint(@CookieValue(value=PLAYER_COOKIE, required=false) String playerId) {
+        Session lastSession = playerId == null || playerId.isEmpty() ? null : this.sessions.findLastGame(playerId);
+        if (lastSession == null) return new ResponseEntity<>("No game to give a hint for", HttpStatus.NOT_FOUND);
+        String guessProgress;
+        int attemptedMask;
+        synchronized (lastSession) {
+            if (lastSession.isGameFinished()) return new ResponseEntity<>(new HintResponse(), HttpStatus.OK);
+            guessProgress = lastSession.getGuessProgress();
+            attemptedMask = lastSession.getAttemptedMask();
+        }
+        return new ResponseEntity<>(this.hints.getObject().hint(guessProgress, attemptedMask), HttpStatus.OK);
+    }
+
+    /**
+     * Handles AJAX requests for a new multiplayer room. Players join it over the WebSocket room channel at
+     * /roomChannel/{room}.
+     * @return RoomResponse object with the id of the room and the state of its first round, or 503 if there are
+     *         already as many rooms as allowed.
+     * */
+    @RequestMapping(value="/rooms", method= RequestMethod.POST)
+    public ResponseEntity<Object> createRoom() {
+        Room room = this.rooms.getObject().create();
+        if (room == null) return new ResponseEntity<>("Too many rooms, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+        return new ResponseEntity<>(room.state(), HttpStatus.OK);
+    }
+
+    /**
+     * Handles AJAX requests for the state of the current round of a multiplayer room.
+     * @return RoomResponse object with the round number, guess progress, attempted letters and participant count,
+     *         or 404 if there is no such room.
+     * */
+    @RequestMapping(value="/rooms/{room}", method= RequestMethod.GET)
+    public ResponseEntity<Object> room(@PathVariable("room") String id) {
+        Room room = this.rooms.getObject().get(id);
+        if (room == null) return new ResponseEntity<>("No such room", HttpStatus.NOT_FOUND);
+        return new ResponseEntity<>(room.state(), HttpStatus.OK);
+    }
+
+    /**
+     * Handles scrapes of the service metrics: request counts and latency quantiles of the game endpoints, guess
+     * outcome counts, and gauges of live sessions and history size.
+     * @return String with the metrics in the Prometheus text exposition format.
+     * */
+    @RequestMapping(value="/metrics", method= RequestMethod.GET)
+    public ResponseEntity<Object> metrics() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, GameMetrics.CONTENT_TYPE);
+        return new ResponseEntity<>(this.metrics.scrape(), headers, HttpStatus.OK);
     }
 
     /**
      * Handles AJAX requests for submitting new guesses of the ongoing game session.
-     * @param input Contains JSON string encoding Guess object with a new guess character.
+     * @param guess Guess object with a new guess character, decoded from the JSON body by GameJson.
      * @return Response object containing guess outcome details and message to the user.
      * */
     @RequestMapping(value="/submitGuess", method= RequestMethod.POST)
-    public ResponseEntity<Object> submitGuess(@RequestBody String input) {
-        Gson gson = new Gson();
-        Guess guess = gson.fromJson(input, Guess.class);
-        Session lastSession = sessions.get(sessions.size()-1);
-        Response response = lastSession.hangmanLogic(guess);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+    public ResponseEntity<Object> submitGuess(@RequestBody Guess guess,
+                                              @CookieValue(value=PLAYER_COOKIE, required=false) String playerId,
+                                              HttpServletResponse servletResponse) {
+        long start = System.nanoTime();
+        String player = resolvePlayer(playerId, servletResponse);
+        return this.execution.run(() -> {
+            Session lastSession = this.sessions.lastGame(player);
+            Response response = this.sessions.applyGuess(lastSession, guess);
+            this.metrics.requestServed(GameMetrics.SUBMIT_GUESS, start);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        });
+    }
+
+    /**
+     * Handles AJAX requests for submitting several guesses of the ongoing game session at once, applied in the
+     * order given until the game finishes, saving clients a round trip per letter.
+     * @param guesses Array of Guess objects, at most MAX_BATCH_SIZE long, decoded from the JSON body by GameJson.
+     * @return BatchResponse object containing the response to the last guess applied and the outcome of each guess.
+     * */
+    @RequestMapping(value="/submitGuesses", method= RequestMethod.POST)
+    public ResponseEntity<Object> submitGuesses(@RequestBody Guess[] guesses,
+                                                @CookieValue(value=PLAYER_COOKIE, required=false) String playerId,
+                                                HttpServletResponse servletResponse) {
+        if (guesses.length > MAX_BATCH_SIZE) {
+            return new ResponseEntity<>("Expected an array of at most " + MAX_BATCH_SIZE + " guesses", HttpStatus.BAD_REQUEST);
+        }
+        long start = System.nanoTime();
+        String player = resolvePlayer(playerId, servletResponse);
+        return this.execution.run(() -> {
+            Session lastSession = this.sessions.lastGame(player);
+            BatchResponse response = this.sessions.applyGuesses(lastSession, guesses);
+            this.metrics.requestServed(GameMetrics.SUBMIT_GUESSES, start);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        });
+    }
+
+    /**
+     * Checks whether the client already holds the version of a resource with the given ETag.
+     * @param ifNoneMatch Value of the If-None-Match header, or null if the request does not carry one.
+     * @param etag Current ETag of the resource.
+     * @return true if the header lists the tag, or is a wildcard.
+     * */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        return ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"));
+    }
+
+    /**
+     * Builds the response to a conditional GET.
+     * @param etag Current ETag of the resource.
+     * @param body Serialized JSON body, or null if the client holds the current version.
+     * @return ResponseEntity with the body and 200, or without a body and 304, carrying the ETag either way.
+     * */
+    private static ResponseEntity<Object> conditional(String etag, byte[] body) {
+        if (body == null) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON_UTF8).<Object>body(body);
+    }
+
+    /**
+     * Returns the id of the player sending the request, issuing a new player cookie if the request has none.
+     * @param playerId Value of the player cookie, or null if the request does not carry one.
+     * @param servletResponse Servlet response the new cookie is added to.
+     * @return String id of the player.
+     * */
+    private String resolvePlayer(String playerId, HttpServletResponse servletResponse) {
+        if (playerId != null && !playerId.isEmpty()) return playerId;
+        playerId = UUID.randomUUID().toString();
+        Cookie cookie = new Cookie(PLAYER_COOKIE, playerId);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(365 * 24 * 60 * 60);
+        servletResponse.addCookie(cookie);
+        return playerId;
+    }
+
+    private static int resumeSlot(String etag) {
+        int hash = etag.hashCode();
+        return (hash ^ (hash >>> 16)) & (RESUME_CACHE_SIZE - 1);
+    }
+
+    /**
+     * Serialized body kept together with the ETag of the version it was serialized from.
+     * */
+    private static class TaggedBody {
+
+        private final String etag;
+        private final byte[] body;
+
+        private TaggedBody(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
     }
 }
@@ -0,0 +1,319 @@
+package hangman.hangman;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Room in which any number of players guess the same secret word together, round after round. Every guess
+ * applied is sent to all participants of the room.
+ *
+ * The state of a round is packed into a single long, updated with compare-and-set: the attempted letters in
+ * bits 0 to 25, the wrong guess count in bits 26 to 29 and the revealed positions in bits 32 to 63, so secret
+ * words of rooms are at most 32 letters long. Guessing players never wait for each other, and of two players
+ * guessing the same letter exactly one applies it. The guess that finishes a round starts the next one.
+ *
+ * Guesses do not send anything themselves. Each applied guess is encoded once and queued, and a broadcaster
+ * thread sends everything queued in the last flush interval to every participant as one frame, e.g.
+ * {"events":[{"n":1,"s":3,"a":"c","r":[0],"v":"C","w":1}]}, with the round number, the sequence number of the
+ * guess within the round, the attempted letter, the newly revealed positions and their letters, and the wrong
+ * guess count. The event of the guess finishing a round adds its outcome and secret word, "o":"won","word":"Cat",
+ * and is followed by the start of the next round with the length of its word, {"n":2,"l":5}. Events of one
+ * round may be queued out of order by concurrent guesses; their sequence numbers give the order they were applied.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class Room {
+
+    public static final int MAX_WORD_LENGTH = 32;
+    public static final int WRONG_GUESS_LIMIT = 6;
+
+    private static final long ATTEMPTED_MASK = (1L << 26) - 1;
+    private static final int WRONG_SHIFT = 26;
+    private static final int REVEALED_SHIFT = 32;
+
+    /**
+     * Receiver of the frames of a room. Called from the broadcaster thread, so it must not block.
+     * */
+    public interface Participant {
+
+        /**
+         * Sends a frame to the participant.
+         * @param frame JSON text of the frame.
+         * */
+        void send(String frame);
+    }
+
+    private final String id;
+    private final WordDictionary dictionary;
+    private final ScheduledExecutorService broadcaster;
+    private final long flushNanos;
+    private final LatencyHistogram broadcastLatency;
+    private final long created;
+    private final AtomicReference<Round> round = new AtomicReference<>();
+    private final Set<Participant> participants = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final LongAdder guesses = new LongAdder();
+
+    /**
+     * Creates a room and starts its first round.
+     * @param id Id of the room.
+     * @param dictionary WordDictionary to pick the secret words from.
+     * @param broadcaster Executor running the sends to participants.
+     * @param flushNanos Time guesses are gathered for before they are sent.
+     * @param broadcastLatency LatencyHistogram recording the time from a guess being applied to it being handed
+     *                         to every participant.
+     * @param created Time the room is created at, in nanoseconds of the clock of the Rooms holding it.
+     * */
+    Room(String id, WordDictionary dictionary, ScheduledExecutorService broadcaster, long flushNanos,
+         LatencyHistogram broadcastLatency, long created) {
+        this.id = id;
+        this.dictionary = dictionary;
+        this.broadcaster = broadcaster;
+        this.flushNanos = flushNanos;
+        this.broadcastLatency = broadcastLatency;
+        this.created = created;
+        this.round.set(new Round(1, pickWord()));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    long getCreated() {
+        return created;
+    }
+
+    /**
+     * Applies a guess to the current round.
+     * @param letter Letter guessed, between 'a' and 'z'.
+     * @return int outcome, one of GameMetrics.HIT, MISS, REPEAT or FINISHED if the round was already over.
+     * */
+    public int guess(char letter) {
+        int index = letter - 'a';
+        long bit = 1L << index;
+        this.guesses.increment();
+        while (true) {
+            Round round = this.round.get();
+            long state = round.state.get();
+            if (round.finished(state)) return GameMetrics.FINISHED;
+            if ((state & bit) != 0) return GameMetrics.REPEAT;
+            long positions = round.letterPositions[index];
+            long next = positions == 0 ? (state | bit) + (1L << WRONG_SHIFT) : state | bit | positions << REVEALED_SHIFT;
+            if (!round.state.compareAndSet(state, next)) continue;
+            queue(round.event(letter, next));
+            if (round.finished(next)) {
+                Round nextRound = new Round(round.number + 1, pickWord());
+                this.round.compareAndSet(round, nextRound);
+                queue(new Event("{\"n\":" + nextRound.number + ",\"l\":" + nextRound.word.length() + '}'));
+            }
+            return positions == 0 ? GameMetrics.MISS : GameMetrics.HIT;
+        }
+    }
+
+    /**
+     * Adds a participant and sends it the state of the current round, as {"room":"x","n":1,"s":2,"p":"_ a _",
+     * "t":"ab","w":1}. Events already counted in the state may still reach the participant after it, and are
+     * told apart by their sequence numbers.
+     * @param participant Participant to send the frames of the room to.
+     * */
+    public void join(Participant participant) {
+        add(participant);
+        sendState(participant);
+    }
+
+    /**
+     * Adds a participant without sending it anything, for Rooms to do while holding the entry of the room.
+     * @param participant Participant to send the frames of the room to.
+     * */
+    void add(Participant participant) {
+        this.participants.add(participant);
+    }
+
+    /**
+     * Sends a participant the state of the current round, as join does after adding it.
+     * @param participant Participant added to the room.
+     * */
+    void sendState(Participant participant) {
+        participant.send(describe(new StringBuilder(128).append('{')).append('}').toString());
+    }
+
+    /**
+     * Removes a participant.
+     * @param participant Participant added by join.
+     * @return int number of participants left.
+     * */
+    public int leave(Participant participant) {
+        this.participants.remove(participant);
+        return this.participants.size();
+    }
+
+    public int participantCount() {
+        return this.participants.size();
+    }
+
+    /**
+     * Returns the number of guesses received, applied or not.
+     * @return long count of guesses.
+     * */
+    public long guessCount() {
+        return this.guesses.sum();
+    }
+
+    /**
+     * Describes the current round.
+     * @return RoomResponse object with the round number, guess progress, attempted letters and wrong guess count.
+     * */
+    public RoomResponse state() {
+        Round round = this.round.get();
+        long state = round.state.get();
+        RoomResponse response = new RoomResponse();
+        response.setRoom(this.id);
+        response.setRound(round.number);
+        response.setGuessProgress(round.guessProgress(state));
+        response.setAttemptedLetters(attempted(state));
+        response.setWrongGuessCount(wrongCount(state));
+        response.setParticipants(this.participants.size());
+        return response;
+    }
+
+    private StringBuilder describe(StringBuilder sb) {
+        Round round = this.round.get();
+        long state = round.state.get();
+        return sb.append("\"room\":\"").append(this.id).append("\",\"n\":").append(round.number)
+                .append(",\"s\":").append(Long.bitCount(state & ATTEMPTED_MASK))
+                .append(",\"p\":\"").append(round.guessProgress(state))
+                .append("\",\"t\":\"").append(attempted(state))
+                .append("\",\"w\":").append(wrongCount(state));
+    }
+
+    private void queue(Event event) {
+        this.events.add(event);
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            this.broadcaster.schedule(this::flush, this.flushNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Sends the queued events to every participant as one frame. Runs on the broadcaster thread.
+     * */
+    void flush() {
+        this.flushScheduled.set(false);
+        List<Event> batch = new ArrayList<>();
+        for (Event event; (event = this.events.poll()) != null; ) batch.add(event);
+        if (batch.isEmpty()) return;
+        StringBuilder sb = new StringBuilder(16 + batch.size() * 48).append("{\"events\":[");
+        for (int i = 0; i < batch.size(); ++i) {
+            if (i > 0) sb.append(',');
+            sb.append(batch.get(i).json);
+        }
+        String frame = sb.append("]}").toString();
+        for (Participant participant : this.participants) participant.send(frame);
+        long now = System.nanoTime();
+        for (Event event : batch) this.broadcastLatency.record(now - event.queuedAt);
+    }
+
+    private String pickWord() {
+        String word = this.dictionary.word(this.dictionary.randomWordId());
+        for (int length = MAX_WORD_LENGTH; word.length() > MAX_WORD_LENGTH && length > 0; --length) {
+            int id = this.dictionary.randomWordId(length);
+            if (id >= 0) word = this.dictionary.word(id);
+        }
+        return word;
+    }
+
+    private static String attempted(long state) {
+        StringBuilder sb = new StringBuilder(26);
+        for (int i = 0; i < 26; ++i) if ((state & (1L << i)) != 0) sb.append((char) ('a' + i));
+        return sb.toString();
+    }
+
+    private static int wrongCount(long state) {
+        return (int) (state >>> WRONG_SHIFT) & 0xf;
+    }
+
+    /**
+     * Secret word and packed state of one round.
+     * */
+    private static class Round {
+
+        private final int number;
+        private final String word;
+        private final long[] letterPositions = new long[26];
+        private final long allPositions;
+        private final AtomicLong state = new AtomicLong();
+
+        private Round(int number, String word) {
+            this.number = number;
+            this.word = word;
+            String lowerCaseWord = word.toLowerCase();
+            for (int i = 0; i < lowerCaseWord.length(); ++i) {
+                char letter = lowerCaseWord.charAt(i);
+                if (letter >= 'a' && letter <= 'z') this.letterPositions[letter - 'a'] |= 1L << i;
+            }
+            this.allPositions = (1L << word.length()) - 1;
+        }
+
+        private boolean finished(long state) {
+            return wrongCount(state) >= WRONG_GUESS_LIMIT || state >>> REVEALED_SHIFT == this.allPositions;
+        }
+
+        private String guessProgress(long state) {
+            long revealed = state >>> REVEALED_SHIFT;
+            StringBuilder sb = new StringBuilder(this.word.length() * 2);
+            for (int i = 0; i < this.word.length(); ++i) {
+                if (i > 0) sb.append(' ');
+                sb.append((revealed & (1L << i)) != 0 ? this.word.charAt(i) : '_');
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Encodes the event of a guess.
+         * @param letter Letter guessed.
+         * @param state State of the round with the guess applied.
+         * @return Event of the guess.
+         * */
+        private Event event(char letter, long state) {
+            long revealed = this.letterPositions[letter - 'a'];
+            StringBuilder sb = new StringBuilder(64).append("{\"n\":").append(this.number)
+                    .append(",\"s\":").append(Long.bitCount(state & ATTEMPTED_MASK))
+                    .append(",\"a\":\"").append(letter).append("\",\"r\":[");
+            StringBuilder letters = new StringBuilder();
+            for (long bits = revealed; bits != 0; bits &= bits - 1) {
+                int position = Long.numberOfTrailingZeros(bits);
+                if (letters.length() > 0) sb.append(',');
+                sb.append(position);
+                letters.append(this.word.charAt(position));
+            }
+            sb.append("],\"v\":\"").append(letters).append("\",\"w\":").append(wrongCount(state));
+            if (finished(state)) {
+                sb.append(",\"o\":\"").append(wrongCount(state) >= WRONG_GUESS_LIMIT ? "lost" : "won")
+                        .append("\",\"word\":\"").append(this.word).append('"');
+            }
+            return new Event(sb.append('}').toString());
+        }
+    }
+
+    /**
+     * Encoded event waiting to be sent, with the time it was queued.
+     * */
+    private static class Event {
+
+        private final String json;
+        private final long queuedAt = System.nanoTime();
+
+        private Event(String json) {
+            this.json = json;
+        }
+    }
+}
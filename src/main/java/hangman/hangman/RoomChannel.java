@@ -0,0 +1,177 @@
+package hangman.hangman;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.websocket.CloseReason;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.server.ServerContainer;
+import javax.websocket.server.ServerEndpointConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * WebSocket channel of a participant of a multiplayer room, opened at /roomChannel/{room}. Each guess goes up as
+ * a text frame holding the letter alone, and is answered with the user message alone, e.g. {"m":"Correct!"}.
+ * What the guess changed reaches every participant, the guesser included, with the next frame of events of the
+ * room.
+ *
+ * Frames are sent asynchronously, one at a time per participant, so a slow participant holds up neither the
+ * broadcaster nor the others. A participant with more than MAX_BACKLOG frames waiting is disconnected.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class RoomChannel extends Endpoint {
+
+    static final String PATH = "/roomChannel/{room}";
+    static final int MAX_BACKLOG = 256;
+
+    private static final Logger log = LoggerFactory.getLogger(RoomChannel.class);
+    private static final String[] MESSAGES = {"Correct!", "Nope...", "Letter already attempted. Try a different letter.",
+            "Round over, the next one is starting."};
+
+    private final Rooms rooms;
+    private Room room;
+    private Remote remote;
+
+    public RoomChannel(Rooms rooms) {
+        this.rooms = rooms;
+    }
+
+    @Override
+    public void onOpen(javax.websocket.Session channel, EndpointConfig config) {
+        Remote remote = new Remote(channel);
+        this.room = this.rooms.join(channel.getPathParameters().get("room"), remote);
+        if (this.room == null) {
+            close(channel, new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "No such room"));
+            return;
+        }
+        this.remote = remote;
+        channel.addMessageHandler(String.class, new MessageHandler.Whole<String>() {
+            @Override
+            public void onMessage(String letter) {
+                RoomChannel.this.remote.send(guess(RoomChannel.this.room, letter));
+            }
+        });
+    }
+
+    @Override
+    public void onClose(javax.websocket.Session channel, CloseReason reason) {
+        if (this.remote != null) this.rooms.leave(this.room, this.remote);
+    }
+
+    /**
+     * Applies a guess to the current round of a room.
+     * @param room Room the participant joined.
+     * @param letter Text of the frame received, expected to be a single lower case letter.
+     * @return String of the frame to answer with.
+     * */
+    static String guess(Room room, String letter) {
+        if (letter.length() != 1 || letter.charAt(0) < 'a' || letter.charAt(0) > 'z') {
+            return "{\"m\":\"Please enter a single letter.\"}";
+        }
+        return "{\"m\":\"" + MESSAGES[room.guess(letter.charAt(0))] + "\"}";
+    }
+
+    private static void close(javax.websocket.Session channel, CloseReason reason) {
+        try {
+            channel.close(reason);
+        } catch (IOException e) {
+            log.debug("Failed to close room channel", e);
+        }
+    }
+
+    /**
+     * Participant sending its frames over a WebSocket, keeping at most one asynchronous send in progress.
+     * */
+    static class Remote implements Room.Participant, SendHandler {
+
+        private final javax.websocket.Session channel;
+        private final ConcurrentLinkedQueue<String> backlog = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger backlogSize = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Remote(javax.websocket.Session channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void send(String frame) {
+            if (this.backlogSize.incrementAndGet() > MAX_BACKLOG) {
+                close(this.channel, new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Too far behind"));
+                return;
+            }
+            this.backlog.add(frame);
+            sendNext();
+        }
+
+        private void sendNext() {
+            while (!this.backlog.isEmpty() && this.sending.compareAndSet(false, true)) {
+                String frame = this.backlog.poll();
+                if (frame == null) {
+                    this.sending.set(false);
+                    continue;
+                }
+                this.backlogSize.decrementAndGet();
+                this.channel.getAsyncRemote().sendText(frame, this);
+                return;
+            }
+        }
+
+        @Override
+        public void onResult(SendResult result) {
+            this.sending.set(false);
+            if (result.isOK()) {
+                sendNext();
+            } else {
+                log.debug("Failed to send room frame", result.getException());
+            }
+        }
+    }
+
+    /**
+     * Registers the channel with the WebSocket container of the servlet context once the context has started.
+     * */
+    static class Registrar implements ServletContextListener {
+
+        private final Rooms rooms;
+
+        Registrar(Rooms rooms) {
+            this.rooms = rooms;
+        }
+
+        @Override
+        public void contextInitialized(ServletContextEvent event) {
+            ServerContainer container = (ServerContainer) event.getServletContext()
+                    .getAttribute(ServerContainer.class.getName());
+            if (container == null) {
+                log.warn("No WebSocket container, room channel disabled");
+                return;
+            }
+            ServerEndpointConfig config = ServerEndpointConfig.Builder.create(RoomChannel.class, PATH)
+                    .configurator(new ServerEndpointConfig.Configurator() {
+                        @Override
+                        public <T> T getEndpointInstance(Class<T> endpointClass) {
+                            return endpointClass.cast(new RoomChannel(Registrar.this.rooms));
+                        }
+                    }).build();
+            try {
+                container.addEndpoint(config);
+            } catch (DeploymentException e) {
+                throw new IllegalStateException("Cannot register room channel at " + PATH, e);
+            }
+        }
+
+        @Override
+        public void contextDestroyed(ServletContextEvent event) {
+        }
+    }
+}
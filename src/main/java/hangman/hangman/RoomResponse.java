@@ -0,0 +1,73 @@
+package hangman.hangman;
+
+/**
+ * Acts as AJAX container for the message from server to client describing the current round of a room.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class RoomResponse {
+
+    private String room;
+    private int round;
+    private String guessProgress;
+    private String attemptedLetters;
+    private int wrongGuessCount;
+    private int participants;
+
+    public String getRoom() {
+        return room;
+    }
+
+    public void setRoom(String room) {
+        this.room = room;
+    }
+
+    /**
+     * Getter for the number of the current round, counting from 1.
+     * @return int round number.
+     * */
+    public int getRound() {
+        return round;
+    }
+
+    public void setRound(int round) {
+        this.round = round;
+    }
+
+    public String getGuessProgress() {
+        return guessProgress;
+    }
+
+    public void setGuessProgress(String guessProgress) {
+        this.guessProgress = guessProgress;
+    }
+
+    /**
+     * Getter for the letters attempted in the current round.
+     * @return String of the attempted letters in alphabetical order, such as "aet".
+     * */
+    public String getAttemptedLetters() {
+        return attemptedLetters;
+    }
+
+    public void setAttemptedLetters(String attemptedLetters) {
+        this.attemptedLetters = attemptedLetters;
+    }
+
+    public int getWrongGuessCount() {
+        return wrongGuessCount;
+    }
+
+    public void setWrongGuessCount(int wrongGuessCount) {
+        this.wrongGuessCount = wrongGuessCount;
+    }
+
+    public int getParticipants() {
+        return participants;
+    }
+
+    public void setParticipants(int participants) {
+        this.participants = participants;
+    }
+}
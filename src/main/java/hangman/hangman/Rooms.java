@@ -0,0 +1,170 @@
+package hangman.hangman;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of the multiplayer rooms, owning the broadcaster threads sending their frames. A room is removed
+ * when its last participant leaves, and a room nobody has joined is removed once it is older than the idle
+ * time, by a sweep the broadcaster threads run as often, so that rooms created and abandoned do not take up
+ * the maximum.
+ *
+ * Joining, leaving and removing a room are each a single update of its entry in the registry, so a participant
+ * never joins a room just as it is removed for being empty.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@Component
+public class Rooms {
+
+    private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+    private final LatencyHistogram broadcastLatency = new LatencyHistogram();
+    private final LongAdder removedGuesses = new LongAdder();
+    private final ScheduledExecutorService broadcaster;
+    private final WordDictionary dictionary;
+    private final LongSupplier clock;
+    private final long flushNanos;
+    private final long idleNanos;
+    private final int maxRooms;
+
+    /**
+     * Creates the registry.
+     * @param dictionary WordDictionary to pick the secret words of the rooms from.
+     * @param flushMillis Time the guesses of a room are gathered for before they are sent to its participants.
+     * @param threads Number of broadcaster threads.
+     * @param maxRooms Number of rooms beyond which no more are created.
+     * @param idleMillis Time after which a room nobody has joined is removed.
+     * */
+    @Autowired
+    public Rooms(WordDictionary dictionary, @Value("${hangman.rooms.flush-ms:10}") long flushMillis,
+                 @Value("${hangman.rooms.broadcast-threads:1}") int threads,
+                 @Value("${hangman.rooms.max:10000}") int maxRooms,
+                 @Value("${hangman.rooms.idle-ms:60000}") long idleMillis) {
+        this(dictionary, flushMillis, threads, maxRooms, idleMillis, System::nanoTime);
+        this.broadcaster.scheduleWithFixedDelay(this::sweep, idleMillis, idleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates the registry reading time from the given clock, with idle rooms removed only when sweep() is
+     * called.
+     * */
+    Rooms(WordDictionary dictionary, long flushMillis, int threads, int maxRooms, long idleMillis, LongSupplier clock) {
+        this.dictionary = dictionary;
+        this.clock = clock;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.maxRooms = maxRooms;
+        AtomicInteger count = new AtomicInteger();
+        this.broadcaster = Executors.newScheduledThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "room-broadcaster-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a room with a new random id.
+     * @return Room object, or null if there are already as many rooms as allowed.
+     * */
+    public Room create() {
+        if (this.rooms.size() >= this.maxRooms) return null;
+        Room room = new Room(UUID.randomUUID().toString(), this.dictionary, this.broadcaster, this.flushNanos,
+                this.broadcastLatency, this.clock.getAsLong());
+        this.rooms.put(room.getId(), room);
+        return room;
+    }
+
+    /**
+     * Returns a room.
+     * @param id Id of the room.
+     * @return Room object, or null if there is no room with that id.
+     * */
+    public Room get(String id) {
+        return this.rooms.get(id);
+    }
+
+    /**
+     * Adds a participant to a room and sends it the state of the current round.
+     * @param id Id of the room.
+     * @param participant Participant to send the frames of the room to.
+     * @return Room joined, or null if there is no room with that id.
+     * */
+    public Room join(String id, Room.Participant participant) {
+        Room room = this.rooms.computeIfPresent(id, (key, current) -> {
+            current.add(participant);
+            return current;
+        });
+        if (room != null) room.sendState(participant);
+        return room;
+    }
+
+    /**
+     * Removes a participant from a room, removing the room if it was the last one.
+     * @param room Room the participant joined.
+     * @param participant Participant leaving.
+     * */
+    public void leave(Room room, Room.Participant participant) {
+        AtomicBoolean removed = new AtomicBoolean();
+        this.rooms.computeIfPresent(room.getId(), (key, current) -> {
+            if (current != room || room.leave(participant) > 0) return current;
+            removed.set(true);
+            return null;
+        });
+        if (removed.get()) this.removedGuesses.add(room.guessCount());
+    }
+
+    /**
+     * Removes the rooms nobody has joined since they were created at least the idle time ago.
+     * */
+    void sweep() {
+        long now = this.clock.getAsLong();
+        for (Room room : this.rooms.values()) {
+            if (now - room.getCreated() < this.idleNanos) continue;
+            AtomicBoolean removed = new AtomicBoolean();
+            this.rooms.computeIfPresent(room.getId(), (key, current) -> {
+                if (current != room || room.participantCount() > 0) return current;
+                removed.set(true);
+                return null;
+            });
+            if (removed.get()) this.removedGuesses.add(room.guessCount());
+        }
+    }
+
+    public int size() {
+        return this.rooms.size();
+    }
+
+    /**
+     * Returns the number of guesses received by all rooms, removed ones included.
+     * @return long count of guesses, applied or not.
+     * */
+    public long guessCount() {
+        long count = this.removedGuesses.sum();
+        for (Room room : this.rooms.values()) count += room.guessCount();
+        return count;
+    }
+
+    /**
+     * Returns the time from guesses being applied in any room to their frame being handed to every participant.
+     * @return LatencyHistogram shared by the rooms.
+     * */
+    LatencyHistogram broadcastLatency() {
+        return this.broadcastLatency;
+    }
+
+    @PreDestroy
+    public void close() {
+        this.broadcaster.shutdown();
+    }
+}
@@ -1,41 +1,82 @@
 package hangman.hangman;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Random;
 
 /**
  * Represents a single Hangman game session. Contains session parameters such as game status, secret word,
  * wrong guess count, and implements the core Hangman game logic operating on these parameters.
  *
+ * Guesses are resolved against an index built once per secret word, holding a bitmask of positions for every
+ * letter. Attempted letters and revealed positions are kept as primitive bitsets, so a guess does not allocate.
+ * The display strings sent to the client are rendered from these bitsets only when they are asked for.
+ *
+ * Every change of state moves the session on to a new version, which the ETags of its responses are made from.
+ *
  * @author Alex Momotov
  * @version 1.0
  * */
 public class Session {
 
+    /** Longest secret word supported, one bit of the revealed-positions mask per letter. */
+    public static final int MAX_WORD_LENGTH = 64;
+
+    private long id;
     private boolean gameFinished;
     private int WRONG_GUESS_LIMIT;
     private int wrongGuessCount;
+    private int wordId;
     private String secretWord;
-    private HashSet<Object> attemptedLetters;
+    private String lowerCaseWord;
+    private long[] letterPositions;
+    private long allPositions;
+    private long revealedPositions;
+    private int attemptedMask;
+    private char[] attemptedOrder;
+    private int attemptedCount;
     private String attemptedString;
     private String guessProgress;
-    private String[] words = {"Concurrency", "Parallelism", "Networking", "Encapsulation", "Development",
-            "Incremental", "Connectivity", "Parametric", "Relational", "Distributed", "Theoretical"};
+    private int version;
 
     /**
-     * Initialises new game session with random secret word and game parameters.
+     * Initialises new game session with random secret word from the built-in dictionary and game parameters.
      * @return Session object containing new game session data.
      * */
     public Session() {
-        int randInt = new Random().nextInt(this.words.length);
-        this.secretWord = words[randInt];
+        this(WordDictionary.builtIn());
+    }
+
+    /**
+     * Initialises new game session with random secret word from the given dictionary and game parameters.
+     * @param dictionary WordDictionary to pick the secret word from.
+     * @return Session object containing new game session data.
+     * */
+    public Session(WordDictionary dictionary) {
+        this(dictionary, dictionary.randomWordId());
+    }
+
+    /**
+     * Initialises new game session with the given word of a dictionary as secret word and game parameters.
+     * @param dictionary WordDictionary holding the secret word.
+     * @param wordId Id of the secret word in the dictionary.
+     * @return Session object containing new game session data.
+     * */
+    public Session(WordDictionary dictionary, int wordId) {
+        this(dictionary.word(wordId));
+        this.wordId = wordId;
+    }
+
+    /**
+     * Initialises new game session with the given secret word and game parameters.
+     * @param secretWord Secret word of the game.
+     * @return Session object containing new game session data.
+     * */
+    public Session(String secretWord) {
+        this.letterPositions = new long[26];
+        this.attemptedOrder = new char[32];
         this.gameFinished = false;
         this.WRONG_GUESS_LIMIT = 6;
         this.wrongGuessCount = 0;
-        this.attemptedLetters = new HashSet<>();
-        this.attemptedString = "[]";
-        this.guessProgress = "";
-        for (int i = 0; i < this.secretWord.length() - 1; ++i) this.guessProgress += "_ ";
-        this.guessProgress += "_";
+        setSecretWord(secretWord);
     }
 
     /**
@@ -44,18 +85,39 @@ public class Session {
      * @return Response object containing the guess outcome and updated session data.
      * */
     public Response hangmanLogic(Guess guess) {
+        return respond(guess(guess.getValue()));
+    }
+
+    /**
+     * Applies a guess to the game without building a response, as done when a game is restored.
+     * @param letter Letter guessed.
+     * @return int outcome, one of GameMetrics.HIT, MISS, REPEAT or FINISHED if the game was already over.
+     * */
+    public int guess(char letter) {
+        if (this.gameFinished) return GameMetrics.FINISHED;
+        if (isAttempted(letter)) return GameMetrics.REPEAT;
+        updateAttempted(letter);
+        int outcome = checkSecretWord(letter);
+        updateGameState();
+        return outcome;
+    }
+
+    /**
+     * Builds the response to the guess just applied.
+     * @param outcome Outcome of the guess, as returned by guess(char).
+     * @return Response object containing the guess outcome and updated session data.
+     * */
+    public Response respond(int outcome) {
         Response response = new Response();
-        if (this.gameFinished) {
+        if (outcome == GameMetrics.FINISHED) {
             response = checkGameState(response);
-            return response;
-        } else if (this.attemptedLetters.contains(guess.getValue())) {
+        } else if (outcome == GameMetrics.REPEAT) {
             response = notifyAttempted(response);
-            return response;
         } else {
-            response = updateAttempted(response, guess);
+            String userMessage = outcome == GameMetrics.MISS ? "Nope..." : "Correct!";
+            response = updateResponse(response, userMessage);
+            if (this.gameFinished) response = checkGameState(response);
         }
-        response = checkSecretWord(response, guess);
-        response = updateGameState(response);
         return response;
     }
 
@@ -77,19 +139,12 @@ public class Session {
     }
 
     /**
-     * Updates session status if the game has finished and adds appropriate message to the response.
-     * @param response Response object in the process of being updated with new session data.
-     * @return Response object with a new user message.
+     * Updates session status if the game has finished.
      * */
-    private Response updateGameState(Response response) {
-        if (this.wrongGuessCount >= this.WRONG_GUESS_LIMIT) {
+    private void updateGameState() {
+        if (this.wrongGuessCount >= this.WRONG_GUESS_LIMIT || this.revealedPositions == this.allPositions) {
             this.gameFinished = true;
-            response.setUserMessage("Game Over.");
-        } else if (!this.guessProgress.contains("_")) {
-            this.gameFinished = true;
-            response.setUserMessage("Congratulations, you won!");
         }
-        return response;
     }
 
     /**
@@ -110,55 +165,123 @@ public class Session {
      * @return Response object with updated game session data and new user message.
      * */
     public Response updateResponse(Response response, String userMessage) {
-        response.setGuessProgress(this.guessProgress);
-        response.setAttemptedString(this.attemptedString);
+        response.setGuessProgress(getGuessProgress());
+        response.setAttemptedString(getAttemptedString());
         response.setWrongGuessCount(this.wrongGuessCount);
         response.setUserMessage(userMessage);
         return response;
     }
 
     /**
-     * Adds new guess letter to the set of attempted letters and updates attempted-letters string.
-     * @param response Response object in the process of being updated with new session data.
-     * @param guess Guess letter submitted by the user.
-     * @return Response object with the updated attempted string.
-     * */
-    private Response updateAttempted(Response response, Guess guess) {
-        this.attemptedLetters.add(guess.getValue());
-        this.attemptedString = "[";
-        for (Object c : this.attemptedLetters) this.attemptedString += c + ", ";
-        this.attemptedString = this.attemptedString.substring(0, this.attemptedString.length() - 2) + "]";
-        response.setAttemptedString(this.attemptedString);
-        return response;
+     * Adds new guess letter to the set of attempted letters.
+     * @param letter Guess letter submitted by the user.
+     * */
+    private void updateAttempted(char letter) {
+        changed();
+        if (letter >= 'a' && letter <= 'z') this.attemptedMask |= 1 << (letter - 'a');
+        if (this.attemptedCount == this.attemptedOrder.length) {
+            this.attemptedOrder = Arrays.copyOf(this.attemptedOrder, this.attemptedCount * 2);
+        }
+        this.attemptedOrder[this.attemptedCount++] = letter;
+        this.attemptedString = null;
     }
 
     /**
-     * Checks guess against secret word, updates guess-progress string and wrong-guess-count, informs user of outcome.
-     * @param response Response object in the process of being updated with new session data.
-     * @param guess Guess letter submitted by the user.
-     * @return Response object with updated session data and user message about guess outcome.
-     * */
-    private Response checkSecretWord(Response response, Guess guess) {
-        boolean successful_guess = false;
-        for (int i = 0; i < this.secretWord.length(); ++i) {
-            boolean guessed = this.secretWord.toLowerCase().charAt(i) == guess.getValue();
-            if (guessed) {
-                successful_guess = true;
-                char[] charArr = this.guessProgress.toCharArray();
-                charArr[i * 2] = this.secretWord.charAt(i);
-                this.guessProgress = String.valueOf(charArr);
-            }
-        }
-        String userMessage;
+     * Checks guess against secret word, updates revealed positions and wrong-guess-count.
+     * @param letter Guess letter submitted by the user.
+     * @return int outcome of the guess, GameMetrics.HIT or MISS.
+     * */
+    private int checkSecretWord(char letter) {
+        long positions = positionsOf(letter);
+        boolean successful_guess = positions != 0;
         if (!successful_guess) {
-            userMessage = "Nope...";
             this.wrongGuessCount += 1;
-            response = updateResponse(response, userMessage);
+            return GameMetrics.MISS;
         } else {
-            userMessage = "Correct!";
-            response = updateResponse(response, userMessage);
+            this.revealedPositions |= positions;
+            this.guessProgress = null;
+            return GameMetrics.HIT;
         }
-        return response;
+    }
+
+    /**
+     * Moves the session on to a new version. The outcome of a guess is worked out in the same call as the
+     * letter is added to the attempted letters, so one version covers the whole guess.
+     * */
+    private void changed() {
+        ++this.version;
+    }
+
+    /**
+     * Checks whether a letter has already been attempted in this game session.
+     * @param letter Letter to look up.
+     * @return true if the letter has been attempted before.
+     * */
+    public boolean isAttempted(char letter) {
+        if (letter >= 'a' && letter <= 'z') return (this.attemptedMask & (1 << (letter - 'a'))) != 0;
+        for (int i = 0; i < this.attemptedCount; ++i) {
+            if (this.attemptedOrder[i] == letter) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Looks up the positions of a letter in the lower-cased secret word.
+     * @param letter Letter to look up.
+     * @return long bitmask with bit i set if the letter is at position i.
+     * */
+    private long positionsOf(char letter) {
+        if (letter >= 'a' && letter <= 'z') return this.letterPositions[letter - 'a'];
+        long positions = 0;
+        for (int i = 0; i < this.lowerCaseWord.length(); ++i) {
+            if (this.lowerCaseWord.charAt(i) == letter) positions |= 1L << i;
+        }
+        return positions;
+    }
+
+    /**
+     * Renders the attempted letters in the iteration order of a HashSet holding them, which is the order
+     * clients have always been shown.
+     * @return String such as "[a, e, t]".
+     * */
+    private String renderAttempted() {
+        if (this.attemptedCount == 0) return "[]";
+        int buckets = 16;
+        while (this.attemptedCount > buckets / 4 * 3) buckets *= 2;
+        StringBuilder sb = new StringBuilder(2 + this.attemptedCount * 3);
+        sb.append('[');
+        for (int bucket = 0; bucket < buckets; ++bucket) {
+            for (int i = 0; i < this.attemptedCount; ++i) {
+                char letter = this.attemptedOrder[i];
+                if ((letter & (buckets - 1)) != bucket) continue;
+                if (sb.length() > 1) sb.append(", ");
+                sb.append(letter);
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Renders the secret word with unrevealed letters shown as underscores.
+     * @return String such as "C _ t".
+     * */
+    private String renderGuessProgress() {
+        int length = this.secretWord.length();
+        if (length == 0) return "_";
+        StringBuilder sb = new StringBuilder(length * 2 - 1);
+        for (int i = 0; i < length; ++i) {
+            if (i > 0) sb.append(' ');
+            sb.append((this.revealedPositions & (1L << i)) != 0 ? this.secretWord.charAt(i) : '_');
+        }
+        return sb.toString();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
     }
 
     public boolean isGameFinished() {
@@ -166,6 +289,7 @@ public class Session {
     }
 
     public void setGameFinished(boolean gameFinished) {
+        changed();
         this.gameFinished = gameFinished;
     }
 
@@ -182,46 +306,109 @@ public class Session {
     }
 
     public void setWrongGuessCount(int wrongGuessCount) {
+        changed();
         this.wrongGuessCount = wrongGuessCount;
     }
 
+    /**
+     * Getter for the id of the secret word in the dictionary it was picked from.
+     * @return int id of the word, or -1 if the secret word was set directly.
+     * */
+    public int getWordId() {
+        return wordId;
+    }
+
+    /**
+     * Getter for the positions of the secret word revealed so far.
+     * @return long bitmask with bit i set if the i-th letter of the secret word has been revealed.
+     * */
+    public long getRevealedPositions() {
+        return this.revealedPositions;
+    }
+
     public String getSecretWord() {
         return secretWord;
     }
 
+    /**
+     * Sets a new secret word, rebuilding the letter index and hiding all of its letters.
+     * @param secretWord New secret word, at most MAX_WORD_LENGTH letters long.
+     * */
     public void setSecretWord(String secretWord) {
+        if (secretWord.length() > MAX_WORD_LENGTH) {
+            throw new IllegalArgumentException("Secret word longer than " + MAX_WORD_LENGTH + " letters: " + secretWord);
+        }
+        changed();
+        this.wordId = -1;
         this.secretWord = secretWord;
+        this.lowerCaseWord = secretWord.toLowerCase();
+        Arrays.fill(this.letterPositions, 0L);
+        for (int i = 0; i < this.lowerCaseWord.length(); ++i) {
+            char letter = this.lowerCaseWord.charAt(i);
+            if (letter >= 'a' && letter <= 'z') this.letterPositions[letter - 'a'] |= 1L << i;
+        }
+        this.allPositions = secretWord.length() == MAX_WORD_LENGTH ? -1L : (1L << secretWord.length()) - 1;
+        this.revealedPositions = 0;
+        this.guessProgress = null;
     }
 
     public HashSet<Object> getAttemptedLetters() {
+        HashSet<Object> attemptedLetters = new HashSet<>();
+        for (int i = 0; i < this.attemptedCount; ++i) attemptedLetters.add(this.attemptedOrder[i]);
         return attemptedLetters;
     }
 
     public void setAttemptedLetters(HashSet<Object> attemptedLetters) {
-        this.attemptedLetters = attemptedLetters;
+        this.attemptedMask = 0;
+        this.attemptedCount = 0;
+        for (Object letter : attemptedLetters) updateAttempted((Character) letter);
+        this.attemptedString = null;
     }
 
-    public String getAttemptedString() {
-        return attemptedString;
+    /**
+     * Getter for the attempted letters between 'a' and 'z'.
+     * @return int bitmask with bit i set if the i-th letter of the alphabet has been attempted.
+     * */
+    public int getAttemptedMask() {
+        return this.attemptedMask;
     }
 
-    public void setAttemptedString(String attemptedString) {
-        this.attemptedString = attemptedString;
+    /**
+     * Getter for the attempted letters in the order they were guessed.
+     * @return char array with one entry per attempted letter.
+     * */
+    public char[] getGuessHistory() {
+        return Arrays.copyOf(this.attemptedOrder, this.attemptedCount);
+    }
+
+    public String getAttemptedString() {
+        if (this.attemptedString == null) this.attemptedString = renderAttempted();
+        return attemptedString;
     }
 
     public String getGuessProgress() {
+        if (this.guessProgress == null) this.guessProgress = renderGuessProgress();
         return guessProgress;
     }
 
+    /**
+     * Sets the guess progress, revealing the positions of the secret word that are not underscores.
+     * @param guessProgress Guess progress string in the format returned by getGuessProgress.
+     * */
     public void setGuessProgress(String guessProgress) {
+        changed();
+        this.revealedPositions = 0;
+        for (int i = 0; i < this.secretWord.length() && i * 2 < guessProgress.length(); ++i) {
+            if (guessProgress.charAt(i * 2) != '_') this.revealedPositions |= 1L << i;
+        }
         this.guessProgress = guessProgress;
     }
 
-    public String[] getWords() {
-        return words;
-    }
-
-    public void setWords(String[] words) {
-        this.words = words;
+    /**
+     * Getter for the version of the game state, incremented on every change.
+     * @return int version, 1 for a new game.
+     * */
+    public int getVersion() {
+        return this.version;
     }
 }
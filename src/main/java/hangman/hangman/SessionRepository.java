@@ -0,0 +1,34 @@
+package hangman.hangman;
+import java.io.IOException;
+
+/**
+ * Store of the current game of every player, shared by all nodes serving the game so that any node can serve
+ * any player. Each SessionStore keeps the Sessions it is serving as a near-cache in front of the repository.
+ *
+ * Every stored game carries a version, and writes are conditional on the version the writer last read, so
+ * two nodes can never both apply a guess to the same state of a game: the second write fails, and its node
+ * reloads the game and applies the guess to the newer state.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public interface SessionRepository {
+
+    /**
+     * Reads the current game of a player.
+     * @param playerId Id of the player.
+     * @return StoredGame object, or null if the player has no game stored.
+     * @throws IOException if the store cannot be read.
+     * */
+    StoredGame load(String playerId) throws IOException;
+
+    /**
+     * Replaces the current game of a player if the stored version is the expected one.
+     * @param playerId Id of the player.
+     * @param expectedVersion Version of the game last read, or 0 if the player had no game stored.
+     * @param game StoredGame object to store, with a version greater than the expected one.
+     * @return true if the game was stored, false if the stored version was different.
+     * @throws IOException if the store cannot be read or written.
+     * */
+    boolean compareAndSet(String playerId, long expectedVersion, StoredGame game) throws IOException;
+}
@@ -0,0 +1,891 @@
+package hangman.hangman;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of game sessions shared by all request threads. Keeps the current game of every player, keyed by
+ * player id, and the history of all games played on this node in the order they were started.
+ *
+ * Updates for one player are atomic with respect to each other, while updates for different players never
+ * contend on a common lock. Callers must synchronize on a Session before reading its state, and change it only
+ * through applyGuess. Every change is recorded in the GameJournal, which restores the store on startup.
+ *
+ * Once a finished game is no longer the current game of its player, its Session is replaced by a record packed
+ * into a single long, holding the dictionary id of the secret word, the attempted letters, the wrong guess count
+ * and the outcome. Records are kept in a primitive array indexed by game id, and the history entries of these
+ * games are rebuilt from the records only when requested.
+ *
+ * Every change to a game also moves the history on to a new version, and every Session keeps a version of its
+ * own. Both are turned into ETags by gameTag and historyTag, prefixed by an epoch drawn when the store is
+ * created, so a tag handed out before a restart never matches the state after it.
+ *
+ * When given a SessionRepository, the store shares the current game of every player with the other nodes
+ * using the repository, and its map of current games becomes a near-cache of the repository: a player's game
+ * is read again when it was last read longer ago than the near-cache time, and brought up to date with the
+ * guesses other nodes applied to it. A guess is stored before it is applied, conditional on the version of
+ * the game the Session matches, and a node that loses the race catches up and looks at the guess again. A new
+ * game replaces whatever game the player had. History, statistics and journal stay those of this node: games
+ * started on other nodes are played here without being listed in its history.
+ *
+ * The link of each current game to its stored state is kept by SharedGames beside the Session, and the player of
+ * each ongoing game in the map of ongoing games, so a Session holds the state of its game only.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@Component
+public class SessionStore {
+
+    private static final long RECORD_PRESENT = 1L << 63;
+    private static final long RECORD_LOST = 1L << 62;
+    private static final int RECORD_WRONG_SHIFT = 58;
+    private static final int RECORD_MASK_SHIFT = 32;
+    private static final int MAX_RECORD_WRONG_COUNT = 15;
+
+    static final String REPLACED_MESSAGE = "This game was replaced by a newer one. Reload to continue.";
+
+    private final ConcurrentHashMap<String, Session> current = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Session> live = new ConcurrentHashMap<>();
+    private final LongLog records = new LongLog();
+    private final ConcurrentSkipListMap<Long, String> ongoing = new ConcurrentSkipListMap<>();
+    private final LongLog won = new LongLog();
+    private final LongLog lost = new LongLog();
+    private final LongLog startTimes = new LongLog();
+    private final AtomicLong nextId = new AtomicLong();
+    private final GameStats stats = new GameStats();
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final LongAdder historyVersion = new LongAdder();
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final GameJournal journal;
+    private final WordDictionary dictionary;
+    private SharedGames shared;
+    private GameMetrics metrics;
+
+    /**
+     * Creates a store recording its changes in the given journal.
+     * @param journal GameJournal to restore the store from and to record changes in.
+     * @param dictionary WordDictionary to pick the secret words of new games from.
+     * */
+    @Autowired
+    public SessionStore(GameJournal journal, WordDictionary dictionary) {
+        this.journal = journal;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Creates a store kept in memory only, picking words from the built-in dictionary.
+     * */
+    public SessionStore() {
+        this(GameJournal.disabled(), WordDictionary.builtIn());
+    }
+
+    /**
+     * Shares the current games of the players through a repository used by other nodes as well. Must be
+     * called before the store is opened.
+     * @param repository SessionRepository shared by the nodes.
+     * @param node Id of this node, kept across restarts so the games it started stay its own, or empty for a
+     *             random id.
+     * @param nearCacheMillis Time a game read from the repository is served from memory without reading it again.
+     * */
+    @Autowired(required = false)
+    public void setRepository(SessionRepository repository, @Value("${hangman.repository.node:}") String node,
+                              @Value("${hangman.repository.near-cache-ms:50}") long nearCacheMillis) {
+        this.shared = new SharedGames(repository, node.isEmpty() ? UUID.randomUUID().toString() : node,
+                TimeUnit.MILLISECONDS.toNanos(nearCacheMillis));
+    }
+
+    /**
+     * Sets the metrics to count the outcomes of the guesses players submit in. Called by the GameMetrics
+     * created for this store.
+     * @param metrics GameMetrics of the store.
+     * */
+    void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Restores the games recorded in the journal.
+     * */
+    @PostConstruct
+    public void open() throws IOException {
+        this.journal.open(this);
+        HashSet<Session> currentGames = new HashSet<>(this.current.values());
+        for (Session session : this.live.values()) {
+            if (session.isGameFinished() && !currentGames.contains(session)) compact(session);
+        }
+    }
+
+    /**
+     * Starts a new game for the player. An unfinished previous game of the same player is abandoned and
+     * removed from the history.
+     * @param playerId Id of the player starting the game.
+     * @return Session object of the new game.
+     * */
+    public Session newGame(String playerId) {
+        return newGame(playerId, -1);
+    }
+
+    /**
+     * Starts a new game for the player with the given secret word. An unfinished previous game of the same
+     * player is abandoned and removed from the history.
+     * @param playerId Id of the player starting the game.
+     * @param wordId Id of the secret word in the dictionary of the store, or -1 for a random word.
+     * @return Session object of the new game.
+     * */
+    public Session newGame(String playerId, int wordId) {
+        Session created = wordId < 0 ? new Session(this.dictionary) : new Session(this.dictionary, wordId);
+        synchronized (created) {
+            Session session = this.current.compute(playerId, (id, previous) -> {
+                if (previous != null && isLocal(previous)) {
+                    synchronized (previous) {
+                        if (!previous.isGameFinished()) {
+                            this.live.remove(previous.getId());
+                            this.ongoing.remove(previous.getId());
+                            this.stats.gameAbandoned();
+                            this.journal.abandoned(previous);
+                            this.historyVersion.increment();
+                        } else {
+                            compact(previous);
+                        }
+                    }
+                }
+                if (previous != null) unlink(previous);
+                return register(created, playerId);
+            });
+            return publish(created, session, playerId);
+        }
+    }
+
+    /**
+     * Returns the ongoing game of the player, starting a new one if the last game has finished or the player
+     * has not played yet.
+     * @param playerId Id of the player.
+     * @return Session object of the ongoing game.
+     * */
+    public Session ongoingGame(String playerId) {
+        if (this.shared != null) refresh(playerId);
+        Session session = this.current.get(playerId);
+        if (session != null) {
+            synchronized (session) {
+                if (!session.isGameFinished()) return session;
+            }
+        }
+        Session created = new Session(this.dictionary);
+        synchronized (created) {
+            session = this.current.compute(playerId, (id, previous) -> {
+                if (previous != null) {
+                    synchronized (previous) {
+                        if (!previous.isGameFinished()) return previous;
+                        if (isLocal(previous)) compact(previous);
+                    }
+                    unlink(previous);
+                }
+                return register(created, playerId);
+            });
+            return publish(created, session, playerId);
+        }
+    }
+
+    /**
+     * Returns the last game of the player, whether finished or not, starting a new one if the player has not
+     * played yet.
+     * @param playerId Id of the player.
+     * @return Session object of the last game.
+     * */
+    public Session lastGame(String playerId) {
+        if (this.shared != null) refresh(playerId);
+        Session session = this.current.get(playerId);
+        if (session != null) return session;
+        Session created = new Session(this.dictionary);
+        synchronized (created) {
+            session = this.current.computeIfAbsent(playerId, id -> register(created, playerId));
+            return publish(created, session, playerId);
+        }
+    }
+
+    /**
+     * Returns the last game of the player, whether finished or not, without starting one.
+     * @param playerId Id of the player.
+     * @return Session object of the last game, or null if the player has not played yet.
+     * */
+    public Session findLastGame(String playerId) {
+        if (this.shared != null) refresh(playerId);
+        return this.current.get(playerId);
+    }
+
+    /**
+     * Returns all games played on this node, oldest first.
+     * @return array list of HistoryResponse objects, each containing details of one game session.
+     * */
+    public ArrayList<HistoryResponse> history() {
+        ArrayList<HistoryResponse> history = new ArrayList<>();
+        long end = this.nextId.get();
+        for (long id = 0; id < end; ++id) {
+            HistoryResponse h = describe(id);
+            if (h != null) history.add(h);
+        }
+        return history;
+    }
+
+    /**
+     * Returns one page of the games history, newest first. The cost depends only on the page size, not on the
+     * number of games stored, apart from skipping the slots of games abandoned before they finished.
+     * @param cursor Cursor returned with the previous page, or null for the first page.
+     * @param size Maximum number of games on the page.
+     * @param status Ongoing, Won or Lost to list only games with that status, or null for all games.
+     * @return HistoryPage object containing the games of the page and the cursor of the following page.
+     * */
+    public HistoryPage historyPage(Long cursor, int size, String status) {
+        ArrayList<HistoryResponse> games = new ArrayList<>(size);
+        long position = -1;
+        if (status == null || status.isEmpty()) {
+            position = cursor == null ? this.nextId.get() : Math.min(cursor, this.nextId.get());
+            while (games.size() < size && --position >= 0) {
+                HistoryResponse h = describe(position);
+                if (h != null) games.add(h);
+            }
+        } else if (status.equals(HistoryResponse.ONGOING)) {
+            ConcurrentNavigableMap<Long, String> page = cursor == null ? this.ongoing : this.ongoing.headMap(cursor);
+            for (long id : page.descendingKeySet()) {
+                if (games.size() == size) break;
+                HistoryResponse h = describe(id);
+                if (h == null) continue;
+                games.add(h);
+                position = id;
+            }
+        } else if (status.equals(HistoryResponse.WON) || status.equals(HistoryResponse.LOST)) {
+            LongLog finished = status.equals(HistoryResponse.WON) ? this.won : this.lost;
+            position = cursor == null ? finished.size() : Math.min(cursor, finished.size());
+            while (games.size() < size && --position >= 0) {
+                long entry = finished.get(position);
+                HistoryResponse h = entry == 0 ? null : describe(entry - 1);
+                if (h != null) games.add(h);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown game status: " + status);
+        }
+        HistoryPage page = new HistoryPage();
+        page.setGames(games.toArray(new HistoryResponse[0]));
+        if (games.size() == size && position > 0) page.setNextCursor(position);
+        return page;
+    }
+
+    /**
+     * Iterates over the games history oldest first, building the entry of each game only when it is reached, so
+     * that the whole history can be streamed out in constant memory.
+     * @param from Earliest start time of the games to include in milliseconds since the epoch, or null for no limit.
+     * @param to Start time in milliseconds since the epoch before which games must have started, or null for no limit.
+     * @param status Ongoing, Won or Lost to include only games with that status, or null for all games.
+     * @return Iterator of HistoryResponse objects, one per matching game.
+     * */
+    public Iterator<HistoryResponse> export(Long from, Long to, String status) {
+        if (status != null && !status.isEmpty() && !status.equals(HistoryResponse.ONGOING)
+                && !status.equals(HistoryResponse.WON) && !status.equals(HistoryResponse.LOST)) {
+            throw new IllegalArgumentException("Unknown game status: " + status);
+        }
+        long end = this.nextId.get();
+        long earliest = from == null ? Long.MIN_VALUE : from;
+        long latest = to == null ? Long.MAX_VALUE : to;
+        String wanted = status == null || status.isEmpty() ? null : status;
+        return new Iterator<HistoryResponse>() {
+
+            private long id = 0;
+            private HistoryResponse next;
+
+            @Override
+            public boolean hasNext() {
+                while (this.next == null && this.id < end) {
+                    long startedAt = startTimes.get(this.id);
+                    HistoryResponse h = startedAt >= earliest && startedAt < latest ? describe(this.id) : null;
+                    ++this.id;
+                    if (h != null && (wanted == null || wanted.equals(h.getStatus()))) this.next = h;
+                }
+                return this.next != null;
+            }
+
+            @Override
+            public HistoryResponse next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                HistoryResponse h = this.next;
+                this.next = null;
+                return h;
+            }
+        };
+    }
+
+    /**
+     * Applies a guess to a game and records the change.
+     * @param session Session object of the game.
+     * @param guess Guess letter submitted by the player.
+     * @return Response object containing the guess outcome and updated session data.
+     * */
+    public Response applyGuess(Session session, Guess guess) {
+        synchronized (session) {
+            Response response = apply(session, guess);
+            return response != null ? response : session.updateResponse(new Response(), REPLACED_MESSAGE);
+        }
+    }
+
+    /**
+     * Applies a guess to a game, storing it in the repository first if the game is shared. Caller must hold
+     * the Session lock.
+     * @param session Session object of the game.
+     * @param guess Guess letter submitted by the player.
+     * @return Response object containing the guess outcome, or null if another node replaced the game.
+     * */
+    private Response apply(Session session, Guess guess) {
+        char letter = guess.getValue();
+        boolean changes;
+        while (true) {
+            changes = !session.isGameFinished() && !session.isAttempted(letter);
+            SharedGame shared = this.shared != null ? this.shared.get(session) : null;
+            if (!changes || shared == null) break;
+            StoredGame next = shared.stored.withGuess(letter);
+            if (this.shared.compareAndSet(shared.playerId, shared.stored.getVersion(), next)) {
+                shared.stored = next;
+                break;
+            }
+            // Another node changed the game since it was read: catch up with it and look at the guess again
+            StoredGame stored = this.shared.load(shared.playerId);
+            if (stored == null || !catchUp(session, stored)) {
+                shared.checkedAt = 0;
+                return null;
+            }
+        }
+        int outcome = session.guess(letter);
+        if (changes) recordGuess(session, letter);
+        return respond(session, outcome);
+    }
+
+    /**
+     * Counts the outcome of a guess a player submitted and builds the response to it. Caller must hold the
+     * Session lock.
+     * @param session Session object of the game, with the guess applied.
+     * @param outcome Outcome of the guess, as returned by Session.guess.
+     * @return Response object containing the guess outcome.
+     * */
+    private Response respond(Session session, int outcome) {
+        if (this.metrics != null) this.metrics.guessResolved(outcome);
+        return session.respond(outcome);
+    }
+
+    /**
+     * Records a guess that changed a game of this node in the journal and history. Caller must hold the
+     * Session lock.
+     * @param session Session object of the game, with the guess applied.
+     * @param letter Letter guessed.
+     * */
+    private void recordGuess(Session session, char letter) {
+        if (!isLocal(session)) return;
+        this.journal.guess(session, letter);
+        if (session.isGameFinished()) {
+            gameFinished(session);
+            this.journal.finished(session);
+        }
+        this.historyVersion.increment();
+    }
+
+    /**
+     * Applies guesses to a game in the order given, holding the Session lock once for the whole batch, and
+     * records the changes. Stops at the guess that finishes the game, and applies none if it has already finished.
+     * @param session Session object of the game.
+     * @param guesses Guess letters submitted by the player.
+     * @return BatchResponse object containing the response to the last guess applied and the outcome of each.
+     * */
+    public BatchResponse applyGuesses(Session session, Guess[] guesses) {
+        synchronized (session) {
+            Response response = null;
+            String[] outcomes = new String[guesses.length];
+            int applied = 0;
+            while (applied < guesses.length && !session.isGameFinished()) {
+                Guess guess = guesses[applied];
+                boolean repeat = session.isAttempted(guess.getValue());
+                int wrongBefore = session.getWrongGuessCount();
+                response = apply(session, guess);
+                if (response == null) {
+                    response = session.updateResponse(new Response(), REPLACED_MESSAGE);
+                    break;
+                }
+                outcomes[applied++] = repeat ? BatchResponse.REPEAT
+                        : session.getWrongGuessCount() > wrongBefore ? BatchResponse.MISS : BatchResponse.HIT;
+            }
+            if (response == null) {
+                // Nothing applied: the game had already finished, or the batch is empty
+                response = guesses.length > 0 ? respond(session, session.guess(guesses[0].getValue()))
+                        : session.updateResponse(new Response(), "");
+            }
+            BatchResponse batch = new BatchResponse();
+            batch.setResponse(response);
+            batch.setOutcomes(Arrays.copyOf(outcomes, applied));
+            return batch;
+        }
+    }
+
+    /**
+     * Moves a game that has just finished from the ongoing games to the won or lost games. Must be called by
+     * the thread that finished the game while it still holds the Session lock.
+     * @param session Session object of the finished game.
+     * */
+    void gameFinished(Session session) {
+        String playerId = this.ongoing.remove(session.getId());
+        if (playerId == null) return;
+        boolean lost = session.getWrongGuessCount() >= session.getWRONG_GUESS_LIMIT();
+        (lost ? this.lost : this.won).append(session.getId() + 1);
+        this.stats.gameFinished(session.getSecretWord(), session.getWrongGuessCount(), lost);
+        if (!playerId.isEmpty()) this.leaderboard.gameFinished(playerId, session.getId(), session.getWrongGuessCount(), lost);
+    }
+
+    /**
+     * Returns the ETag of the current state of a game. Callers must hold the Session lock.
+     * @param session Session object of the game.
+     * @return String quoted tag, changing whenever the game changes.
+     * */
+    public String gameTag(Session session) {
+        return "\"g" + this.epoch + "-" + session.getId() + "-" + session.getVersion() + '"';
+    }
+
+    /**
+     * Returns the ETag of the current games history. The version is read before the history, and moved on only
+     * after a change is made, so the history read afterwards is never older than the tag.
+     * @return String quoted tag, changing whenever a game is started, changed or abandoned.
+     * */
+    public String historyTag() {
+        return "\"h" + this.epoch + "-" + this.historyVersion.sum() + '"';
+    }
+
+    /**
+     * Returns the statistics of the games in this store.
+     * @return GameStats object kept up to date as games start and finish.
+     * */
+    public GameStats stats() {
+        return this.stats;
+    }
+
+    /**
+     * Returns the statistics and ranking of the players who finished games in this store.
+     * @return Leaderboard object kept up to date as games finish.
+     * */
+    public Leaderboard leaderboard() {
+        return this.leaderboard;
+    }
+
+    /**
+     * Builds the management page entry of a game.
+     * @param id Id of the game.
+     * @return HistoryResponse object, or null if there is no game with that id.
+     * */
+    private HistoryResponse describe(long id) {
+        long record = this.records.get(id);
+        if (record == 0) {
+            Session session = this.live.get(id);
+            if (session != null) return describe(session);
+            // The game may have been compacted since its record was read
+            record = this.records.get(id);
+            if (record == 0) return null;
+        }
+        HistoryResponse h = new HistoryResponse();
+        h.setId(id);
+        h.setStartedAt(this.startTimes.get(id));
+        String word = this.dictionary.word((int) record);
+        h.setSecretWord(word);
+        h.setGuessProgress(guessProgress(word, (int) (record >>> RECORD_MASK_SHIFT) & ((1 << 26) - 1)));
+        h.setStatus((record & RECORD_LOST) != 0 ? HistoryResponse.LOST : HistoryResponse.WON);
+        return h;
+    }
+
+    private HistoryResponse describe(Session session) {
+        HistoryResponse h = new HistoryResponse();
+        synchronized (session) {
+            h.setId(session.getId());
+            h.setStartedAt(this.startTimes.get(session.getId()));
+            h.setGuessProgress(session.getGuessProgress());
+            h.setSecretWord(session.getSecretWord());
+            if (!session.isGameFinished()) {
+                h.setStatus(HistoryResponse.ONGOING);
+            } else if (session.getWrongGuessCount() >= session.getWRONG_GUESS_LIMIT()) {
+                h.setStatus(HistoryResponse.LOST);
+            } else {
+                h.setStatus(HistoryResponse.WON);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Renders the guess progress of a secret word given the attempted letters.
+     * @param word Secret word.
+     * @param attemptedMask Bitmask of the attempted letters between 'a' and 'z'.
+     * @return String such as "C _ t".
+     * */
+    private static String guessProgress(String word, int attemptedMask) {
+        StringBuilder sb = new StringBuilder(word.length() * 2);
+        for (int i = 0; i < word.length(); ++i) {
+            if (i > 0) sb.append(' ');
+            int letter = Character.toLowerCase(word.charAt(i)) - 'a';
+            sb.append(letter >= 0 && letter < 26 && (attemptedMask & (1 << letter)) != 0 ? word.charAt(i) : '_');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Replaces a finished game that is no longer the current game of its player by its packed record. Games
+     * whose word is not from the dictionary, or with more wrong guesses than a record holds, stay as they are.
+     * Caller must hold the Session lock.
+     * @param session Session object of the finished game.
+     * */
+    private void compact(Session session) {
+        long record = pack(session);
+        if (record == 0) return;
+        this.records.set(session.getId(), record);
+        this.live.remove(session.getId());
+    }
+
+    private static long pack(Session session) {
+        if (session.getWordId() < 0 || session.getWrongGuessCount() > MAX_RECORD_WRONG_COUNT) return 0;
+        long record = RECORD_PRESENT | session.getWordId();
+        record |= (long) session.getAttemptedMask() << RECORD_MASK_SHIFT;
+        record |= (long) session.getWrongGuessCount() << RECORD_WRONG_SHIFT;
+        if (session.getWrongGuessCount() >= session.getWRONG_GUESS_LIMIT()) record |= RECORD_LOST;
+        return record;
+    }
+
+    /**
+     * Returns the games stored as Session objects for writing a snapshot.
+     * @return live view of the games not compacted into records.
+     * */
+    Collection<Session> liveGames() {
+        return this.live.values();
+    }
+
+    /**
+     * Returns the number of games stored as Session objects, for the live sessions gauge.
+     * @return int number of games not compacted into records.
+     * */
+    int liveGameCount() {
+        return this.live.size();
+    }
+
+    /**
+     * Returns the time a game was started for writing a snapshot.
+     * @param id Id of the game.
+     * @return long milliseconds since the epoch, or 0 if unknown.
+     * */
+    long startedAt(long id) {
+        return this.startTimes.get(id);
+    }
+
+    /**
+     * Returns the number of game ids handed out, for iterating over records when writing a snapshot.
+     * @return long one more than the highest game id.
+     * */
+    long gameIdLimit() {
+        return this.nextId.get();
+    }
+
+    /**
+     * Returns the packed record of a game for writing a snapshot.
+     * @param id Id of the game.
+     * @return long record, or 0 if the game is not compacted.
+     * */
+    long record(long id) {
+        return this.records.get(id);
+    }
+
+    /**
+     * Returns the secret word of a packed record for writing a snapshot.
+     * @param record Packed record of a game.
+     * @return String secret word.
+     * */
+    String recordWord(long record) {
+        return this.dictionary.word((int) record);
+    }
+
+    /**
+     * Returns the current game of every player for writing a snapshot.
+     * @return live view of the current games keyed by player id.
+     * */
+    Map<String, Session> currentGames() {
+        return this.current;
+    }
+
+    /**
+     * Creates the Session object of a game being restored from the journal, keeping the dictionary id of its
+     * secret word if the dictionary still holds that word under the same id.
+     * @param word Secret word of the game.
+     * @param wordId Id of the word when the game was created, or -1 if unknown.
+     * @return Session object with no guesses.
+     * */
+    Session restoredSession(String word, int wordId) {
+        if (wordId >= 0 && wordId < this.dictionary.size() && this.dictionary.word(wordId).equals(word)) {
+            return new Session(this.dictionary, wordId);
+        }
+        return new Session(word);
+    }
+
+    /**
+     * Restores a game from the journal, doing nothing if it is already stored.
+     * @param gameId Id of the game.
+     * @param playerId Id of the player whose current game it becomes, or null to leave current games alone.
+     * @param session Session object with the replayed state of the game.
+     * @param startedAt Time the game was started in milliseconds since the epoch, or 0 if unknown.
+     * */
+    void restoreGame(long gameId, String playerId, Session session, long startedAt) {
+        if (this.records.get(gameId) != 0 || this.live.containsKey(gameId)) return;
+        session.setId(gameId);
+        this.startTimes.set(gameId, startedAt);
+        this.live.put(gameId, session);
+        this.stats.gameStarted();
+        if (!session.isGameFinished()) {
+            // A game restored from a snapshot learns its player from the current games restored after it
+            this.ongoing.put(gameId, playerId != null ? playerId : "");
+        } else {
+            boolean lost = session.getWrongGuessCount() >= session.getWRONG_GUESS_LIMIT();
+            (lost ? this.lost : this.won).append(gameId + 1);
+            this.stats.gameFinished(session.getSecretWord(), session.getWrongGuessCount(), lost);
+        }
+        if (playerId != null) {
+            Session previous = this.current.put(playerId, session);
+            if (previous != null && previous.isGameFinished()) compact(previous);
+        }
+        if (this.nextId.get() <= gameId) this.nextId.set(gameId + 1);
+    }
+
+    /**
+     * Restores a game from its packed record, doing nothing if it is already stored. If the dictionary no
+     * longer holds the secret word under the id in the record, the game is restored as a Session instead.
+     * @param gameId Id of the game.
+     * @param record Packed record of the game.
+     * @param word Secret word of the game.
+     * @param startedAt Time the game was started in milliseconds since the epoch, or 0 if unknown.
+     * */
+    void restoreRecord(long gameId, long record, String word, long startedAt) {
+        if (this.records.get(gameId) != 0 || this.live.containsKey(gameId)) return;
+        int wordId = (int) record;
+        if (wordId < this.dictionary.size() && this.dictionary.word(wordId).equals(word)) {
+            this.records.set(gameId, record);
+            this.startTimes.set(gameId, startedAt);
+            boolean lost = (record & RECORD_LOST) != 0;
+            (lost ? this.lost : this.won).append(gameId + 1);
+            this.stats.gameStarted();
+            this.stats.gameFinished(word, (int) (record >>> RECORD_WRONG_SHIFT) & MAX_RECORD_WRONG_COUNT, lost);
+            if (this.nextId.get() <= gameId) this.nextId.set(gameId + 1);
+            return;
+        }
+        Session session = new Session(word);
+        int attemptedMask = (int) (record >>> RECORD_MASK_SHIFT) & ((1 << 26) - 1);
+        String lowerCaseWord = word.toLowerCase();
+        for (char letter = 'a'; letter <= 'z'; ++letter) {
+            if ((attemptedMask & (1 << (letter - 'a'))) != 0 && lowerCaseWord.indexOf(letter) >= 0) {
+                session.guess(letter);
+            }
+        }
+        session.setWrongGuessCount((int) (record >>> RECORD_WRONG_SHIFT) & MAX_RECORD_WRONG_COUNT);
+        session.setGameFinished(true);
+        restoreGame(gameId, null, session, startedAt);
+    }
+
+    void restoreGuess(long gameId, char letter) {
+        Session session = this.live.get(gameId);
+        if (session == null) return;
+        session.guess(letter);
+        if (session.isGameFinished()) gameFinished(session);
+    }
+
+    void restoreFinished(long gameId) {
+        Session session = this.live.get(gameId);
+        if (session != null && session.isGameFinished()) gameFinished(session);
+    }
+
+    void restoreAbandoned(long gameId) {
+        this.live.remove(gameId);
+        if (this.ongoing.remove(gameId) != null) this.stats.gameAbandoned();
+    }
+
+    void restoreCurrent(String playerId, long gameId) {
+        Session session = this.live.get(gameId);
+        if (session == null) return;
+        this.ongoing.replace(gameId, playerId);
+        this.current.put(playerId, session);
+    }
+
+    private Session register(Session session, String playerId) {
+        session.setId(this.nextId.getAndIncrement());
+        long startedAt = System.currentTimeMillis();
+        this.startTimes.set(session.getId(), startedAt);
+        this.stats.gameStarted();
+        this.live.put(session.getId(), session);
+        this.ongoing.put(session.getId(), playerId);
+        this.journal.created(session, playerId, startedAt);
+        this.historyVersion.increment();
+        return session;
+    }
+
+    /**
+     * Stores a game just started on this node as the current game of its player, replacing whatever game the
+     * player had, unless the player has started another game meanwhile. Done once the game is in the map of
+     * current games rather than while updating the map, so the repository is never waited for while holding a
+     * lock of the map. Caller must hold the lock of the created Session, taken before the game was put in the
+     * map, so that no request reads or changes the game before it is stored.
+     * @param created Session object of the game created for the player.
+     * @param session Session object the map of current games holds for the player, the created game or another.
+     * @param playerId Id of the player.
+     * @return Session object given as session.
+     * */
+    private Session publish(Session created, Session session, String playerId) {
+        if (this.shared == null || session != created) return session;
+        // A newer game of the same player started meanwhile is stored by its own request instead
+        while (this.current.get(playerId) == created) {
+            StoredGame stored = this.shared.load(playerId);
+            long expected = stored == null ? 0 : stored.getVersion();
+            StoredGame game = this.shared.baseline(created, playerId, expected + 1);
+            if (this.shared.compareAndSet(playerId, expected, game)) {
+                this.shared.link(created, new SharedGame(playerId, true, game, System.nanoTime()));
+                // Replaced by a newer game while being stored, after the newer game unlinked it
+                if (this.current.get(playerId) != created) this.shared.unlink(created);
+                break;
+            }
+        }
+        return session;
+    }
+
+    /**
+     * Brings the current game of a player up to date with the repository, unless it was read within the
+     * near-cache time. Guesses other nodes applied to the same game are applied to the Session, and a game
+     * another node started replaces it.
+     * @param playerId Id of the player.
+     * */
+    private void refresh(String playerId) {
+        Session local = this.current.get(playerId);
+        SharedGame shared = null;
+        if (local != null) {
+            shared = this.shared.get(local);
+            if (shared != null && this.shared.isFresh(shared)) return;
+            if (shared == null) shared = linkRestored(local, playerId);
+        }
+        StoredGame stored = this.shared.load(playerId);
+        if (local != null) {
+            synchronized (local) {
+                if (stored == null) {
+                    StoredGame game = shared.stored;
+                    if (game.getVersion() == 0
+                            && this.shared.compareAndSet(playerId, 0, game = this.shared.baseline(local, playerId, 1))) {
+                        shared.stored = game;
+                    }
+                    shared.checkedAt = System.nanoTime();
+                    return;
+                }
+                if (catchUp(local, stored)) return;
+            }
+        }
+        if (stored != null) adopt(playerId, local, stored);
+    }
+
+    /**
+     * Applies to a Session the guesses another node stored for the same game. Caller must hold the Session lock.
+     * @param session Session object of the game.
+     * @param stored StoredGame object read from the repository.
+     * @return true if the stored game is the game of the Session, false if it is another game.
+     * */
+    private boolean catchUp(Session session, StoredGame stored) {
+        SharedGame shared = this.shared.get(session);
+        if (!shared.stored.sameGame(stored)) return false;
+        if (stored.getVersion() > shared.stored.getVersion()) {
+            String guesses = stored.getGuesses();
+            for (int i = shared.stored.getGuesses().length(); i < guesses.length(); ++i) {
+                if (session.isGameFinished() || session.isAttempted(guesses.charAt(i))) continue;
+                session.guess(guesses.charAt(i));
+                recordGuess(session, guesses.charAt(i));
+            }
+            shared.stored = stored;
+        }
+        shared.checkedAt = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Makes a game stored by the repository the current game of its player on this node. A game this node
+     * started is taken from its history and brought up to date, any other game is rebuilt from the repository.
+     * @param playerId Id of the player.
+     * @param local Session object of the player's current game on this node, or null if there is none.
+     * @param stored StoredGame object read from the repository.
+     * */
+    private void adopt(String playerId, Session local, StoredGame stored) {
+        Session mine = this.shared.isLocal(stored) ? this.live.get(stored.getGameId()) : null;
+        Session adopted;
+        if (mine != null) {
+            linkRestored(mine, playerId);
+            synchronized (mine) {
+                catchUp(mine, stored);
+            }
+            adopted = mine;
+        } else {
+            adopted = stored.toSession(this.dictionary);
+            this.shared.link(adopted, new SharedGame(playerId, false, stored, System.nanoTime()));
+        }
+        Session result = this.current.compute(playerId, (id, previous) -> {
+            // Changed by another request meanwhile, which the next read brings up to date
+            if (previous != local) return previous;
+            if (previous != null && previous != adopted && isLocal(previous)) {
+                synchronized (previous) {
+                    // The player started a new game on another node, as newGame does here
+                    if (!previous.isGameFinished()) {
+                        this.live.remove(previous.getId());
+                        this.ongoing.remove(previous.getId());
+                        this.stats.gameAbandoned();
+                        this.journal.abandoned(previous);
+                        this.historyVersion.increment();
+                    } else {
+                        compact(previous);
+                    }
+                }
+            }
+            if (previous != null && previous != adopted) this.shared.unlink(previous);
+            return adopted;
+        });
+        if (result != adopted) this.shared.unlink(adopted);
+    }
+
+    /**
+     * Links a game of this node that has not been linked yet, such as one restored from the journal, as matching
+     * its stored state as far as the guesses it has.
+     * @param session Session object of the game.
+     * @param playerId Id of the player.
+     * @return SharedGame link of the game, the one already made if another request linked it first.
+     * */
+    private SharedGame linkRestored(Session session, String playerId) {
+        synchronized (session) {
+            SharedGame shared = this.shared.get(session);
+            if (shared == null) {
+                shared = new SharedGame(playerId, true, this.shared.baseline(session, playerId, 0), 0);
+                this.shared.link(session, shared);
+            }
+            return shared;
+        }
+    }
+
+    private boolean isLocal(Session session) {
+        return this.shared == null || this.shared.isLocal(session);
+    }
+
+    private void unlink(Session session) {
+        if (this.shared != null) this.shared.unlink(session);
+    }
+}
@@ -0,0 +1,29 @@
+package hangman.hangman;
+
+/**
+ * Link of a Session served by this node to the state of the game in the SessionRepository.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+class SharedGame {
+
+    /** Id of the player whose current game it is. */
+    final String playerId;
+
+    /** Whether the game was started on this node and is kept in its history. */
+    final boolean local;
+
+    /** Stored state the Session matches, read and replaced under the Session lock. */
+    StoredGame stored;
+
+    /** System.nanoTime of the last read of the stored state, or 0 to read it again on the next request. */
+    volatile long checkedAt;
+
+    SharedGame(String playerId, boolean local, StoredGame stored, long checkedAt) {
+        this.playerId = playerId;
+        this.local = local;
+        this.stored = stored;
+        this.checkedAt = checkedAt;
+    }
+}
@@ -0,0 +1,106 @@
+package hangman.hangman;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Links of the games a SessionStore serves to their state in the SessionRepository it shares them through. Kept
+ * by the store beside its Sessions rather than in them, so a Session holds the state of its game only. A game is
+ * linked once it has been stored in or read from the repository, and unlinked when it stops being the current
+ * game of its player.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+class SharedGames {
+
+    private final ConcurrentHashMap<Session, SharedGame> links = new ConcurrentHashMap<>();
+    private final SessionRepository repository;
+    private final String node;
+    private final long nearCacheNanos;
+
+    /**
+     * Creates the links of a store sharing its games through a repository.
+     * @param repository SessionRepository shared by the nodes.
+     * @param node Id of this node.
+     * @param nearCacheNanos Time a game read from the repository is served from memory without reading it again.
+     * */
+    SharedGames(SessionRepository repository, String node, long nearCacheNanos) {
+        this.repository = repository;
+        this.node = node;
+        this.nearCacheNanos = nearCacheNanos;
+    }
+
+    /**
+     * Returns the link of a game.
+     * @param session Session object of the game.
+     * @return SharedGame object, or null if the game has not been linked yet.
+     * */
+    SharedGame get(Session session) {
+        return this.links.get(session);
+    }
+
+    void link(Session session, SharedGame shared) {
+        this.links.put(session, shared);
+    }
+
+    void unlink(Session session) {
+        this.links.remove(session);
+    }
+
+    /**
+     * Tells whether a game was started on this node, as games not linked yet always are.
+     * @param session Session object of the game.
+     * @return true if the game is kept in the history of this node.
+     * */
+    boolean isLocal(Session session) {
+        SharedGame shared = this.links.get(session);
+        return shared == null || shared.local;
+    }
+
+    /**
+     * Tells whether a stored game was started on this node.
+     * @param stored StoredGame object read from the repository.
+     * @return true if this node started the game.
+     * */
+    boolean isLocal(StoredGame stored) {
+        return stored.getNode().equals(this.node);
+    }
+
+    /**
+     * Tells whether the stored state of a game was read within the near-cache time.
+     * @param shared SharedGame link of the game.
+     * @return true if the game can be served without reading it again.
+     * */
+    boolean isFresh(SharedGame shared) {
+        return System.nanoTime() - shared.checkedAt < this.nearCacheNanos;
+    }
+
+    /**
+     * Describes a game of this node as a stored game. Caller must hold the Session lock.
+     * @param session Session object of the game.
+     * @param playerId Id of the player.
+     * @param version Version of the stored game, or 0 if the version of its stored state is not known.
+     * @return StoredGame object with the guesses of the Session.
+     * */
+    StoredGame baseline(Session session, String playerId, long version) {
+        return new StoredGame(version, playerId, this.node, session.getId(), session.getWordId(), session.getSecretWord(),
+                new String(session.getGuessHistory()));
+    }
+
+    StoredGame load(String playerId) {
+        try {
+            return this.repository.load(playerId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the game of player " + playerId, e);
+        }
+    }
+
+    boolean compareAndSet(String playerId, long expectedVersion, StoredGame game) {
+        try {
+            return this.repository.compareAndSet(playerId, expectedVersion, game);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store the game of player " + playerId, e);
+        }
+    }
+}
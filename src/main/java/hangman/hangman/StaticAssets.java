@@ -0,0 +1,168 @@
+package hangman.hangman;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves the static files prepared by AssetPipeline from memory. Every file and its gzipped copy are read once
+ * at startup, and each request is answered by writing the bytes of one of them as they are, without reading,
+ * compressing or copying anything per request.
+ *
+ * Files with a hashed name never change, so they are cached by browsers for a year as immutable. Pages keep
+ * their names and must be revalidated, which their ETag turns into a 304 without a body while they are
+ * unchanged. The gzipped copy is sent to clients accepting gzip. Requests for anything else, or made when the
+ * asset build has not run, go on to the default static resource handling.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class StaticAssets implements Filter {
+
+    public static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    public static final String REVALIDATE = "no-cache";
+
+    private static final Logger log = LoggerFactory.getLogger(StaticAssets.class);
+    private static final String ASSETS = "/assets/";
+
+    private final Map<String, Asset> assets;
+
+    private StaticAssets(Map<String, Asset> assets) {
+        this.assets = assets;
+    }
+
+    /**
+     * Loads the files listed in the manifest written by AssetPipeline on the classpath.
+     * @return StaticAssets object serving the files, or serving nothing if there is no manifest.
+     * */
+    public static StaticAssets load() throws IOException {
+        Map<String, Asset> assets = new HashMap<>();
+        InputStream manifest = StaticAssets.class.getResourceAsStream(ASSETS + AssetPipeline.MANIFEST);
+        if (manifest == null) {
+            log.info("No asset manifest on the classpath, static files are served without hashing or precompression");
+            return new StaticAssets(assets);
+        }
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(manifest, StandardCharsets.UTF_8))) {
+            for (String line; (line = lines.readLine()) != null; ) {
+                String[] fields = line.split(" ");
+                if (fields.length != 3) continue;
+                byte[] content = read(ASSETS + fields[1]);
+                if (content == null) throw new IOException("Missing asset " + fields[1] + " listed in the manifest");
+                boolean immutable = fields[0].startsWith(AssetPipeline.ASSET_PATH);
+                assets.put(fields[0], new Asset(content, read(ASSETS + fields[1] + AssetPipeline.GZIP_SUFFIX),
+                        contentType(fields[1]), fields[2], immutable ? IMMUTABLE : REVALIDATE));
+            }
+        }
+        return new StaticAssets(assets);
+    }
+
+    /**
+     * Returns the number of files served.
+     * @return int count of paths served from memory.
+     * */
+    public int size() {
+        return this.assets.size();
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        String method = request.getMethod();
+        Asset asset = method.equals("GET") || method.equals("HEAD")
+                ? this.assets.get(request.getRequestURI().substring(request.getContextPath().length())) : null;
+        if (asset == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean gzip = asset.gzipped != null && acceptsGzip(request.getHeader("Accept-Encoding"));
+        response.setHeader("Cache-Control", asset.cacheControl);
+        response.setHeader("Vary", "Accept-Encoding");
+        response.setHeader("ETag", gzip ? asset.gzipEtag : asset.etag);
+        // Both encodings share the content hash, and either one cached by the client is still valid
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(asset.hash) || ifNoneMatch.equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        byte[] body = gzip ? asset.gzipped : asset.content;
+        if (gzip) response.setHeader("Content-Encoding", "gzip");
+        response.setContentType(asset.contentType);
+        response.setContentLength(body.length);
+        if (method.equals("GET")) response.getOutputStream().write(body);
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    private static String contentType(String name) {
+        if (name.endsWith(".html")) return "text/html;charset=UTF-8";
+        String type = URLConnection.guessContentTypeFromName(name);
+        return type != null ? type : "application/octet-stream";
+    }
+
+    private static byte[] read(String resource) throws IOException {
+        try (InputStream in = StaticAssets.class.getResourceAsStream(resource)) {
+            if (in == null) return null;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            for (int n; (n = in.read(chunk)) > 0; ) bytes.write(chunk, 0, n);
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * One file served, with its headers worked out in advance.
+     * */
+    private static class Asset {
+
+        private final byte[] content;
+        private final byte[] gzipped;
+        private final String contentType;
+        private final String hash;
+        private final String etag;
+        private final String gzipEtag;
+        private final String cacheControl;
+
+        private Asset(byte[] content, byte[] gzipped, String contentType, String hash, String cacheControl) {
+            this.content = content;
+            this.gzipped = gzipped;
+            this.contentType = contentType;
+            this.hash = hash;
+            this.etag = '"' + hash + '"';
+            this.gzipEtag = "\"" + hash + "-gz\"";
+            this.cacheControl = cacheControl;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package hangman.hangman;
+
+/**
+ * Acts as AJAX container for the message from server to client containing the aggregate statistics of the
+ * games played on this node.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class StatsResponse {
+
+    private long gamesStarted;
+    private long gamesOngoing;
+    private long gamesWon;
+    private long gamesLost;
+    private long gamesAbandoned;
+    private double winRate;
+    private long[] wrongGuessHistogram;
+
+    public long getGamesStarted() {
+        return gamesStarted;
+    }
+
+    public void setGamesStarted(long gamesStarted) {
+        this.gamesStarted = gamesStarted;
+    }
+
+    public long getGamesOngoing() {
+        return gamesOngoing;
+    }
+
+    public void setGamesOngoing(long gamesOngoing) {
+        this.gamesOngoing = gamesOngoing;
+    }
+
+    public long getGamesWon() {
+        return gamesWon;
+    }
+
+    public void setGamesWon(long gamesWon) {
+        this.gamesWon = gamesWon;
+    }
+
+    public long getGamesLost() {
+        return gamesLost;
+    }
+
+    public void setGamesLost(long gamesLost) {
+        this.gamesLost = gamesLost;
+    }
+
+    public long getGamesAbandoned() {
+        return gamesAbandoned;
+    }
+
+    public void setGamesAbandoned(long gamesAbandoned) {
+        this.gamesAbandoned = gamesAbandoned;
+    }
+
+    /**
+     * Getter for the share of finished games that were won.
+     * @return double between 0 and 1, or 0 if no game has finished.
+     * */
+    public double getWinRate() {
+        return winRate;
+    }
+
+    public void setWinRate(double winRate) {
+        this.winRate = winRate;
+    }
+
+    /**
+     * Getter for the histogram of wrong guess counts of finished games.
+     * @return long array with the number of finished games that had i wrong guesses at index i.
+     * */
+    public long[] getWrongGuessHistogram() {
+        return wrongGuessHistogram;
+    }
+
+    public void setWrongGuessHistogram(long[] wrongGuessHistogram) {
+        this.wrongGuessHistogram = wrongGuessHistogram;
+    }
+}
@@ -0,0 +1,119 @@
+package hangman.hangman;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * State of a game as kept in a SessionRepository: the secret word and the letters guessed in order, from
+ * which the rest of the game state is replayed. A game is identified across nodes by the node that started
+ * it and its id on that node.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class StoredGame {
+
+    private final long version;
+    private final String playerId;
+    private final String node;
+    private final long gameId;
+    private final int wordId;
+    private final String secretWord;
+    private final String guesses;
+
+    public StoredGame(long version, String playerId, String node, long gameId, int wordId, String secretWord, String guesses) {
+        this.version = version;
+        this.playerId = playerId;
+        this.node = node;
+        this.gameId = gameId;
+        this.wordId = wordId;
+        this.secretWord = secretWord;
+        this.guesses = guesses;
+    }
+
+    /**
+     * Returns the state of the game after one more guess, one version later.
+     * @param letter Letter guessed, not attempted before.
+     * @return StoredGame object with the letter appended to the guesses.
+     * */
+    public StoredGame withGuess(char letter) {
+        return new StoredGame(this.version + 1, this.playerId, this.node, this.gameId, this.wordId, this.secretWord, this.guesses + letter);
+    }
+
+    /**
+     * Checks whether this is a state of the same game as another stored game.
+     * @param other StoredGame object to compare with.
+     * @return true if both games were started by the same node under the same id.
+     * */
+    public boolean sameGame(StoredGame other) {
+        return this.gameId == other.gameId && this.node.equals(other.node);
+    }
+
+    /**
+     * Rebuilds the Session of the game by replaying its guesses.
+     * @param dictionary WordDictionary the secret word was picked from.
+     * @return Session object in the state of this stored game, with the id given by its node.
+     * */
+    public Session toSession(WordDictionary dictionary) {
+        boolean fromDictionary = this.wordId >= 0 && this.wordId < dictionary.size() && dictionary.word(this.wordId).equals(this.secretWord);
+        Session session = fromDictionary ? new Session(dictionary, this.wordId) : new Session(this.secretWord);
+        session.setId(this.gameId);
+        for (int i = 0; i < this.guesses.length(); ++i) session.guess(this.guesses.charAt(i));
+        return session;
+    }
+
+    /**
+     * Writes the game in the binary form read by read.
+     * @param out DataOutputStream to write to.
+     * */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeLong(this.version);
+        out.writeUTF(this.playerId);
+        out.writeUTF(this.node);
+        out.writeLong(this.gameId);
+        out.writeInt(this.wordId);
+        out.writeUTF(this.secretWord);
+        out.writeUTF(this.guesses);
+    }
+
+    /**
+     * Reads a game written by write.
+     * @param in DataInputStream to read from.
+     * @return StoredGame object read.
+     * */
+    public static StoredGame read(DataInputStream in) throws IOException {
+        return new StoredGame(in.readLong(), in.readUTF(), in.readUTF(), in.readLong(), in.readInt(), in.readUTF(), in.readUTF());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    public int getWordId() {
+        return wordId;
+    }
+
+    public String getSecretWord() {
+        return secretWord;
+    }
+
+    /**
+     * Getter for the letters guessed, in the order they were guessed.
+     * @return String with one character per attempted letter.
+     * */
+    public String getGuesses() {
+        return guesses;
+    }
+}
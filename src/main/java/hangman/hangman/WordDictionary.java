@@ -0,0 +1,203 @@
+package hangman.hangman;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only dictionary of secret words shared by all game sessions. Words are loaded from a plain word list
+ * with one word per line, which is memory-mapped and indexed once, so the words themselves stay off the heap
+ * and every word is identified by its position in the list.
+ *
+ * Only lines of 1 to Session.MAX_WORD_LENGTH ASCII letters are taken as words; blank lines, comments starting
+ * with '#' and anything else are skipped. Picking a random word, overall or of a given length, is a constant
+ * time lookup.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class WordDictionary {
+
+    private static final String BUILT_IN = "/words.txt";
+
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+    private final byte[] lengths;
+    private final int[][] byLength;
+
+    private WordDictionary(ByteBuffer buffer) {
+        this.buffer = buffer;
+        int count = 0;
+        int[] perLength = new int[Session.MAX_WORD_LENGTH + 1];
+        for (int start = 0, end; start < buffer.limit(); start = end + 1) {
+            end = lineEnd(buffer, start);
+            int length = wordLength(buffer, start, end);
+            if (length == 0) continue;
+            ++count;
+            ++perLength[length];
+        }
+        this.offsets = new int[count];
+        this.lengths = new byte[count];
+        this.byLength = new int[Session.MAX_WORD_LENGTH + 1][];
+        for (int length = 0; length < perLength.length; ++length) this.byLength[length] = new int[perLength[length]];
+        Arrays.fill(perLength, 0);
+        int id = 0;
+        for (int start = 0, end; start < buffer.limit(); start = end + 1) {
+            end = lineEnd(buffer, start);
+            int length = wordLength(buffer, start, end);
+            if (length == 0) continue;
+            this.offsets[id] = start;
+            this.lengths[id] = (byte) length;
+            this.byLength[length][perLength[length]++] = id;
+            ++id;
+        }
+    }
+
+    /**
+     * Memory-maps and indexes a word list file.
+     * @param file Path of the word list, at most 2 GB, holding at least one word.
+     * @return WordDictionary object holding the words of the file.
+     * */
+    public static WordDictionary load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Word list larger than 2 GB: " + file);
+            WordDictionary dictionary = new WordDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (dictionary.size() == 0) throw new IOException("Word list without any word: " + file);
+            return dictionary;
+        }
+    }
+
+    /**
+     * Returns the dictionary of words shipped with the application.
+     * @return WordDictionary object shared by all callers.
+     * */
+    public static WordDictionary builtIn() {
+        return BuiltIn.DICTIONARY;
+    }
+
+    /**
+     * Returns the number of words in the dictionary.
+     * @return int count of words.
+     * */
+    public int size() {
+        return this.offsets.length;
+    }
+
+    /**
+     * Decodes a word of the dictionary.
+     * @param id Id of the word.
+     * @return String of the word.
+     * */
+    public String word(int id) {
+        int offset = this.offsets[id];
+        char[] letters = new char[this.lengths[id]];
+        for (int i = 0; i < letters.length; ++i) letters[i] = (char) this.buffer.get(offset + i);
+        return new String(letters);
+    }
+
+    /**
+     * Returns the ids of all words of the given length, for building indexes over the words. Callers must not
+     * modify the array.
+     * @param length Length of the words.
+     * @return int array of word ids in the order of the word list, empty if there are none.
+     * */
+    int[] idsOfLength(int length) {
+        if (length < 1 || length >= this.byLength.length) return new int[0];
+        return this.byLength[length];
+    }
+
+    /**
+     * Returns the length of a word without decoding it.
+     * @param id Id of the word.
+     * @return int number of letters of the word.
+     * */
+    int length(int id) {
+        return this.lengths[id];
+    }
+
+    /**
+     * Reads one letter of a word without decoding the whole word.
+     * @param id Id of the word.
+     * @param position Position of the letter, below the length of the word.
+     * @return char letter as it appears in the word list.
+     * */
+    char letter(int id, int position) {
+        return (char) this.buffer.get(this.offsets[id] + position);
+    }
+
+    /**
+     * Computes a checksum of the word list, for telling whether data precomputed from a word list, such as the
+     * scores of WordDifficulty, still matches it.
+     * @return long CRC32 of the bytes of the word list.
+     * */
+    long fingerprint() {
+        CRC32 crc = new CRC32();
+        crc.update(this.buffer.duplicate());
+        return crc.getValue();
+    }
+
+    /**
+     * Picks a random word. A dictionary always holds at least one word, as load(Path) rejects lists without any.
+     * @return int id of the word.
+     * */
+    public int randomWordId() {
+        return ThreadLocalRandom.current().nextInt(this.offsets.length);
+    }
+
+    /**
+     * Picks a random word of the given length.
+     * @param length Length of the word.
+     * @return int id of the word, or -1 if the dictionary has no word of that length.
+     * */
+    public int randomWordId(int length) {
+        int[] ids = idsOfLength(length);
+        return ids.length == 0 ? -1 : ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static int lineEnd(ByteBuffer buffer, int start) {
+        int end = start;
+        while (end < buffer.limit() && buffer.get(end) != '\n') ++end;
+        return end;
+    }
+
+    /**
+     * Checks whether a line holds a word.
+     * @return int length of the word, or 0 if the line is not a word.
+     * */
+    private static int wordLength(ByteBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') --end;
+        int length = end - start;
+        if (length > Session.MAX_WORD_LENGTH) return 0;
+        for (int i = start; i < end; ++i) {
+            byte b = buffer.get(i);
+            if (!(b >= 'a' && b <= 'z') && !(b >= 'A' && b <= 'Z')) return 0;
+        }
+        return length;
+    }
+
+    /**
+     * Holds the built-in dictionary, loaded from the classpath on first use.
+     * */
+    private static class BuiltIn {
+
+        private static final WordDictionary DICTIONARY = loadBuiltIn();
+
+        private static WordDictionary loadBuiltIn() {
+            try (InputStream in = WordDictionary.class.getResourceAsStream(BUILT_IN)) {
+                if (in == null) throw new IllegalStateException("Missing built-in word list " + BUILT_IN);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] chunk = new byte[8192];
+                for (int n; (n = in.read(chunk)) > 0; ) bytes.write(chunk, 0, n);
+                return new WordDictionary(ByteBuffer.wrap(bytes.toByteArray()).asReadOnlyBuffer());
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read built-in word list " + BUILT_IN, e);
+            }
+        }
+    }
+}
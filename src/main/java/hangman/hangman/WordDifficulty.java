@@ -0,0 +1,153 @@
+package hangman.hangman;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Difficulty tiers of the words of a WordDictionary, read from the score file written by DifficultyScorer.
+ *
+ * Words are split into three tiers of about the same size by their scores, easiest first, and the ids of the
+ * words of each tier are kept in an array, so picking a random word of a tier is a constant time lookup. If the
+ * score file is missing, or was written for a different word list, the words are scored at startup instead.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class WordDifficulty {
+
+    public static final String[] TIERS = {"easy", "medium", "hard"};
+    public static final String BUILT_IN = "/words.scores";
+
+    private static final Logger log = LoggerFactory.getLogger(WordDifficulty.class);
+
+    private final byte[] scores;
+    private final int[][] tiers = new int[TIERS.length][];
+    private final int[] tierOfScore = new int[256];
+
+    private WordDifficulty(byte[] scores) {
+        this.scores = scores;
+        int[] histogram = new int[256];
+        for (byte score : scores) ++histogram[score & 0xff];
+        // Each score goes to the tier its words fall in the middle of, once all easier words are counted
+        int[] sizes = new int[TIERS.length];
+        long seen = 0;
+        for (int score = 0; score < 256; ++score) {
+            long middle = seen + histogram[score] / 2;
+            int tier = (int) Math.min(TIERS.length - 1, middle * TIERS.length / Math.max(1, scores.length));
+            this.tierOfScore[score] = tier;
+            sizes[tier] += histogram[score];
+            seen += histogram[score];
+        }
+        for (int tier = 0; tier < TIERS.length; ++tier) this.tiers[tier] = new int[sizes[tier]];
+        int[] filled = new int[TIERS.length];
+        for (int id = 0; id < scores.length; ++id) {
+            int tier = this.tierOfScore[scores[id] & 0xff];
+            this.tiers[tier][filled[tier]++] = id;
+        }
+    }
+
+    /**
+     * Reads the scores of a dictionary from a score file, or scores its words if the file does not match it.
+     * @param scoreFile Stream of the score file, or null if there is none. Closed when read.
+     * @param dictionary WordDictionary the scores are for.
+     * @return WordDifficulty object over the words of the dictionary.
+     * */
+    public static WordDifficulty load(InputStream scoreFile, WordDictionary dictionary) throws IOException {
+        if (dictionary.size() == 0) throw new IllegalArgumentException("Cannot tier a word list without any word");
+        byte[] scores = scoreFile == null ? null : read(scoreFile, dictionary);
+        if (scores == null) {
+            log.warn("No difficulty scores for the word list, scoring {} words at startup", dictionary.size());
+            scores = DifficultyScorer.score(dictionary, Runtime.getRuntime().availableProcessors());
+        }
+        return new WordDifficulty(scores);
+    }
+
+    /**
+     * Reads the scores of a dictionary from a score file.
+     * @param scoreFile Path of the score file, or of a missing file.
+     * @param dictionary WordDictionary the scores are for.
+     * @return WordDifficulty object over the words of the dictionary.
+     * */
+    public static WordDifficulty load(Path scoreFile, WordDictionary dictionary) throws IOException {
+        return load(Files.exists(scoreFile) ? Files.newInputStream(scoreFile) : null, dictionary);
+    }
+
+    /**
+     * Returns the tiers of the built-in dictionary, scored by the build.
+     * @return WordDifficulty object over the words of the built-in dictionary.
+     * */
+    public static WordDifficulty builtIn() {
+        try {
+            return load(WordDifficulty.class.getResourceAsStream(BUILT_IN), WordDictionary.builtIn());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read built-in difficulty scores " + BUILT_IN, e);
+        }
+    }
+
+    /**
+     * Looks up a tier by name.
+     * @param name Name of the tier, such as "hard".
+     * @return int index of the tier, or -1 if there is no tier of that name.
+     * */
+    public static int tier(String name) {
+        for (int tier = 0; tier < TIERS.length; ++tier) if (TIERS[tier].equalsIgnoreCase(name)) return tier;
+        return -1;
+    }
+
+    /**
+     * Picks a random word of a tier.
+     * @param tier Index of the tier, as returned by tier(String).
+     * @return int id of the word, or -1 if the tier has no words, as a small word list leaves some tiers empty.
+     * */
+    public int randomWordId(int tier) {
+        int[] ids = this.tiers[tier];
+        return ids.length > 0 ? ids[ThreadLocalRandom.current().nextInt(ids.length)] : -1;
+    }
+
+    /**
+     * Returns the difficulty score of a word.
+     * @param id Id of the word.
+     * @return int score from 0, easiest, to 255, hardest.
+     * */
+    public int score(int id) {
+        return this.scores[id] & 0xff;
+    }
+
+    /**
+     * Returns the tier of a word.
+     * @param id Id of the word.
+     * @return int index of the tier holding the word.
+     * */
+    public int tierOfWord(int id) {
+        return this.tierOfScore[this.scores[id] & 0xff];
+    }
+
+    /**
+     * Returns the number of words of a tier.
+     * @param tier Index of the tier.
+     * @return int count of words.
+     * */
+    public int tierSize(int tier) {
+        return this.tiers[tier].length;
+    }
+
+    private static byte[] read(InputStream scoreFile, WordDictionary dictionary) throws IOException {
+        try (DataInputStream in = new DataInputStream(scoreFile)) {
+            if (in.readInt() != DifficultyScorer.MAGIC) throw new IOException("Not a difficulty score file");
+            int count = in.readInt();
+            long fingerprint = in.readLong();
+            if (count != dictionary.size() || fingerprint != dictionary.fingerprint()) {
+                log.warn("Difficulty scores were written for a different word list, ignoring them");
+                return null;
+            }
+            byte[] scores = new byte[count];
+            in.readFully(scores);
+            return scores;
+        }
+    }
+}
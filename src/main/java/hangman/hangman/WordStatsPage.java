@@ -0,0 +1,34 @@
+package hangman.hangman;
+
+/**
+ * Acts as AJAX container for the message from server to client containing one page of the statistics of the
+ * secret words, in alphabetical order, and the cursor to request the following page with.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class WordStatsPage {
+
+    private WordStatsResponse[] words;
+    private String nextCursor;
+
+    public WordStatsResponse[] getWords() {
+        return words;
+    }
+
+    public void setWords(WordStatsResponse[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Getter for the cursor of the following page.
+     * @return String cursor to pass to the next request, or null if this is the last page.
+     * */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
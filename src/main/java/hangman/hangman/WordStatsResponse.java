@@ -0,0 +1,48 @@
+package hangman.hangman;
+
+/**
+ * Acts as AJAX container for the message from server to client containing the statistics of one secret word
+ * across all finished games it was picked for.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class WordStatsResponse {
+
+    private String word;
+    private long played;
+    private long won;
+    private double winRate;
+
+    public String getWord() {
+        return word;
+    }
+
+    public void setWord(String word) {
+        this.word = word;
+    }
+
+    public long getPlayed() {
+        return played;
+    }
+
+    public void setPlayed(long played) {
+        this.played = played;
+    }
+
+    public long getWon() {
+        return won;
+    }
+
+    public void setWon(long won) {
+        this.won = won;
+    }
+
+    public double getWinRate() {
+        return winRate;
+    }
+
+    public void setWinRate(double winRate) {
+        this.winRate = winRate;
+    }
+}
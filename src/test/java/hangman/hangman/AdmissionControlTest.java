@@ -0,0 +1,186 @@
+package hangman.hangman;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the AdmissionControl class.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class AdmissionControlTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    /**
+     * Check a player is admitted a burst at once, then at its rate, and is rejected with 429 and the seconds
+     * until its next token in between, without affecting other players. Expensive requests take more tokens.
+     * */
+    @Test
+    public void playerLimitedToRate() throws Exception {
+        AdmissionControl admission = new AdmissionControl(2, 3, 0, 0, 1, 1, 100, this.now::get);
+        for (int i = 0; i < 3; ++i) assertEquals(200, get(admission, "/submitGuess", "flooder").getStatus());
+        MockHttpServletResponse rejected = get(admission, "/submitGuess", "flooder");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(200, get(admission, "/submitGuess", "player").getStatus());
+
+        this.now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(200, get(admission, "/submitGuess", "flooder").getStatus());
+        assertEquals(429, get(admission, "/submitGuess", "flooder").getStatus());
+        assertEquals(2, admission.rejections(AdmissionControl.RATE));
+
+        AdmissionControl slow = new AdmissionControl(0.1, 1, 0, 0, 1, 1, 100, this.now::get);
+        assertEquals(200, get(slow, "/submitGuess", "flooder").getStatus());
+        assertEquals("10", get(slow, "/submitGuess", "flooder").getHeader("Retry-After"));
+
+        AdmissionControl weighted = new AdmissionControl(1, 4, 0, 0, 3, 1, 100, this.now::get);
+        assertEquals(200, get(weighted, "/gamesHistory", "flooder").getStatus());
+        assertEquals(200, get(weighted, "/submitGuess", "flooder").getStatus());
+        assertEquals(429, get(weighted, "/submitGuess", "flooder").getStatus());
+        assertEquals(200, get(weighted, "/stats/words", "stats").getStatus());
+        assertEquals(200, get(weighted, "/submitGuess", "stats").getStatus());
+        assertEquals(429, get(weighted, "/submitGuess", "stats").getStatus());
+        this.now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        MockHttpServletResponse history = get(weighted, "/gamesHistory", "flooder");
+        assertEquals(429, history.getStatus());
+        assertEquals("1", history.getHeader("Retry-After"));
+    }
+
+    /**
+     * Check a client sending a new player cookie with every request is still limited by the rate of its address,
+     * without affecting other addresses, and requests without a cookie are limited by their address alone.
+     * Without an address rate, players behind one address are limited apart, and requests without a cookie
+     * share the bucket of their address as a player.
+     * */
+    @Test
+    public void addressLimitedWhateverCookies() throws Exception {
+        AdmissionControl admission = new AdmissionControl(2, 3, 4, 6, 1, 1, 100, this.now::get);
+        for (int i = 0; i < 6; ++i) {
+            assertEquals(200, get(admission, "/newGameSession", "rotating-" + i, "10.0.0.1").getStatus());
+        }
+        MockHttpServletResponse rejected = get(admission, "/newGameSession", "rotating-6", "10.0.0.1");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(6, admission.playerCount());
+        assertEquals(200, get(admission, "/newGameSession", "player", "10.0.0.2").getStatus());
+
+        this.now.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(200, get(admission, "/newGameSession", null, "10.0.0.1").getStatus());
+        assertEquals(429, get(admission, "/newGameSession", null, "10.0.0.1").getStatus());
+        assertEquals(7, admission.playerCount());
+        assertEquals(2, admission.addressCount());
+
+        AdmissionControl players = new AdmissionControl(2, 3, 0, 0, 1, 1, 100, this.now::get);
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(200, get(players, "/newGameSession", "behind-nat-" + i, "10.0.0.1").getStatus());
+        }
+        for (int i = 0; i < 3; ++i) assertEquals(200, get(players, "/newGameSession", null, "10.0.0.1").getStatus());
+        assertEquals(429, get(players, "/newGameSession", null, "10.0.0.1").getStatus());
+        assertEquals(0, players.addressCount());
+    }
+
+    /**
+     * Check expensive endpoints are rejected while as many are in progress as allowed, and admitted again once
+     * one completes.
+     * */
+    @Test
+    public void expensiveEndpointsLimited() throws Exception {
+        AdmissionControl admission = new AdmissionControl(1000, 1000, 0, 0, 1, 1, 100, this.now::get);
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[2];
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                try {
+                    nested[0] = get(admission, "/gamesHistory", "other");
+                    nested[1] = get(admission, "/submitGuess", "other");
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        MockHttpServletRequest request = request("/gamesHistory", "player");
+        admission.doFilter(request, new MockHttpServletResponse(), chain);
+        assertEquals(429, nested[0].getStatus());
+        assertNotNull(nested[0].getHeader("Retry-After"));
+        assertEquals(200, nested[1].getStatus());
+        assertEquals(1, admission.rejections(AdmissionControl.CONCURRENCY));
+        assertEquals(200, get(admission, "/gamesHistory", "other").getStatus());
+    }
+
+    /**
+     * Check buckets of idle players are removed by a sweep, and players beyond the maximum share one bucket.
+     * */
+    @Test
+    public void idlePlayersEvicted() throws Exception {
+        AdmissionControl admission = new AdmissionControl(10, 2, 0, 0, 1, 1, 3, this.now::get);
+        for (int i = 0; i < 10; ++i) get(admission, "/submitGuess", "player-" + i);
+        assertEquals(4, admission.playerCount());
+        assertEquals(429, get(admission, "/submitGuess", "player-9").getStatus());
+
+        this.now.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        admission.sweep();
+        assertEquals(4, admission.playerCount());
+        this.now.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        admission.sweep();
+        assertEquals(0, admission.playerCount());
+        assertEquals(200, get(admission, "/submitGuess", "player-9").getStatus());
+    }
+
+    /**
+     * Check concurrent requests of one player are admitted exactly up to the burst.
+     * */
+    @Test
+    public void concurrentRequestsAdmittedUpToBurst() throws Exception {
+        AdmissionControl admission = new AdmissionControl(1, 500, 0, 0, 1, 1, 100, this.now::get);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 8; ++t) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int admitted = 0;
+                for (int i = 0; i < 1000; ++i) if (admission.admit("127.0.0.1", "bot", 1) == 0) ++admitted;
+                return admitted;
+            }));
+        }
+        start.countDown();
+        int admitted = 0;
+        for (Future<Integer> result : results) admitted += result.get();
+        pool.shutdown();
+        assertEquals(500, admitted);
+    }
+
+    private static MockHttpServletResponse get(AdmissionControl admission, String path, String player) throws Exception {
+        return get(admission, path, player, "127.0.0.1");
+    }
+
+    private static MockHttpServletResponse get(AdmissionControl admission, String path, String player,
+                                               String address) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest request = request(path, player);
+        request.setRemoteAddr(address);
+        admission.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String player) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (player != null) request.setCookies(new Cookie(RController.PLAYER_COOKIE, player));
+        return request;
+    }
+}
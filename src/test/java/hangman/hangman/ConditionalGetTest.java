@@ -0,0 +1,71 @@
+package hangman.hangman;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the ETags and 304 responses of the polled endpoints of the RController class.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class ConditionalGetTest {
+
+    SessionStore store = new SessionStore();
+    DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+    RController controller = new RController(store, GameExecution.blocking(), new GameMetrics(store),
+            beans.getBeanProvider(HintIndex.class), beans.getBeanProvider(Rooms.class),
+            beans.getBeanProvider(WordDifficulty.class));
+
+    /**
+     * Check a resumed game is answered with 304 while unchanged, and with the new state as soon as it changes.
+     * */
+    @Test
+    public void resumeNotModifiedUntilGuess() throws Exception {
+        store.newGame("player").setSecretWord("Cat");
+        ResponseEntity<Object> first = reloadOrResume(null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        assertTrue(new String((byte[]) first.getBody()).contains("\"guessProgress\":\"_ _ _\""));
+
+        ResponseEntity<Object> unchanged = reloadOrResume(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertNull(unchanged.getBody());
+        assertEquals(etag, unchanged.getHeaders().getETag());
+        assertSame(first.getBody(), reloadOrResume(null).getBody());
+
+        store.applyGuess(store.lastGame("player"), new Guess('a'));
+        ResponseEntity<Object> changed = reloadOrResume(etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+        assertTrue(new String((byte[]) changed.getBody()).contains("\"guessProgress\":\"_ a _\""));
+    }
+
+    /**
+     * Check the history is answered with 304 while no game changes, and its cached body is replaced on a change.
+     * */
+    @Test
+    public void historyNotModifiedUntilGameChanges() throws Exception {
+        store.newGame("player").setSecretWord("Cat");
+        ResponseEntity<Object> first = controller.gamesHistory(null);
+        String etag = first.getHeaders().getETag();
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.gamesHistory(etag).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.gamesHistory("\"other\", " + etag).getStatusCode());
+        assertSame(first.getBody(), controller.gamesHistory(null).getBody());
+
+        store.applyGuess(store.lastGame("player"), new Guess('c'));
+        ResponseEntity<Object> changed = controller.gamesHistory(etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        String body = new String((byte[]) changed.getBody());
+        assertTrue(body, body.contains("\"guessProgress\":\"C _ _\""));
+        assertArrayEquals(controller.encodeHistory(), (byte[]) changed.getBody());
+    }
+
+    private ResponseEntity<Object> reloadOrResume(String ifNoneMatch) {
+        return controller.reloadOrResume("player", ifNoneMatch, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,106 @@
+package hangman.hangman;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.CloseReason;
+import javax.websocket.ContainerProvider;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.WebSocketContainer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the WebSocket game channel against a running server.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "hangman.journal.enabled=false")
+public class GameChannelTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SessionStore store;
+
+    /**
+     * Check guesses sent over the channel are applied to the last game of the player and answered with what
+     * they changed only.
+     * */
+    @Test
+    public void guessesAnsweredWithChanges() throws Exception {
+        Session session = this.store.newGame("channel-player");
+        session.setSecretWord("Cat");
+        BlockingQueue<Object> frames = new ArrayBlockingQueue<>(16);
+        javax.websocket.Session channel = connect("channel-player", frames);
+        assertEquals("{\"a\":\"c\",\"r\":[0],\"v\":\"C\",\"w\":0,\"m\":\"Correct!\"}", send(channel, frames, "c"));
+        assertEquals("{\"a\":\"x\",\"r\":[],\"v\":\"\",\"w\":1,\"m\":\"Nope...\"}", send(channel, frames, "x"));
+        assertEquals("{\"m\":\"Letter already attempted. Try a different letter.\"}", send(channel, frames, "c"));
+        assertEquals("{\"m\":\"Please enter a single letter.\"}", send(channel, frames, "ab"));
+        send(channel, frames, "a");
+        assertEquals("{\"a\":\"t\",\"r\":[2],\"v\":\"t\",\"w\":1,\"m\":\"Congratulations, you won!\"}",
+                send(channel, frames, "t"));
+        assertTrue(session.isGameFinished());
+        channel.close();
+    }
+
+    /**
+     * Check a channel opened without the player cookie is closed straight away.
+     * */
+    @Test
+    public void channelWithoutPlayerRejected() throws Exception {
+        BlockingQueue<Object> frames = new ArrayBlockingQueue<>(16);
+        connect(null, frames);
+        Object closed = frames.poll(5, TimeUnit.SECONDS);
+        assertTrue(closed instanceof CloseReason);
+        assertEquals(CloseReason.CloseCodes.VIOLATED_POLICY, ((CloseReason) closed).getCloseCode());
+    }
+
+    private javax.websocket.Session connect(String playerId, BlockingQueue<Object> frames) throws Exception {
+        ClientEndpointConfig config = ClientEndpointConfig.Builder.create()
+                .configurator(new ClientEndpointConfig.Configurator() {
+                    @Override
+                    public void beforeRequest(Map<String, List<String>> headers) {
+                        if (playerId != null) {
+                            headers.put("Cookie", Collections.singletonList(RController.PLAYER_COOKIE + "=" + playerId));
+                        }
+                    }
+                }).build();
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        return container.connectToServer(new Endpoint() {
+            @Override
+            public void onOpen(javax.websocket.Session channel, EndpointConfig endpointConfig) {
+                channel.addMessageHandler(String.class, new MessageHandler.Whole<String>() {
+                    @Override
+                    public void onMessage(String frame) {
+                        frames.add(frame);
+                    }
+                });
+            }
+
+            @Override
+            public void onClose(javax.websocket.Session channel, CloseReason closeReason) {
+                frames.add(closeReason);
+            }
+        }, config, URI.create("ws://localhost:" + this.port + GameChannel.PATH));
+    }
+
+    private Object send(javax.websocket.Session channel, BlockingQueue<Object> frames, String letter) throws Exception {
+        channel.getBasicRemote().sendText(letter);
+        return frames.poll(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,92 @@
+package hangman.hangman;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the game endpoints served in async execution mode against a running server.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"hangman.journal.enabled=false", "hangman.admission.enabled=false",
+                "hangman.execution.mode=async"})
+public class GameExecutionTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SessionStore store;
+
+    /**
+     * Check a game is started, guessed and resumed through the async endpoints, with the player cookie set on
+     * the first response.
+     * */
+    @Test
+    public void gamePlayedAsync() throws Exception {
+        HttpURLConnection connection = request("GET", "/newGameSession", null, null);
+        assertEquals(200, connection.getResponseCode());
+        String cookie = connection.getHeaderField("Set-Cookie");
+        assertTrue(cookie.startsWith(RController.PLAYER_COOKIE + "="));
+        String playerId = cookie.substring(RController.PLAYER_COOKIE.length() + 1, cookie.indexOf(';') < 0 ? cookie.length() : cookie.indexOf(';'));
+        assertTrue(connection.getContentType().startsWith("application/json"));
+        assertTrue(read(connection).contains("\"wrongGuessCount\":0"));
+
+        this.store.lastGame(playerId).setSecretWord("Cat");
+        connection = request("POST", "/submitGuess", playerId, "{\"value\":\"c\"}");
+        assertEquals(200, connection.getResponseCode());
+        assertNull(connection.getHeaderField("Set-Cookie"));
+        String body = read(connection);
+        assertTrue(body, body.contains("\"userMessage\":\"Correct!\""));
+
+        connection = request("POST", "/submitGuesses", playerId, "[{\"value\":\"a\"},{\"value\":\"t\"},{\"value\":\"x\"}]");
+        body = read(connection);
+        assertTrue(body, body.contains("\"outcomes\":[\"Hit\",\"Hit\"]"));
+        assertTrue(body, body.contains("Congratulations, you won!"));
+
+        connection = request("GET", "/reloadOrResume", playerId, null);
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(read(connection).contains("\"wrongGuessCount\":0"));
+        String etag = connection.getHeaderField("ETag");
+        connection = request("GET", "/reloadOrResume", playerId, null);
+        connection.setRequestProperty("If-None-Match", etag);
+        assertEquals(304, connection.getResponseCode());
+    }
+
+    private HttpURLConnection request(String method, String path, String playerId, String body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + this.port + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        if (playerId != null) connection.setRequestProperty("Cookie", RController.PLAYER_COOKIE + "=" + playerId);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "text/plain;charset=UTF-8");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return connection;
+    }
+
+    private static String read(HttpURLConnection connection) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[512];
+            for (int n; (n = in.read(buffer)) > 0; ) bytes.write(buffer, 0, n);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
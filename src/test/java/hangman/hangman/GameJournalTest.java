@@ -0,0 +1,280 @@
+package hangman.hangman;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import com.google.gson.Gson;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Recovery tests for the GameJournal class, restarting stores on top of the journal written by previous ones.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class GameJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GameJournal journal;
+    private SessionStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        restart();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.journal.close();
+    }
+
+    /**
+     * Check a restarted store has the same games, guesses, statuses and current games as before the restart.
+     * */
+    @Test
+    public void restartRestoresGames() throws Exception {
+        long lastId = playGames();
+        ArrayList<String> before = describe(this.store);
+        long current = this.store.lastGame("player1").getId();
+        String stats = new Gson().toJson(this.store.stats().summary());
+        String leaderboard = new Gson().toJson(this.store.leaderboard().top(10));
+        restart();
+        assertEquals(before, describe(this.store));
+        assertEquals(stats, new Gson().toJson(this.store.stats().summary()));
+        assertEquals(leaderboard, new Gson().toJson(this.store.leaderboard().top(10)));
+        assertEquals(current, this.store.lastGame("player1").getId());
+        assertEquals(lastId + 1, this.store.newGame("player9").getId());
+    }
+
+    /**
+     * Check restarts keep appending to the last segment instead of starting an empty one each, delete the empty
+     * segments earlier restarts left behind, and still restore every game.
+     * */
+    @Test
+    public void restartsReuseLastSegment() throws Exception {
+        playGames();
+        assertTrue(new File(this.folder.getRoot(), "journal-7").createNewFile());
+        assertTrue(new File(this.folder.getRoot(), "journal-8").createNewFile());
+        for (int i = 0; i < 3; ++i) restart();
+        this.store.applyGuess(this.store.lastGame("player0"), new Guess('q'));
+        ArrayList<String> before = describe(this.store);
+        restart();
+        assertEquals(before, describe(this.store));
+        String[] files = this.folder.getRoot().list();
+        Arrays.sort(files);
+        assertArrayEquals(new String[] {"journal-0", "journal-8"}, files);
+    }
+
+    /**
+     * Check a journal cut off in the middle of its last record restores every record before it, and that the
+     * restarted store keeps journaling correctly.
+     * */
+    @Test
+    public void tornLastRecordIgnored() throws Exception {
+        playGames();
+        Session session = this.store.lastGame("player0");
+        String progressBefore = session.getGuessProgress();
+        this.store.applyGuess(session, new Guess('q'));
+        this.journal.close();
+        File segment = latestSegment();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        restart();
+        session = this.store.lastGame("player0");
+        assertEquals(progressBefore, session.getGuessProgress());
+        assertFalse(session.isAttempted('q'));
+        this.store.applyGuess(session, new Guess('q'));
+        ArrayList<String> before = describe(this.store);
+        restart();
+        assertEquals(before, describe(this.store));
+    }
+
+    /**
+     * Check a corrupt record stops the replay of its segment.
+     * */
+    @Test
+    public void corruptRecordStopsReplay() throws Exception {
+        Session session = this.store.newGame("player0");
+        this.store.applyGuess(session, new Guess('x'));
+        this.store.applyGuess(session, new Guess('y'));
+        this.journal.close();
+        File segment = latestSegment();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xff);
+        }
+        restart();
+        assertEquals("[x]", this.store.lastGame("player0").getAttemptedString());
+    }
+
+    /**
+     * Check a snapshot replaces the segments before it, and that games survive a restart from the snapshot
+     * plus the segment written after it, which the restarted store keeps appending to.
+     * */
+    @Test
+    public void snapshotReplacesOlderSegments() throws Exception {
+        playGames();
+        this.journal.snapshot();
+        Session session = this.store.newGame("player2");
+        this.store.applyGuess(session, new Guess('e'));
+        ArrayList<String> before = describe(this.store);
+        restart();
+        assertEquals(before, describe(this.store));
+        String[] files = this.folder.getRoot().list();
+        Arrays.sort(files);
+        assertArrayEquals(new String[] {"journal-1", "snapshot-1"}, files);
+    }
+
+    /**
+     * Check the leaderboard is restored from a snapshot, and games finished after it are counted once, whether
+     * the snapshot saw them ongoing or not at all.
+     * */
+    @Test
+    public void snapshotRestoresLeaderboard() throws Exception {
+        playGames();
+        this.journal.snapshot();
+        Session session = this.store.lastGame("player1");
+        for (char letter = 'a'; !session.isGameFinished(); ++letter) this.store.applyGuess(session, new Guess(letter));
+        session = this.store.newGame("player2");
+        for (char letter = 'a'; !session.isGameFinished(); ++letter) this.store.applyGuess(session, new Guess(letter));
+        String leaderboard = new Gson().toJson(this.store.leaderboard().top(10));
+        assertEquals(2, this.store.leaderboard().player("player1").getGamesPlayed());
+        assertEquals(2, this.store.leaderboard().player("player2").getGamesPlayed());
+        restart();
+        assertEquals(leaderboard, new Gson().toJson(this.store.leaderboard().top(10)));
+        this.journal.snapshot();
+        restart();
+        assertEquals(leaderboard, new Gson().toJson(this.store.leaderboard().top(10)));
+    }
+
+    /**
+     * Check records wait for a write once the pending ones reach their limit, and are all restored afterwards.
+     * */
+    @Test
+    public void pendingRecordsLimited() throws Exception {
+        String directory = this.folder.newFolder().getPath();
+        GameJournal slow = new GameJournal(true, directory, 3600000, 1000000, 256);
+        SessionStore store = new SessionStore(slow, WordDictionary.builtIn());
+        store.open();
+        Thread writer = new Thread(() -> {
+            for (int p = 0; p < 20; ++p) store.newGame("player" + p);
+        });
+        writer.start();
+        writer.join(200);
+        assertTrue(writer.isAlive());
+        while (writer.isAlive()) {
+            slow.flush();
+            writer.join(10);
+        }
+        slow.close();
+        GameJournal reopened = new GameJournal(true, directory, 1, 1000000, 256);
+        SessionStore restored = new SessionStore(reopened, WordDictionary.builtIn());
+        restored.open();
+        for (int p = 0; p < 20; ++p) assertEquals(store.lastGame("player" + p).getId(), restored.lastGame("player" + p).getId());
+        reopened.close();
+    }
+
+    /**
+     * Check games played on many threads at once through a ring that wraps around several times, with
+     * records waiting for room, are all restored in order.
+     * */
+    @Test
+    public void concurrentRecordsRestored() throws Exception {
+        String directory = this.folder.newFolder().getPath();
+        GameJournal small = new GameJournal(true, directory, 1, 1000000, 1024);
+        SessionStore store = new SessionStore(small, WordDictionary.builtIn());
+        store.open();
+        Thread[] players = new Thread[8];
+        for (int p = 0; p < players.length; ++p) {
+            String player = "player" + p;
+            players[p] = new Thread(() -> {
+                for (int game = 0; game < 600; ++game) {
+                    Session session = store.newGame(player);
+                    for (char letter = 'a'; !session.isGameFinished(); ++letter) {
+                        store.applyGuess(session, new Guess(letter));
+                    }
+                }
+            });
+            players[p].start();
+        }
+        for (Thread player : players) player.join();
+        small.close();
+        GameJournal reopened = new GameJournal(true, directory, 1, 1000000, 1024);
+        SessionStore restored = new SessionStore(reopened, WordDictionary.builtIn());
+        restored.open();
+        assertEquals(4800, restored.history().size());
+        assertEquals(new Gson().toJson(store.stats().summary()), new Gson().toJson(restored.stats().summary()));
+        assertEquals(new Gson().toJson(store.leaderboard().top(10)), new Gson().toJson(restored.leaderboard().top(10)));
+        reopened.close();
+    }
+
+    /**
+     * Check an enabled journal refuses a relative directory, which would depend on where the server was started.
+     * */
+    @Test(expected = IllegalArgumentException.class)
+    public void relativeDirectoryRejected() {
+        new GameJournal(true, "data", 1, 1000000, 1 << 24);
+    }
+
+    /**
+     * Plays three games for each of three players: one abandoned after a guess, one played to the end, and one
+     * left ongoing after two guesses.
+     * @return id of the last game started.
+     * */
+    private long playGames() {
+        Session session = null;
+        for (int p = 0; p < 3; ++p) {
+            String player = "player" + p;
+            this.store.applyGuess(this.store.newGame(player), new Guess('t'));
+            session = this.store.newGame(player);
+            for (char letter = 'a'; !session.isGameFinished(); ++letter) this.store.applyGuess(session, new Guess(letter));
+            session = this.store.newGame(player);
+            this.store.applyGuess(session, new Guess('e'));
+            this.store.applyGuess(session, new Guess('z'));
+        }
+        return session.getId();
+    }
+
+    private ArrayList<String> describe(SessionStore store) {
+        ArrayList<String> games = new ArrayList<>();
+        for (HistoryResponse h : store.history()) {
+            games.add(h.getId() + " " + h.getSecretWord() + " " + h.getGuessProgress() + " " + h.getStatus());
+        }
+        for (int p = 0; p < 3; ++p) {
+            Session session = store.lastGame("player" + p);
+            games.add(session.getId() + " " + session.getAttemptedString() + " " + session.getWrongGuessCount());
+        }
+        return games;
+    }
+
+    private File latestSegment() {
+        File latest = null;
+        long latestSegment = -1;
+        for (File file : this.folder.getRoot().listFiles()) {
+            if (!file.getName().startsWith("journal-") || file.length() == 0) continue;
+            long segment = Long.parseLong(file.getName().substring("journal-".length()));
+            if (segment > latestSegment) {
+                latest = file;
+                latestSegment = segment;
+            }
+        }
+        return latest;
+    }
+
+    private void restart() throws Exception {
+        if (this.journal != null) this.journal.close();
+        this.journal = new GameJournal(true, this.folder.getRoot().getPath(), 1, 1000000, 1 << 24);
+        this.store = new SessionStore(this.journal, WordDictionary.builtIn());
+        this.store.open();
+    }
+}
@@ -0,0 +1,80 @@
+package hangman.hangman;
+import java.nio.charset.StandardCharsets;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the GameJson codec, checked against Jackson for the wire format.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class GameJsonTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Check guesses are decoded from the forms clients send, including escapes, other fields and whitespace.
+     * */
+    @Test
+    public void decodesGuesses() throws Exception {
+        assertEquals('e', decode("{\"value\":\"e\"}"));
+        assertEquals('e', decode(" { \"other\" : 1, \"value\" : \"e\" , \"flag\":true}\n"));
+        assertEquals('"', decode("{\"value\":\"\\\"\"}"));
+        assertEquals('\u00e9', decode("{\"value\":\"\\u00e9\"}"));
+        assertEquals('\u00e9', decode("{\"value\":\"\u00e9\"}"));
+        assertEquals(0, decode("{}"));
+        byte[] array = bytes(" [{\"value\":\"a\"}, {\"value\":\"{\"}] ");
+        Guess[] guesses = GameJson.decodeGuesses(array, 0, array.length);
+        assertEquals(2, guesses.length);
+        assertEquals('{', guesses[1].getValue());
+        assertEquals(0, GameJson.decodeGuesses(bytes("[]"), 0, 2).length);
+    }
+
+    /**
+     * Check malformed bodies and values of more than one character are rejected.
+     * */
+    @Test
+    public void rejectsMalformedGuesses() throws Exception {
+        for (String json : new String[] {"", "e", "{\"value\":\"ab\"}", "{\"value\":\"e\"", "{\"value\":\"e\"} x",
+                "{\"value\":[\"e\"]}", "[{\"value\":\"e\"},]"}) {
+            try {
+                byte[] b = bytes(json);
+                if (json.startsWith("[")) GameJson.decodeGuesses(b, 0, b.length); else GameJson.decodeGuess(b, 0, b.length);
+                fail("Accepted " + json);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Check responses are encoded to the same JSON as Jackson writes, with special characters escaped.
+     * */
+    @Test
+    public void encodesResponsesLikeJackson() throws Exception {
+        Session session = new Session("Caf\u00e9");
+        session.hangmanLogic(new Guess('"'));
+        Response response = session.hangmanLogic(new Guess('c'));
+        byte[] buffer = new byte[1024];
+        String json = new String(buffer, 0, GameJson.encodeResponse(response, buffer), StandardCharsets.US_ASCII);
+        assertEquals(this.mapper.readTree(this.mapper.writeValueAsString(response)), this.mapper.readTree(json));
+
+        BatchResponse batch = new BatchResponse();
+        batch.setResponse(response);
+        batch.setOutcomes(new String[] {BatchResponse.MISS, BatchResponse.HIT});
+        json = new String(buffer, 0, GameJson.encodeBatch(batch, buffer), StandardCharsets.US_ASCII);
+        assertEquals(this.mapper.readTree(this.mapper.writeValueAsString(batch)), this.mapper.readTree(json));
+        assertTrue(GameJson.encodeResponse(response, new byte[8]) < 0);
+    }
+
+    private char decode(String json) {
+        byte[] b = bytes(json);
+        return GameJson.decodeGuess(b, 0, b.length).getValue();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,115 @@
+package hangman.hangman;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the latency histograms and the Prometheus export of the GameMetrics class.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class GameMetricsTest {
+
+    /**
+     * Check quantiles read from the histogram are within one bucket, 1/16, of the exact quantiles, and that the
+     * count and sum are exact.
+     * */
+    @Test
+    public void quantilesWithinBucketPrecision() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long sum = 0;
+        for (long nanos = 1; nanos <= 1000000; ++nanos) {
+            histogram.record(nanos * 1000);
+            sum += nanos * 1000;
+        }
+        assertEquals(1000000, histogram.count());
+        assertEquals(sum, histogram.sum());
+        long[] quantiles = histogram.quantiles(0.5, 0.99, 0.999);
+        assertWithin(500000000L, quantiles[0]);
+        assertWithin(990000000L, quantiles[1]);
+        assertWithin(999000000L, quantiles[2]);
+        assertEquals(0, new LatencyHistogram().quantiles(0.99)[0]);
+    }
+
+    /**
+     * Check every duration falls in a bucket whose bounds contain it, up to the largest long.
+     * */
+    @Test
+    public void bucketsContainTheirDurations() throws Exception {
+        long[] durations = {0, 1, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long nanos : durations) {
+            int bucket = LatencyHistogram.bucket(nanos);
+            assertTrue(nanos <= LatencyHistogram.upperBound(bucket));
+            assertTrue(bucket == 0 || nanos > LatencyHistogram.upperBound(bucket - 1));
+        }
+    }
+
+    /**
+     * Check served requests and guess outcomes appear in the scrape, with the gauges of the store.
+     * */
+    @Test
+    public void scrapeReportsEndpointsAndOutcomes() throws Exception {
+        SessionStore store = new SessionStore();
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        RController controller = new RController(store, GameExecution.blocking(), new GameMetrics(store),
+                beans.getBeanProvider(HintIndex.class), beans.getBeanProvider(Rooms.class),
+                beans.getBeanProvider(WordDifficulty.class));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.newGameSession("metrics-player", null, response);
+        store.lastGame("metrics-player").setSecretWord("Cat");
+        controller.submitGuess(new Guess('c'), "metrics-player", response);
+        controller.submitGuess(new Guess('z'), "metrics-player", response);
+        controller.submitGuess(new Guess('z'), "metrics-player", response);
+        ResponseEntity<Object> scrape = controller.metrics();
+        String after = (String) scrape.getBody();
+
+        assertEquals(GameMetrics.CONTENT_TYPE, scrape.getHeaders().getFirst("Content-Type"));
+        assertEquals(1, sample(after, "hangman_requests_total{endpoint=\"newGameSession\"}"));
+        assertEquals(3, sample(after, "hangman_requests_total{endpoint=\"submitGuess\"}"));
+        assertEquals(3, sample(after, "hangman_request_duration_seconds_count{endpoint=\"submitGuess\"}"));
+        assertTrue(after.contains("hangman_request_duration_seconds{endpoint=\"submitGuess\",quantile=\"0.999\"} "));
+        assertTrue(after.contains("# TYPE hangman_request_duration_seconds summary\n"));
+        String hits = "hangman_guess_outcomes_total{outcome=\"hit\"}";
+        String misses = "hangman_guess_outcomes_total{outcome=\"miss\"}";
+        String repeats = "hangman_guess_outcomes_total{outcome=\"repeat\"}";
+        assertEquals(1, sample(after, hits));
+        assertEquals(1, sample(after, misses));
+        assertEquals(1, sample(after, repeats));
+        assertEquals(1, sample(after, "hangman_live_sessions"));
+        assertEquals(1, sample(after, "hangman_history_games"));
+    }
+
+    /**
+     * Check only guesses submitted by players are counted, not those replayed into restored games, and that
+     * each store counts into its own metrics.
+     * */
+    @Test
+    public void replayedGuessesNotCounted() throws Exception {
+        SessionStore store = new SessionStore();
+        GameMetrics metrics = new GameMetrics(store);
+        GameMetrics other = new GameMetrics(new SessionStore());
+        Session session = store.newGame("metrics-player");
+        session.setSecretWord("Cat");
+        store.restoreGuess(session.getId(), 'c');
+        new StoredGame(1, "metrics-player", "node", 7, -1, "Cat", "ct").toSession(WordDictionary.builtIn());
+        String hits = "hangman_guess_outcomes_total{outcome=\"hit\"}";
+        assertEquals(0, sample(metrics.scrape(), hits));
+        store.applyGuess(session, new Guess('a'));
+        assertEquals(1, sample(metrics.scrape(), hits));
+        assertEquals(0, sample(other.scrape(), hits));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " not within 1/16 of " + expected, Math.abs(actual - expected) <= expected / 16);
+    }
+
+    private static long sample(String scrape, String series) {
+        int start = scrape.indexOf("\n" + series + " ");
+        assertTrue(series, start >= 0);
+        start += series.length() + 2;
+        return Long.parseLong(scrape.substring(start, scrape.indexOf('\n', start)));
+    }
+}
@@ -0,0 +1,133 @@
+package hangman.hangman;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the HintIndex class.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class HintIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    HintIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        index = HintIndex.build(dictionary("Cat\ncot\ncut\ndog\ncab\ntot\ndot\ngot\nhorse"));
+    }
+
+    /**
+     * Check revealed letters keep only the words with those letters at those positions, and the letter
+     * suggested splits the remaining words.
+     * */
+    @Test
+    public void revealedLettersFilterWords() throws Exception {
+        HintResponse hint = index.hint("c _ t", mask("ct"));
+        assertEquals(3, hint.getCandidates());
+        assertEquals("a", hint.getLetter());
+        assertEquals(1, hint.getWordsWithLetter());
+        assertEquals(2, index.hint("c _ t", mask("cta")).getCandidates());
+    }
+
+    /**
+     * Check a revealed letter excludes the words holding it at a hidden position as well.
+     * */
+    @Test
+    public void revealedLetterNotHidden() throws Exception {
+        HintResponse hint = index.hint("_ o t", mask("ot"));
+        assertEquals(3, hint.getCandidates());
+        assertEquals(1, index.hint("_ o t", mask("otgc")).getCandidates());
+        assertEquals("d", index.hint("_ o t", mask("otgc")).getLetter());
+    }
+
+    /**
+     * Check no letter is suggested when no word fits or no length matches.
+     * */
+    @Test
+    public void noHintWithoutCandidates() throws Exception {
+        assertEquals(0, index.hint("x _ _", mask("x")).getCandidates());
+        assertNull(index.hint("x _ _", mask("x")).getLetter());
+        assertNull(index.hint("_ _ _ _ _ _ _ _ _ _", 0).getLetter());
+    }
+
+    /**
+     * Check a hint is only given in a game the player has started, and asking for one never starts a game.
+     * */
+    @Test
+    public void hintNeverStartsGame() throws Exception {
+        SessionStore store = new SessionStore();
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("hintIndex", index);
+        RController controller = new RController(store, GameExecution.blocking(), new GameMetrics(store),
+                beans.getBeanProvider(HintIndex.class), beans.getBeanProvider(Rooms.class),
+                beans.getBeanProvider(WordDifficulty.class));
+        assertEquals(HttpStatus.NOT_FOUND, controller.hint(null).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.hint("player").getStatusCode());
+        assertNull(store.findLastGame("player"));
+        assertEquals(0, store.stats().summary().getGamesStarted());
+        store.newGame("player");
+        assertEquals(HttpStatus.OK, controller.hint("player").getStatusCode());
+        assertEquals(1, store.stats().summary().getGamesStarted());
+    }
+
+    /**
+     * Check the candidates counted by the index match testing every word, over random words and games.
+     * */
+    @Test
+    public void matchesNaiveFiltering() throws Exception {
+        Random random = new Random(7);
+        String[] words = new String[3000];
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < words.length; ++i) {
+            char[] letters = new char[3 + random.nextInt(3)];
+            for (int j = 0; j < letters.length; ++j) letters[j] = (char) ('a' + random.nextInt(8));
+            words[i] = new String(letters);
+            list.append(words[i]).append('\n');
+        }
+        HintIndex randomIndex = HintIndex.build(dictionary(list.toString()));
+        for (int game = 0; game < 200; ++game) {
+            Session session = new Session(words[random.nextInt(words.length)]);
+            for (int guesses = random.nextInt(6); guesses > 0; --guesses) session.hangmanLogic(new Guess((char) ('a' + random.nextInt(8))));
+            HintResponse hint = randomIndex.hint(session.getGuessProgress(), session.getAttemptedMask());
+            int expected = 0;
+            for (String word : words) if (fits(word, session.getGuessProgress(), session.getAttemptedMask())) ++expected;
+            assertEquals(session.getGuessProgress(), expected, hint.getCandidates());
+            assertTrue(expected >= 1);
+        }
+    }
+
+    private static boolean fits(String word, String guessProgress, int attemptedMask) {
+        if (word.length() * 2 - 1 != guessProgress.length()) return false;
+        for (int i = 0; i < word.length(); ++i) {
+            char shown = guessProgress.charAt(i * 2);
+            char letter = word.charAt(i);
+            if (shown != '_' ? shown != letter : (attemptedMask & (1 << (letter - 'a'))) != 0) return false;
+        }
+        return true;
+    }
+
+    private static int mask(String letters) {
+        int mask = 0;
+        for (char c : letters.toCharArray()) mask |= 1 << (c - 'a');
+        return mask;
+    }
+
+    private WordDictionary dictionary(String words) throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), words.getBytes(StandardCharsets.US_ASCII));
+        return WordDictionary.load(file.toPath());
+    }
+}
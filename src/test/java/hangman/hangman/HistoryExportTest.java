@@ -0,0 +1,120 @@
+package hangman.hangman;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the games history export, including a memory test run in a separate JVM with a heap far smaller than
+ * the exported history would take if it were built in memory.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class HistoryExportTest {
+
+    static final int GAMES = 1000000;
+    static final String MAX_HEAP = "-Xmx64m";
+
+    /**
+     * Check a history of a million finished games is exported in full within a 64 MB heap. Built as an array of
+     * HistoryResponse objects, the same history alone takes well over 100 MB.
+     * */
+    @Test
+    public void exportsMillionGamesInFixedHeap() throws Exception {
+        File output = File.createTempFile("export", ".log");
+        output.deleteOnExit();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, MAX_HEAP, "-cp", System.getProperty("java.class.path"),
+                HistoryExportTest.class.getName(), String.valueOf(GAMES))
+                .redirectErrorStream(true).redirectOutput(output).start();
+        int exitCode = process.waitFor();
+        String log = new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8);
+        assertEquals(log, 0, exitCode);
+    }
+
+    /**
+     * Check every game is exported on a line of its own, encoded the same as in the games history.
+     * */
+    @Test
+    public void exportsOneGamePerLine() throws Exception {
+        SessionStore store = new SessionStore();
+        for (int i = 0; i < 3; ++i) store.applyGuess(store.newGame("player" + i), new Guess('e'));
+        RController controller = controller(store);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.gamesHistoryExport(null, null, null, response);
+        String export = response.getContentAsString();
+        assertTrue(export.endsWith("\n"));
+        String[] lines = export.split("\n");
+        assertEquals(3, lines.length);
+        String history = new String(controller.encodeHistory(), StandardCharsets.UTF_8);
+        assertEquals(history, "[" + String.join(",", lines) + "]");
+    }
+
+    /**
+     * Creates a controller serving the history of a store, without the beans the history endpoints do not use.
+     * */
+    private static RController controller(SessionStore store) {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        return new RController(store, GameExecution.blocking(), new GameMetrics(store),
+                beans.getBeanProvider(HintIndex.class), beans.getBeanProvider(Rooms.class),
+                beans.getBeanProvider(WordDifficulty.class));
+    }
+
+    /**
+     * Plays the given number of games to the end and exports them through the controller, counting the lines
+     * written without keeping them. Exits with 1 if not every game was exported.
+     * @param args Number of games.
+     * */
+    public static void main(String[] args) throws Exception {
+        int games = Integer.parseInt(args[0]);
+        SessionStore store = new SessionStore();
+        for (int i = 0; i < games; ++i) {
+            Session session = store.newGame("player");
+            for (char letter = 'z'; !session.isGameFinished(); --letter) store.applyGuess(session, new Guess(letter));
+        }
+        CountingResponse response = new CountingResponse();
+        controller(store).gamesHistoryExport(null, null, null, response);
+        if (response.lines != games) {
+            System.err.println("Exported " + response.lines + " of " + games + " games, " + response.bytes + " bytes");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Servlet response discarding its body, counting bytes and lines instead.
+     * */
+    private static class CountingResponse extends MockHttpServletResponse {
+
+        private long bytes;
+        private long lines;
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+
+                @Override
+                public void write(int b) throws IOException {
+                    ++bytes;
+                    if (b == '\n') ++lines;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+            };
+        }
+    }
+}
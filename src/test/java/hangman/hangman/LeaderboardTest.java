@@ -0,0 +1,108 @@
+package hangman.hangman;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the Leaderboard class.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class LeaderboardTest {
+
+    /**
+     * Check players are ranked by games won, then best streak, then fewest games played, and streaks and
+     * averages follow the games finished.
+     * */
+    @Test
+    public void playersRankedByWinsThenStreak() throws Exception {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.gameFinished("a", 1, 2, false);
+        leaderboard.gameFinished("a", 2, 6, true);
+        leaderboard.gameFinished("a", 3, 1, false);
+        leaderboard.gameFinished("b", 4, 0, false);
+        leaderboard.gameFinished("b", 5, 3, false);
+        leaderboard.gameFinished("c", 6, 0, false);
+        leaderboard.gameFinished("c", 7, 6, true);
+        leaderboard.gameFinished("c", 8, 6, true);
+        leaderboard.gameFinished("c", 9, 0, false);
+
+        List<PlayerStatsResponse> top = leaderboard.top(10);
+        assertEquals(3, top.size());
+        assertEquals(Leaderboard.publicName("b"), top.get(0).getPlayer());
+        assertEquals(Leaderboard.publicName("a"), top.get(1).getPlayer());
+        assertEquals(Leaderboard.publicName("c"), top.get(2).getPlayer());
+        assertEquals(1, top.get(0).getRank());
+        assertEquals(3, top.get(2).getRank());
+        PlayerStatsResponse a = leaderboard.player("a");
+        assertEquals(3, a.getGamesPlayed());
+        assertEquals(2, a.getGamesWon());
+        assertEquals(1, a.getCurrentStreak());
+        assertEquals(1, a.getBestStreak());
+        assertEquals(3.0, a.getAverageWrongGuesses(), 1e-9);
+        assertEquals(2, leaderboard.player("b").getBestStreak());
+        assertEquals(1, leaderboard.top(1).size());
+        assertNull(leaderboard.player("d"));
+        assertFalse(top.get(0).getPlayer().contains("b"));
+    }
+
+    /**
+     * Check a game already counted for a player, or older than the last one counted, is ignored.
+     * */
+    @Test
+    public void gamesCountedOnce() throws Exception {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.restore("a", 5, 4, 3, 2, 2, 8);
+        leaderboard.gameFinished("a", 5, 0, false);
+        leaderboard.gameFinished("a", 3, 0, false);
+        assertEquals(4, leaderboard.player("a").getGamesPlayed());
+        leaderboard.gameFinished("a", 6, 0, false);
+        assertEquals(5, leaderboard.player("a").getGamesPlayed());
+        assertEquals(3, leaderboard.player("a").getBestStreak());
+        assertEquals(1, leaderboard.top(10).size());
+    }
+
+    /**
+     * Check games finished concurrently by many players on many threads are all counted, leave exactly one
+     * ranking entry per player, and rank them as sorting all players would.
+     * */
+    @Test
+    public void concurrentUpdatesMatchSorting() throws Exception {
+        Leaderboard leaderboard = new Leaderboard();
+        int players = 200;
+        int threads = 4;
+        long[] wins = new long[players];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; ++t) {
+            int first = t;
+            workers.add(new Thread(() -> {
+                Random random = new Random(first);
+                for (int game = 0; game < 5000; ++game) {
+                    int player = first + threads * random.nextInt(players / threads);
+                    boolean lost = random.nextBoolean();
+                    leaderboard.gameFinished("p" + player, game, lost ? 6 : 2, lost);
+                    if (!lost) ++wins[player];
+                }
+            }));
+        }
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+
+        List<PlayerStatsResponse> all = leaderboard.top(Integer.MAX_VALUE);
+        assertEquals(leaderboard.size(), all.size());
+        long totalWins = 0;
+        long totalGames = 0;
+        for (int i = 0; i < all.size(); ++i) {
+            totalWins += all.get(i).getGamesWon();
+            totalGames += all.get(i).getGamesPlayed();
+            if (i > 0) assertTrue(all.get(i - 1).getGamesWon() >= all.get(i).getGamesWon());
+        }
+        long expectedWins = 0;
+        for (long w : wins) expectedWins += w;
+        assertEquals(expectedWins, totalWins);
+        assertEquals(threads * 5000, totalGames);
+    }
+}
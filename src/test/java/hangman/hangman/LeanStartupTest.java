@@ -0,0 +1,62 @@
+package hangman.hangman;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the application started through LeanStartup.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class LeanStartupTest {
+
+    private ConfigurableApplicationContext context;
+
+    @After
+    public void tearDown() {
+        if (context != null) context.close();
+    }
+
+    /**
+     * Check the lean startup mode is chosen from the command line ahead of the other sources.
+     * */
+    @Test
+    public void startupModeFromArguments() {
+        assertEquals(HangmanApplication.LEAN, HangmanApplication.startupMode(new String[] {"--server.port=0", "--hangman.startup=lean"}));
+    }
+
+    /**
+     * Check games, pages and hints are served, and beans not needed by the first game are only created on use.
+     * */
+    @Test
+    public void gamesServedWithLazyBeans() throws Exception {
+        context = LeanStartup.run("--server.port=0", "--spring.jmx.enabled=false", "--hangman.journal.enabled=false");
+        String body = get("/newGameSession", 200);
+        assertTrue(body, body.contains("\"wrongGuessCount\":0"));
+        assertTrue(get("/game.html", 200).contains("<html"));
+        get("/nothing-here", 404);
+        assertFalse(context.getBeanFactory().containsSingleton("hintIndex"));
+        assertTrue(get("/hint", 200).contains("\"letter\""));
+        assertTrue(context.getBeanFactory().containsSingleton("hintIndex"));
+    }
+
+    private String get(String path, int status) throws Exception {
+        String port = context.getEnvironment().getProperty("local.server.port");
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        connection.setRequestProperty("Cookie", RController.PLAYER_COOKIE + "=lean-player");
+        assertEquals(status, connection.getResponseCode());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] chunk = new byte[4096];
+            for (int n; in != null && (n = in.read(chunk)) > 0; ) bytes.write(chunk, 0, n);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
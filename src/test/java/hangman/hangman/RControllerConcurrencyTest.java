@@ -0,0 +1,104 @@
+package hangman.hangman;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.servlet.http.Cookie;
+import com.google.gson.Gson;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Stress test hammering the game endpoints from many concurrent players.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"hangman.journal.enabled=false", "hangman.admission.enabled=false"})
+@AutoConfigureMockMvc
+public class RControllerConcurrencyTest {
+
+    private static final int PLAYERS = 64;
+    private static final int GAMES_PER_PLAYER = 20;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private SessionStore store;
+
+    private final Gson gson = new Gson();
+
+    /**
+     * Check that concurrent players never see or change each other's games, that abandoned games are the only
+     * ones removed from the history, and that every finished game is in a consistent final state.
+     * */
+    @Test
+    public void concurrentPlayersKeepTheirOwnGames() throws Exception {
+        int historyBefore = this.store.history().size();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int p = 0; p < PLAYERS; ++p) {
+            final Cookie player = new Cookie(RController.PLAYER_COOKIE, "stress-player-" + p);
+            results.add(pool.submit((Callable<Integer>) () -> playGames(player)));
+        }
+        int finishedGames = 0;
+        for (Future<Integer> result : results) finishedGames += result.get();
+        pool.shutdown();
+
+        ArrayList<HistoryResponse> history = this.store.history();
+        assertEquals(historyBefore + finishedGames, history.size());
+        for (HistoryResponse h : history) {
+            assertNotEquals(HistoryResponse.ONGOING, h.getStatus());
+            assertEquals(h.getStatus().equals(HistoryResponse.LOST), h.getGuessProgress().contains("_"));
+        }
+    }
+
+    /**
+     * Plays games as one player, abandoning every other game after a few guesses. Checks after every guess that
+     * the game state contains exactly the guesses of this player.
+     * @return number of games played to the end.
+     * */
+    private int playGames(Cookie player) throws Exception {
+        int finished = 0;
+        for (int g = 0; g < GAMES_PER_PLAYER; ++g) {
+            Response response = call(get("/newGameSession").cookie(player));
+            assertEquals(0, response.getWrongGuessCount());
+            assertEquals("[]", response.getAttemptedString());
+            int lettersToTry = g % 2 == 0 ? 3 : 26;
+            for (int i = 0; i < lettersToTry && !isOver(response); ++i) {
+                int wrongBefore = response.getWrongGuessCount();
+                response = call(post("/submitGuess").cookie(player).content(this.gson.toJson(new Guess((char) ('a' + i)))));
+                assertEquals(i + 1, response.getAttemptedString().split(",").length);
+                assertTrue(response.getWrongGuessCount() - wrongBefore <= 1);
+            }
+            if (lettersToTry == 26) {
+                assertTrue(isOver(response));
+                ++finished;
+            }
+        }
+        return finished;
+    }
+
+    private boolean isOver(Response response) {
+        return response.getUserMessage().equals("Game Over.")
+                || response.getUserMessage().equals("Congratulations, you won!");
+    }
+
+    private Response call(RequestBuilder request) throws Exception {
+        String body = this.mvc.perform(request).andReturn().getResponse().getContentAsString();
+        return this.gson.fromJson(body, Response.class);
+    }
+}
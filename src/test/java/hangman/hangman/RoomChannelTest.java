@@ -0,0 +1,98 @@
+package hangman.hangman;
+import java.net.URI;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.CloseReason;
+import javax.websocket.ContainerProvider;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the WebSocket room channel against a running server.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "hangman.journal.enabled=false")
+public class RoomChannelTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Rooms rooms;
+
+    /**
+     * Check participants are sent the state of the room on joining, a guess is answered to its sender alone,
+     * and what it changed reaches every participant.
+     * */
+    @Test
+    public void guessesBroadcastToParticipants() throws Exception {
+        Room room = this.rooms.create();
+        BlockingQueue<Object> guesser = new ArrayBlockingQueue<>(16);
+        BlockingQueue<Object> watcher = new ArrayBlockingQueue<>(16);
+        javax.websocket.Session channel = connect(room.getId(), guesser);
+        javax.websocket.Session other = connect(room.getId(), watcher);
+        assertTrue(((String) guesser.poll(5, TimeUnit.SECONDS)).startsWith("{\"room\":\"" + room.getId() + "\",\"n\":1,"));
+        assertTrue(((String) watcher.poll(5, TimeUnit.SECONDS)).startsWith("{\"room\":\"" + room.getId() + "\",\"n\":1,"));
+        assertEquals(2, room.participantCount());
+
+        channel.getBasicRemote().sendText("ab");
+        assertEquals("{\"m\":\"Please enter a single letter.\"}", guesser.poll(5, TimeUnit.SECONDS));
+        channel.getBasicRemote().sendText("e");
+        String reply = (String) guesser.poll(5, TimeUnit.SECONDS);
+        assertTrue(reply, reply.equals("{\"m\":\"Correct!\"}") || reply.equals("{\"m\":\"Nope...\"}"));
+        String events = (String) watcher.poll(5, TimeUnit.SECONDS);
+        assertTrue(events, events.startsWith("{\"events\":[{\"n\":1,\"s\":1,\"a\":\"e\","));
+        assertEquals(events, guesser.poll(5, TimeUnit.SECONDS));
+
+        channel.close();
+        other.close();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.rooms.get(room.getId()) != null && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertNull(this.rooms.get(room.getId()));
+    }
+
+    /**
+     * Check a channel opened to a room that does not exist is closed straight away.
+     * */
+    @Test
+    public void unknownRoomRejected() throws Exception {
+        BlockingQueue<Object> frames = new ArrayBlockingQueue<>(16);
+        connect("no-such-room", frames);
+        Object closed = frames.poll(5, TimeUnit.SECONDS);
+        assertTrue(closed instanceof CloseReason);
+        assertEquals(CloseReason.CloseCodes.CANNOT_ACCEPT, ((CloseReason) closed).getCloseCode());
+    }
+
+    private javax.websocket.Session connect(String room, BlockingQueue<Object> frames) throws Exception {
+        return ContainerProvider.getWebSocketContainer().connectToServer(new Endpoint() {
+            @Override
+            public void onOpen(javax.websocket.Session channel, EndpointConfig endpointConfig) {
+                channel.addMessageHandler(String.class, new MessageHandler.Whole<String>() {
+                    @Override
+                    public void onMessage(String frame) {
+                        frames.add(frame);
+                    }
+                });
+            }
+
+            @Override
+            public void onClose(javax.websocket.Session channel, CloseReason closeReason) {
+                frames.add(closeReason);
+            }
+        }, ClientEndpointConfig.Builder.create().build(),
+                URI.create("ws://localhost:" + this.port + RoomChannel.PATH.replace("{room}", room)));
+    }
+}
@@ -0,0 +1,270 @@
+package hangman.hangman;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the Room and Rooms classes.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class RoomTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    ScheduledExecutorService broadcaster = Executors.newSingleThreadScheduledExecutor();
+    AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @After
+    public void tearDown() throws Exception {
+        broadcaster.shutdownNow();
+    }
+
+    /**
+     * Check the guesses applied since the last flush reach every participant as one frame, after the state sent
+     * on joining, and the guess finishing a round starts the next one.
+     * */
+    @Test
+    public void guessesBatchedIntoOneFrame() throws Exception {
+        Room room = room("Cat");
+        Frames first = new Frames();
+        Frames second = new Frames();
+        room.join(first);
+        room.join(second);
+        assertEquals(1, first.frames.size());
+        assertEquals(1, first.frames.get(0).get("n").getAsInt());
+        assertEquals("_ _ _", first.frames.get(0).get("p").getAsString());
+
+        assertEquals(GameMetrics.HIT, room.guess('c'));
+        assertEquals(GameMetrics.MISS, room.guess('x'));
+        assertEquals(GameMetrics.REPEAT, room.guess('c'));
+        assertEquals(1, first.frames.size());
+        room.flush();
+        assertEquals(2, first.frames.size());
+        assertEquals(first.frames, second.frames);
+        List<JsonObject> events = events(first.frames.get(1));
+        assertEquals(2, events.size());
+        assertEquals("c", events.get(0).get("a").getAsString());
+        assertEquals("C", events.get(0).get("v").getAsString());
+        assertEquals(1, events.get(1).get("w").getAsInt());
+
+        room.guess('a');
+        room.guess('t');
+        room.flush();
+        events = events(first.frames.get(2));
+        assertEquals("won", events.get(1).get("o").getAsString());
+        assertEquals("Cat", events.get(1).get("word").getAsString());
+        assertEquals(2, events.get(2).get("n").getAsInt());
+        assertEquals(3, events.get(2).get("l").getAsInt());
+        assertEquals(2, room.state().getRound());
+        assertEquals("", room.state().getAttemptedLetters());
+        assertEquals(5, room.guessCount());
+    }
+
+    /**
+     * Check guesses racing on many threads are each applied at most once per round, with one sequence number
+     * each, and every round ends after exactly the wrong guess limit.
+     * */
+    @Test
+    public void concurrentGuessesAppliedOnce() throws Exception {
+        Room room = room("zz");
+        Frames frames = new Frames();
+        room.join(frames);
+        int threads = 8;
+        AtomicIntegerArray outcomes = new AtomicIntegerArray(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> players = new ArrayList<>();
+        for (int t = 0; t < threads; ++t) {
+            players.add(new Thread(() -> {
+                List<Character> letters = new ArrayList<>();
+                for (char c = 'a'; c < 'z'; ++c) letters.add(c);
+                Collections.shuffle(letters);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 50; ++i) outcomes.incrementAndGet(room.guess(letters.get(i % letters.size())));
+            }));
+        }
+        for (Thread player : players) player.start();
+        start.countDown();
+        for (Thread player : players) player.join();
+        room.flush();
+
+        Map<Integer, Set<Integer>> sequences = new HashMap<>();
+        Map<Integer, Set<String>> letters = new HashMap<>();
+        int applied = 0;
+        int lost = 0;
+        for (int i = 1; i < frames.frames.size(); ++i) {
+            for (JsonObject event : events(frames.frames.get(i))) {
+                if (!event.has("s")) continue;
+                ++applied;
+                int round = event.get("n").getAsInt();
+                sequences.computeIfAbsent(round, n -> new HashSet<>()).add(event.get("s").getAsInt());
+                assertTrue(letters.computeIfAbsent(round, n -> new HashSet<>()).add(event.get("a").getAsString()));
+                if (event.has("o")) {
+                    assertEquals("lost", event.get("o").getAsString());
+                    assertEquals(Room.WRONG_GUESS_LIMIT, event.get("w").getAsInt());
+                    ++lost;
+                }
+            }
+        }
+        assertEquals(threads * 50, outcomes.get(0) + outcomes.get(1) + outcomes.get(2) + outcomes.get(3));
+        assertEquals(0, outcomes.get(GameMetrics.HIT));
+        assertEquals(outcomes.get(GameMetrics.MISS), applied);
+        assertEquals(applied / Room.WRONG_GUESS_LIMIT, lost);
+        for (Set<Integer> round : sequences.values()) {
+            assertTrue(round.size() <= Room.WRONG_GUESS_LIMIT);
+            for (int s = 1; s <= round.size(); ++s) assertTrue(round.contains(s));
+        }
+    }
+
+    /**
+     * Check a room is removed when its last participant leaves, and no rooms are created beyond the limit.
+     * */
+    @Test
+    public void roomsRemovedWhenEmpty() throws Exception {
+        Rooms rooms = new Rooms(dictionary("Cat"), 10, 1, 2, 60000);
+        try {
+            Room room = rooms.create();
+            assertNotNull(rooms.create());
+            assertNull(rooms.create());
+            Frames first = new Frames();
+            Frames second = new Frames();
+            room.join(first);
+            room.join(second);
+            room.guess('c');
+            rooms.leave(room, first);
+            assertSame(room, rooms.get(room.getId()));
+            rooms.leave(room, second);
+            assertNull(rooms.get(room.getId()));
+            assertEquals(1, rooms.size());
+            assertEquals(1, rooms.guessCount());
+        } finally {
+            rooms.close();
+        }
+    }
+
+    /**
+     * Check participants joining a room while others leave it either join the room the registry holds, or find
+     * it removed, but never join a room that has just been removed.
+     * */
+    @Test
+    public void joinNeverRacesRemoval() throws Exception {
+        Rooms rooms = new Rooms(dictionary("Cat"), 10, 1, 1000, 60000, now::get);
+        try {
+            for (int r = 0; r < 200; ++r) {
+                Room room = rooms.create();
+                Frames first = new Frames();
+                rooms.join(room.getId(), first);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Thread> players = new ArrayList<>();
+                List<Room> orphaned = Collections.synchronizedList(new ArrayList<>());
+                for (int t = 0; t < 4; ++t) {
+                    players.add(new Thread(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        for (int i = 0; i < 50; ++i) {
+                            Frames frames = new Frames();
+                            Room joined = rooms.join(room.getId(), frames);
+                            if (joined == null) return;
+                            if (rooms.get(room.getId()) != joined) orphaned.add(joined);
+                            rooms.leave(joined, frames);
+                        }
+                    }));
+                }
+                for (Thread player : players) player.start();
+                start.countDown();
+                rooms.leave(room, first);
+                for (Thread player : players) player.join();
+                assertEquals(Collections.emptyList(), orphaned);
+                assertNull(rooms.get(room.getId()));
+                assertEquals(0, room.participantCount());
+            }
+        } finally {
+            rooms.close();
+        }
+    }
+
+    /**
+     * Check a room nobody joins is removed once older than the idle time, making room for new ones, while a
+     * joined room is kept.
+     * */
+    @Test
+    public void unjoinedRoomsExpire() throws Exception {
+        Rooms rooms = new Rooms(dictionary("Cat"), 10, 1, 2, 1000, now::get);
+        try {
+            Room abandoned = rooms.create();
+            Room joined = rooms.create();
+            joined.join(new Frames());
+            assertNull(rooms.create());
+
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+            rooms.sweep();
+            assertEquals(2, rooms.size());
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+            rooms.sweep();
+            assertNull(rooms.get(abandoned.getId()));
+            assertSame(joined, rooms.get(joined.getId()));
+            assertNotNull(rooms.create());
+        } finally {
+            rooms.close();
+        }
+    }
+
+    private Room room(String word) throws Exception {
+        return new Room("test", dictionary(word), broadcaster, TimeUnit.HOURS.toNanos(1), new LatencyHistogram(), 0);
+    }
+
+    private static List<JsonObject> events(JsonObject frame) {
+        List<JsonObject> events = new ArrayList<>();
+        for (JsonElement event : frame.getAsJsonArray("events")) events.add(event.getAsJsonObject());
+        return events;
+    }
+
+    private WordDictionary dictionary(String words) throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), words.getBytes(StandardCharsets.US_ASCII));
+        return WordDictionary.load(file.toPath());
+    }
+
+    /**
+     * Participant keeping the frames sent to it.
+     * */
+    private static class Frames implements Room.Participant {
+
+        private final List<JsonObject> frames = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void send(String frame) {
+            this.frames.add(new Gson().fromJson(frame, JsonObject.class));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package hangman.hangman;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for stores sharing the current games of the players through a SessionRepository, each store
+ * standing for a node.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class SessionRepositoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    WordDictionary dictionary;
+    SessionRepository repository;
+    SessionStore nodeA;
+    SessionStore nodeB;
+
+    @Before
+    public void setUp() throws Exception {
+        File words = folder.newFile();
+        Files.write(words.toPath(), "abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII));
+        dictionary = WordDictionary.load(words.toPath());
+        repository = new InMemorySessionRepository();
+        nodeA = node(repository, "a");
+        nodeB = node(repository, "b");
+    }
+
+    /**
+     * Check a game started on one node is played on the other, and each node sees the guesses of the other.
+     * */
+    @Test
+    public void gamePlayedAcrossNodes() throws Exception {
+        long id = nodeA.newGame("player").getId();
+        nodeB.applyGuess(nodeB.lastGame("player"), new Guess('a'));
+        nodeA.applyGuess(nodeA.lastGame("player"), new Guess('b'));
+        nodeB.applyGuess(nodeB.lastGame("player"), new Guess('c'));
+        assertEquals(id, nodeB.lastGame("player").getId());
+        assertEquals("a b c _ _ _ _ _ _ _ _ _ _ _ _ _ _ _ _ _ _ _ _ _ _ _", nodeA.lastGame("player").getGuessProgress());
+        assertEquals(nodeA.lastGame("player").getGuessProgress(), nodeB.lastGame("player").getGuessProgress());
+        // Listed in the history of the node that started it, with the guesses made on the other node
+        assertEquals(1, nodeA.history().size());
+        assertEquals(nodeA.lastGame("player").getGuessProgress(), nodeA.history().get(0).getGuessProgress());
+        assertEquals(0, nodeB.history().size());
+    }
+
+    /**
+     * Check a guess applied by a node holding an outdated game is applied after the guesses of the other node,
+     * and a letter both nodes guess is applied once.
+     * */
+    @Test
+    public void outdatedNodeCatchesUp() throws Exception {
+        nodeA.newGame("player");
+        Session onA = nodeA.lastGame("player");
+        Session onB = nodeB.lastGame("player");
+        nodeB.applyGuess(onB, new Guess('x'));
+        nodeB.applyGuess(onB, new Guess('y'));
+        Response response = nodeA.applyGuess(onA, new Guess('y'));
+        assertEquals("Letter already attempted. Try a different letter.", response.getUserMessage());
+        nodeA.applyGuess(onA, new Guess('z'));
+        assertEquals("xyz", new String(onA.getGuessHistory()));
+        assertEquals("xyz", new String(nodeB.lastGame("player").getGuessHistory()));
+    }
+
+    /**
+     * Check a new game started on one node replaces the game on the other, which is abandoned there.
+     * */
+    @Test
+    public void newGameReplacesOtherNodesGame() throws Exception {
+        Session first = nodeA.newGame("player");
+        nodeA.applyGuess(first, new Guess('a'));
+        Session second = nodeB.newGame("player");
+        Response response = nodeA.applyGuess(first, new Guess('b'));
+        assertEquals(SessionStore.REPLACED_MESSAGE, response.getUserMessage());
+        assertEquals(second.getId(), nodeA.lastGame("player").getId());
+        assertEquals(0, nodeA.history().size());
+        assertEquals(1, nodeA.stats().summary().getGamesAbandoned());
+    }
+
+    /**
+     * Check concurrent guesses of one game on both nodes are each applied exactly once.
+     * */
+    @Test
+    public void concurrentGuessesAppliedOnce() throws Exception {
+        nodeA.newGame("player");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (char letter = 'a'; letter < 'z'; ++letter) {
+            SessionStore node = letter % 2 == 0 ? nodeA : nodeB;
+            Guess guess = new Guess(letter);
+            results.add(pool.submit(() -> node.applyGuess(node.lastGame("player"), guess)));
+            results.add(pool.submit(() -> node.applyGuess(node.lastGame("player"), guess)));
+        }
+        for (Future<?> result : results) result.get();
+        pool.shutdown();
+        for (SessionStore node : new SessionStore[] {nodeA, nodeB}) {
+            Session session = node.lastGame("player");
+            assertEquals(25, session.getGuessHistory().length);
+            assertEquals(0, session.getWrongGuessCount());
+            assertFalse(session.isGameFinished());
+        }
+    }
+
+    /**
+     * Check concurrent new games of one player on a node leave the repository holding the game the node kept,
+     * whichever order they are stored in.
+     * */
+    @Test
+    public void concurrentNewGamesStoreCurrentGame() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) results.add(pool.submit(() -> nodeA.newGame("player")));
+        for (Future<?> result : results) result.get();
+        pool.shutdown();
+        assertEquals(1, nodeA.history().size());
+        assertEquals(nodeA.history().get(0).getId(), repository.load("player").getGameId());
+    }
+
+    /**
+     * Check the file repository only stores a game over the version it was read at.
+     * */
+    @Test
+    public void fileRepositoryComparesVersions() throws Exception {
+        SessionRepository repository = new FileSessionRepository(folder.newFolder().toPath());
+        assertNull(repository.load("player"));
+        StoredGame game = new StoredGame(1, "player", "a", 7, -1, "Cat", "");
+        assertFalse(repository.compareAndSet("player", 1, game));
+        assertTrue(repository.compareAndSet("player", 0, game));
+        assertFalse(repository.compareAndSet("player", 0, game.withGuess('c')));
+        assertTrue(repository.compareAndSet("player", 1, game.withGuess('c')));
+        StoredGame stored = repository.load("player");
+        assertEquals(2, stored.getVersion());
+        assertEquals("c", stored.getGuesses());
+        assertEquals("C _ _", stored.toSession(dictionary).getGuessProgress());
+        assertNull(repository.load("other"));
+    }
+
+    private SessionStore node(SessionRepository repository, String node) {
+        SessionStore store = new SessionStore(GameJournal.disabled(), dictionary);
+        store.setRepository(repository, node, 0);
+        return store;
+    }
+}
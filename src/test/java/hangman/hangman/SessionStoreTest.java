@@ -0,0 +1,258 @@
+package hangman.hangman;
+import java.util.ArrayList;
+import java.util.Iterator;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the games history kept by the SessionStore class.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class SessionStoreTest {
+
+    SessionStore store = new SessionStore();
+
+    /**
+     * Stores ten games of different players. Games 0, 3, 6 and 9 are won, games 1, 4 and 7 lost, the rest ongoing.
+     * */
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < 10; ++i) {
+            Session session = store.newGame("player" + i);
+            session.setSecretWord("Cat");
+            String letters = i % 3 == 0 ? "cat" : i % 3 == 1 ? "zxvbmk" : "c";
+            for (char letter : letters.toCharArray()) store.applyGuess(session, new Guess(letter));
+        }
+    }
+
+    /**
+     * Check the game and history ETags change with every change to a game, and only then.
+     * */
+    @Test
+    public void tagsFollowChanges() throws Exception {
+        Session session = store.newGame("tagged");
+        session.setSecretWord("Dog");
+        String gameTag = store.gameTag(session);
+        String historyTag = store.historyTag();
+        store.applyGuess(session, new Guess('d'));
+        assertNotEquals(gameTag, store.gameTag(session));
+        assertNotEquals(historyTag, store.historyTag());
+        gameTag = store.gameTag(session);
+        historyTag = store.historyTag();
+        store.applyGuess(session, new Guess('d'));
+        store.ongoingGame("tagged");
+        assertEquals(gameTag, store.gameTag(session));
+        assertEquals(historyTag, store.historyTag());
+        store.newGame("tagged");
+        assertNotEquals(historyTag, store.historyTag());
+        assertNotEquals(store.historyTag(), new SessionStore().historyTag());
+    }
+
+    /**
+     * Check pages list games newest first and the cursor continues exactly where the previous page ended.
+     * */
+    @Test
+    public void pagesFollowCursor() throws Exception {
+        HistoryPage first = store.historyPage(null, 4, null);
+        assertEquals(4, first.getGames().length);
+        assertEquals(9, first.getGames()[0].getId());
+        assertEquals(6, first.getGames()[3].getId());
+        HistoryPage second = store.historyPage(first.getNextCursor(), 4, null);
+        assertEquals(5, second.getGames()[0].getId());
+        HistoryPage last = store.historyPage(second.getNextCursor(), 4, null);
+        assertEquals(2, last.getGames().length);
+        assertEquals(0, last.getGames()[1].getId());
+        assertNull(last.getNextCursor());
+    }
+
+    /**
+     * Check status filters list only games with that status, and their cursors follow on as well.
+     * */
+    @Test
+    public void pagesFilterByStatus() throws Exception {
+        assertEquals(4, store.historyPage(null, 10, HistoryResponse.WON).getGames().length);
+        assertEquals(3, store.historyPage(null, 10, HistoryResponse.LOST).getGames().length);
+        HistoryResponse[] ongoing = store.historyPage(null, 10, HistoryResponse.ONGOING).getGames();
+        assertEquals(3, ongoing.length);
+        assertEquals(8, ongoing[0].getId());
+        HistoryPage lost = store.historyPage(null, 2, HistoryResponse.LOST);
+        assertEquals(7, lost.getGames()[0].getId());
+        assertEquals(4, lost.getGames()[1].getId());
+        HistoryResponse[] rest = store.historyPage(lost.getNextCursor(), 2, HistoryResponse.LOST).getGames();
+        assertEquals(1, rest.length);
+        assertEquals(1, rest[0].getId());
+    }
+
+    /**
+     * Check abandoned games disappear from the history and from the ongoing games.
+     * */
+    @Test
+    public void abandonedGameRemoved() throws Exception {
+        store.newGame("player2");
+        assertEquals(10, store.history().size());
+        assertEquals(10, store.historyPage(null, 10, HistoryResponse.ONGOING).getGames()[0].getId());
+        assertEquals(3, store.historyPage(null, 10, HistoryResponse.ONGOING).getGames().length);
+    }
+
+    /**
+     * Check a batch of guesses is applied in order, reports the outcome of each and stops once the game finishes.
+     * */
+    @Test
+    public void batchStopsWhenGameFinishes() throws Exception {
+        Session session = store.newGame("batch");
+        session.setSecretWord("Cat");
+        BatchResponse batch = store.applyGuesses(session, guesses("cxcate"));
+        assertArrayEquals(new String[] {BatchResponse.HIT, BatchResponse.MISS, BatchResponse.REPEAT, BatchResponse.HIT,
+                BatchResponse.HIT}, batch.getOutcomes());
+        assertEquals("C a t", batch.getResponse().getGuessProgress());
+        assertEquals("Congratulations, you won!", batch.getResponse().getUserMessage());
+        assertFalse(session.isAttempted('e'));
+        assertEquals(5, store.stats().summary().getGamesWon());
+        batch = store.applyGuesses(session, guesses("e"));
+        assertEquals(0, batch.getOutcomes().length);
+        assertEquals("Congratulations, you won!", batch.getResponse().getUserMessage());
+    }
+
+    /**
+     * Check the statistics count games as they start, finish and are abandoned.
+     * */
+    @Test
+    public void statsFollowGames() throws Exception {
+        StatsResponse stats = store.stats().summary();
+        assertEquals(10, stats.getGamesStarted());
+        assertEquals(4, stats.getGamesWon());
+        assertEquals(3, stats.getGamesLost());
+        assertEquals(3, stats.getGamesOngoing());
+        assertArrayEquals(new long[] {4, 0, 0, 0, 0, 0, 3}, stats.getWrongGuessHistogram());
+        store.newGame("player2");
+        stats = store.stats().summary();
+        assertEquals(1, stats.getGamesAbandoned());
+        assertEquals(3, stats.getGamesOngoing());
+        WordStatsResponse cat = store.stats().words().get(0);
+        assertEquals("Cat", cat.getWord());
+        assertEquals(7, cat.getPlayed());
+        assertEquals(4.0 / 7, cat.getWinRate(), 1e-9);
+    }
+
+    /**
+     * Check the statistics of the secret words are read a page at a time in order of the words, each page
+     * starting after the cursor of the one before.
+     * */
+    @Test
+    public void wordStatsPaged() throws Exception {
+        GameStats stats = new GameStats();
+        for (String word : new String[] {"Hangman", "Cat", "Java", "Dog", "Cat"}) stats.gameFinished(word, 0, false);
+        WordStatsPage first = stats.wordsPage(null, 2);
+        assertEquals("Cat", first.getWords()[0].getWord());
+        assertEquals(2, first.getWords()[0].getPlayed());
+        assertEquals("Dog", first.getWords()[1].getWord());
+        assertEquals("Dog", first.getNextCursor());
+        WordStatsPage second = stats.wordsPage(first.getNextCursor(), 2);
+        assertEquals("Hangman", second.getWords()[0].getWord());
+        assertEquals("Java", second.getWords()[1].getWord());
+        assertNull(second.getNextCursor());
+        assertEquals(0, stats.wordsPage("Java", 2).getWords().length);
+    }
+
+    /**
+     * Check the export lists games oldest first and applies the start time and status filters.
+     * */
+    @Test
+    public void exportFiltersByTimeAndStatus() throws Exception {
+        SessionStore store = new SessionStore();
+        for (int i = 0; i < 6; ++i) {
+            Session session = new Session("Cat");
+            if (i % 2 == 0) for (char letter : "cat".toCharArray()) session.hangmanLogic(new Guess(letter));
+            store.restoreGame(i, null, session, 1000 * (i + 1));
+        }
+        assertEquals("0 1 2 3 4 5", ids(store.export(null, null, null)));
+        assertEquals("1 2 3", ids(store.export(2000L, 5000L, null)));
+        assertEquals("2 4", ids(store.export(2000L, null, HistoryResponse.WON)));
+        assertEquals("1 3 5", ids(store.export(null, null, HistoryResponse.ONGOING)));
+        assertEquals("", ids(store.export(null, null, HistoryResponse.LOST)));
+    }
+
+    /**
+     * Check finished games of dictionary words read back the same from the history once packed into records.
+     * */
+    @Test
+    public void compactedGamesKeepHistory() throws Exception {
+        SessionStore store = new SessionStore();
+        for (int i = 0; i < 20; ++i) {
+            Session session = store.newGame("player");
+            for (char letter = 'z'; !session.isGameFinished(); --letter) store.applyGuess(session, new Guess(letter));
+        }
+        ArrayList<String> before = describe(store.history());
+        assertEquals(19, countRecords(store));
+        store.newGame("player");
+        before.add(describe(store.history()).get(20));
+        assertEquals(before, describe(store.history()));
+        assertEquals(20, countRecords(store));
+    }
+
+    /**
+     * Compare the heap held per finished game by Session objects, as the store kept them before, and by packed
+     * records. Measured from the used heap after garbage collection, so only a loose bound is checked.
+     * */
+    @Test
+    public void compactedGamesUseLessHeap() throws Exception {
+        int games = 200000;
+        long base = usedHeap();
+        SessionStore store = new SessionStore();
+        for (int i = 0; i < games; ++i) {
+            Session session = store.newGame("player");
+            for (char letter = 'z'; !session.isGameFinished(); --letter) store.applyGuess(session, new Guess(letter));
+        }
+        long recordBytes = (usedHeap() - base) / games;
+        assertEquals(games - 1, countRecords(store));
+        store = null;
+
+        base = usedHeap();
+        ArrayList<Session> sessions = new ArrayList<>(games);
+        for (int i = 0; i < games; ++i) {
+            Session session = new Session();
+            for (char letter = 'z'; !session.isGameFinished(); --letter) session.hangmanLogic(new Guess(letter));
+            session.getAttemptedString();
+            sessions.add(session);
+        }
+        long sessionBytes = (usedHeap() - base) / games;
+        assertEquals(games, sessions.size());
+        assertTrue("Heap per finished game: " + sessionBytes + " bytes as Session, " + recordBytes + " bytes as record",
+                recordBytes * 5 < sessionBytes);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private Guess[] guesses(String letters) {
+        Guess[] guesses = new Guess[letters.length()];
+        for (int i = 0; i < guesses.length; ++i) guesses[i] = new Guess(letters.charAt(i));
+        return guesses;
+    }
+
+    private String ids(Iterator<HistoryResponse> games) {
+        StringBuilder sb = new StringBuilder();
+        while (games.hasNext()) sb.append(sb.length() == 0 ? "" : " ").append(games.next().getId());
+        return sb.toString();
+    }
+
+    private int countRecords(SessionStore store) {
+        int count = 0;
+        for (long id = 0; id < store.gameIdLimit(); ++id) if (store.record(id) != 0) ++count;
+        return count;
+    }
+
+    private ArrayList<String> describe(ArrayList<HistoryResponse> history) {
+        ArrayList<String> games = new ArrayList<>();
+        for (HistoryResponse h : history) {
+            games.add(h.getId() + " " + h.getSecretWord() + " " + h.getGuessProgress() + " " + h.getStatus());
+        }
+        return games;
+    }
+}
@@ -1,4 +1,5 @@
 package hangman.hangman;
+import java.util.HashSet;
 import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -123,4 +124,23 @@ public class SessionTest {
         Response response = session.hangmanLogic(lastBadGuess);
         assertEquals("Game Over.", response.getUserMessage());
     }
+
+    /**
+     * Check attempted-letters-string lists letters in the same order as a HashSet of the letters would,
+     * including after the set would have grown past its initial capacity.
+     * */
+    @Test
+    public void attemptedStringKeepsHashSetOrder() throws Exception {
+        char[] letters = "qwertyuiopasdfghjklzxcvbnm".toCharArray();
+        HashSet<Object> expected = new HashSet<>();
+        session.setSecretWord("Cat-");
+        session.setWRONG_GUESS_LIMIT(letters.length);
+        for (char letter : letters) {
+            expected.add(letter);
+            Response response = session.hangmanLogic(new Guess(letter));
+            StringBuilder sb = new StringBuilder("[");
+            for (Object c : expected) sb.append(sb.length() > 1 ? ", " : "").append(c);
+            assertEquals(sb.append("]").toString(), response.getAttemptedString());
+        }
+    }
 }
\ No newline at end of file
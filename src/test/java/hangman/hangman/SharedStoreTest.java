@@ -0,0 +1,104 @@
+package hangman.hangman;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import static org.junit.Assert.*;
+
+/**
+ * Runs two application contexts, standing for two nodes behind a load balancer without sticky sessions, against
+ * the same file repository, and plays a game sending every request to either node.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class SharedStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @Before
+    public void setUp() throws Exception {
+        File words = folder.newFile();
+        Files.write(words.toPath(), "cat".getBytes(StandardCharsets.US_ASCII));
+        File shared = folder.newFolder();
+        nodeA = start("a", words, shared);
+        nodeB = start("b", words, shared);
+    }
+
+    @After
+    public void tearDown() {
+        if (nodeA != null) nodeA.close();
+        if (nodeB != null) nodeB.close();
+    }
+
+    /**
+     * Check a game started on one node is resumed and played on the other, each node applying the guesses made
+     * on the other first, and finished on whichever node receives the last guess.
+     * */
+    @Test
+    public void gameSpansNodes() throws Exception {
+        String player = "shared-player";
+        assertTrue(call(nodeA, "GET", "/newGameSession", player, null).contains("\"guessProgress\":\"_ _ _\""));
+        assertTrue(call(nodeB, "POST", "/submitGuess", player, "{\"value\":\"c\"}").contains("\"guessProgress\":\"c _ _\""));
+        assertTrue(call(nodeA, "GET", "/reloadOrResume", player, null).contains("\"guessProgress\":\"c _ _\""));
+        assertTrue(call(nodeA, "POST", "/submitGuess", player, "{\"value\":\"x\"}").contains("\"wrongGuessCount\":1"));
+        String body = call(nodeB, "POST", "/submitGuess", player, "{\"value\":\"c\"}");
+        assertTrue(body, body.contains("Letter already attempted"));
+        assertTrue(body, body.contains("\"wrongGuessCount\":1"));
+        body = call(nodeB, "POST", "/submitGuesses", player, "[{\"value\":\"a\"},{\"value\":\"t\"}]");
+        assertTrue(body, body.contains("Congratulations, you won!"));
+        // Listed in the history of the node that started the game, brought up to date once it reads the game again
+        call(nodeA, "GET", "/hint", player, null);
+        body = call(nodeA, "GET", "/gamesHistory", null, null);
+        assertTrue(body, body.contains("\"status\":\"Won\""));
+        assertEquals("[]", call(nodeB, "GET", "/gamesHistory", null, null));
+    }
+
+    private static ConfigurableApplicationContext start(String node, File words, File shared) {
+        return new SpringApplicationBuilder(HangmanApplication.class).run(
+                "--server.port=0",
+                "--spring.jmx.enabled=false",
+                "--hangman.journal.enabled=false",
+                "--hangman.dictionary.path=" + words.getAbsolutePath(),
+                "--hangman.repository.type=file",
+                "--hangman.repository.dir=" + shared.getAbsolutePath(),
+                "--hangman.repository.node=" + node,
+                "--hangman.repository.near-cache-ms=0");
+    }
+
+    private static String call(ConfigurableApplicationContext node, String method, String path, String playerId, String body) throws Exception {
+        String port = node.getEnvironment().getProperty("local.server.port");
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        connection.setRequestMethod(method);
+        if (playerId != null) connection.setRequestProperty("Cookie", RController.PLAYER_COOKIE + "=" + playerId);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(200, connection.getResponseCode());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] chunk = new byte[4096];
+            for (int n; (n = in.read(chunk)) > 0; ) bytes.write(chunk, 0, n);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
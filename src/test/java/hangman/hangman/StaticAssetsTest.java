@@ -0,0 +1,108 @@
+package hangman.hangman;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the pages and files prepared by the AssetPipeline build step and served by StaticAssets.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class StaticAssetsTest {
+
+    StaticAssets assets;
+
+    @Before
+    public void setUp() throws Exception {
+        assets = StaticAssets.load();
+    }
+
+    /**
+     * Check quoted references to files are pointed at their hashed copies, and nothing else is touched.
+     * */
+    @Test
+    public void referencesRewritten() throws Exception {
+        TreeMap<String, String> hashedNames = new TreeMap<>();
+        hashedNames.put("0.png", "0.abc.png");
+        hashedNames.put("10.png", "10.def.png");
+        String html = "<img src=\"0.png\"/> ['10.png', \"./0.png\"] 0.png \"x0.png\"";
+        assertEquals("<img src=\"assets/0.abc.png\"/> ['assets/10.def.png', \"assets/0.abc.png\"] 0.png \"x0.png\"",
+                AssetPipeline.rewrite(html, hashedNames));
+    }
+
+    /**
+     * Check pages are served gzipped to clients accepting it, must be revalidated, and are answered with 304
+     * while the client's copy is current, whichever encoding it holds.
+     * */
+    @Test
+    public void pagesRevalidatedByETag() throws Exception {
+        MockHttpServletResponse response = get("/game.html", "gzip, deflate", null);
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(StaticAssets.REVALIDATE, response.getHeader("Cache-Control"));
+        String page = gunzip(response.getContentAsByteArray());
+        assertTrue(page.contains("\"assets/0."));
+        assertFalse(page.contains("\"0.png\""));
+
+        String etag = response.getHeader("ETag");
+        assertEquals(304, get("/game.html", "gzip", etag).getStatus());
+        MockHttpServletResponse identity = get("/game.html", null, etag);
+        assertEquals(304, identity.getStatus());
+        assertEquals(0, identity.getContentAsByteArray().length);
+        identity = get("/game.html", "gzip;q=0", null);
+        assertNull(identity.getHeader("Content-Encoding"));
+        assertEquals(page, identity.getContentAsString());
+    }
+
+    /**
+     * Check the hashed files referenced by the pages are served as immutable, and other requests are passed on.
+     * */
+    @Test
+    public void hashedFilesImmutable() throws Exception {
+        String page = get("/game.html", null, null).getContentAsString();
+        int start = page.indexOf("assets/0.");
+        String path = "/" + page.substring(start, page.indexOf('"', start));
+        MockHttpServletResponse response = get(path, null, null);
+        assertEquals(200, response.getStatus());
+        assertEquals("image/png", response.getContentType());
+        assertEquals(StaticAssets.IMMUTABLE, response.getHeader("Cache-Control"));
+        assertEquals(response.getContentLength(), response.getContentAsByteArray().length);
+
+        MockFilterChain chain = new MockFilterChain();
+        assets.doFilter(new MockHttpServletRequest("GET", "/0.png"), new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+        chain = new MockFilterChain();
+        assets.doFilter(new MockHttpServletRequest("POST", path), new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+    }
+
+    private MockHttpServletResponse get(String path, String acceptEncoding, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (acceptEncoding != null) request.addHeader("Accept-Encoding", acceptEncoding);
+        if (ifNoneMatch != null) request.addHeader("If-None-Match", ifNoneMatch);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        assets.doFilter(request, response, chain);
+        assertNull("Request passed on instead of served", chain.getRequest());
+        return response;
+    }
+
+    private static String gunzip(byte[] gzipped) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            byte[] chunk = new byte[4096];
+            for (int n; (n = in.read(chunk)) > 0; ) bytes.write(chunk, 0, n);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
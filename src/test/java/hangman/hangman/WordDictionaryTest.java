@@ -0,0 +1,75 @@
+package hangman.hangman;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the WordDictionary class.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class WordDictionaryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    WordDictionary dictionary;
+
+    @Before
+    public void setUp() throws Exception {
+        File file = folder.newFile("words.txt");
+        String words = "# comment\nCat\r\ndog\n\nnot a word\nhorse\nfox\ne-mail\nGiraffe";
+        Files.write(file.toPath(), words.getBytes(StandardCharsets.US_ASCII));
+        dictionary = WordDictionary.load(file.toPath());
+    }
+
+    /**
+     * Check only lines made of letters become words, in the order of the file, including a last line without
+     * a line break and lines ending in CRLF.
+     * */
+    @Test
+    public void loadsWordLines() throws Exception {
+        assertEquals(5, dictionary.size());
+        assertEquals("Cat", dictionary.word(0));
+        assertEquals("dog", dictionary.word(1));
+        assertEquals("horse", dictionary.word(2));
+        assertEquals("fox", dictionary.word(3));
+        assertEquals("Giraffe", dictionary.word(4));
+    }
+
+    /**
+     * Check random words of a given length have that length, and lengths without words are reported.
+     * */
+    @Test
+    public void picksByLength() throws Exception {
+        for (int i = 0; i < 20; ++i) assertEquals(3, dictionary.word(dictionary.randomWordId(3)).length());
+        assertEquals(2, dictionary.randomWordId(5));
+        assertEquals(-1, dictionary.randomWordId(4));
+    }
+
+    /**
+     * Check a word list without any word is rejected when loaded.
+     * */
+    @Test(expected = IOException.class)
+    public void emptyWordListRejected() throws Exception {
+        File file = folder.newFile("empty.txt");
+        Files.write(file.toPath(), "# no words\n\nnot a word\n".getBytes(StandardCharsets.US_ASCII));
+        WordDictionary.load(file.toPath());
+    }
+
+    /**
+     * Check sessions created from a dictionary remember the id of their secret word.
+     * */
+    @Test
+    public void sessionHoldsWordId() throws Exception {
+        Session session = new Session(dictionary);
+        assertEquals(dictionary.word(session.getWordId()), session.getSecretWord());
+    }
+}
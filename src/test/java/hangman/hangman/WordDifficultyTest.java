@@ -0,0 +1,134 @@
+package hangman.hangman;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the DifficultyScorer and WordDifficulty classes.
+ *
+ * @author Alex Momotov
+ * @version 1.0
+ * */
+public class WordDifficultyTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Check words sharing all but one position with many others, and short words, score harder.
+     * */
+    @Test
+    public void ambiguousAndShortWordsHarder() throws Exception {
+        WordDictionary dictionary = dictionary("bat\ncat\nhat\nmat\nsat\nrat\nand\ntable\nbattle\nbattlements");
+        byte[] scores = DifficultyScorer.score(dictionary, 2);
+        assertTrue(score(scores, 0) > score(scores, 6));
+        assertTrue(score(scores, 3) > score(scores, 7));
+        assertTrue(score(scores, 8) > score(scores, 9));
+        assertEquals(score(scores, 1), score(scores, 2));
+    }
+
+    /**
+     * Check scores do not depend on the number of threads scoring them.
+     * */
+    @Test
+    public void scoresIndependentOfParallelism() throws Exception {
+        Random random = new Random(3);
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < 20000; ++i) {
+            char[] letters = new char[2 + random.nextInt(8)];
+            for (int j = 0; j < letters.length; ++j) letters[j] = (char) ('a' + random.nextInt(12));
+            words.append(letters).append('\n');
+        }
+        WordDictionary dictionary = dictionary(words.toString());
+        assertArrayEquals(DifficultyScorer.score(dictionary, 1), DifficultyScorer.score(dictionary, 4));
+    }
+
+    /**
+     * Check the score file is read back into tiers of about the same size, easiest first, and a score file of
+     * another word list is replaced by scoring the words.
+     * */
+    @Test
+    public void tiersReadFromScoreFile() throws Exception {
+        Random random = new Random(5);
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < 3000; ++i) {
+            char[] letters = new char[3 + random.nextInt(6)];
+            for (int j = 0; j < letters.length; ++j) letters[j] = (char) ('a' + random.nextInt(26));
+            words.append(letters).append('\n');
+        }
+        WordDictionary dictionary = dictionary(words.toString());
+        byte[] scores = DifficultyScorer.score(dictionary, 2);
+        Path file = this.folder.getRoot().toPath().resolve("words.scores");
+        DifficultyScorer.write(file, dictionary, scores);
+        assertEquals(16 + scores.length, Files.size(file));
+
+        WordDifficulty difficulty = WordDifficulty.load(file, dictionary);
+        for (int tier = 0; tier < WordDifficulty.TIERS.length; ++tier) {
+            assertTrue(difficulty.tierSize(tier) > 700);
+            assertTrue(difficulty.tierSize(tier) < 1300);
+        }
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(0, difficulty.tierOfWord(difficulty.randomWordId(0)));
+            assertEquals(2, difficulty.tierOfWord(difficulty.randomWordId(2)));
+            assertTrue(difficulty.score(difficulty.randomWordId(0)) < difficulty.score(difficulty.randomWordId(2)));
+        }
+        WordDifficulty other = WordDifficulty.load(file, dictionary("cat\ndog"));
+        assertEquals(2, other.tierSize(0) + other.tierSize(1) + other.tierSize(2));
+        assertEquals(2, WordDifficulty.tier("HARD"));
+        assertEquals(-1, WordDifficulty.tier("impossible"));
+        WordDifficulty single = WordDifficulty.load((InputStream) null, dictionary("cat"));
+        assertEquals(0, single.randomWordId(0));
+        assertEquals(-1, single.randomWordId(2));
+    }
+
+    /**
+     * Check new games are started with a word of the tier asked for, unknown tiers are rejected, and tiers the word
+     * list leaves empty are answered with 409 without starting a game.
+     * */
+    @Test
+    public void newGameOfTier() throws Exception {
+        SessionStore store = new SessionStore();
+        WordDifficulty difficulty = WordDifficulty.builtIn();
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("wordDifficulty", difficulty);
+        RController controller = new RController(store, GameExecution.blocking(), new GameMetrics(store),
+                beans.getBeanProvider(HintIndex.class), beans.getBeanProvider(Rooms.class),
+                beans.getBeanProvider(WordDifficulty.class));
+        for (int tier = 0; tier < WordDifficulty.TIERS.length; ++tier) {
+            for (int i = 0; i < 20; ++i) {
+                Session before = store.findLastGame("tier-player");
+                ResponseEntity<Object> started = controller.newGameSession("tier-player", WordDifficulty.TIERS[tier],
+                        new MockHttpServletResponse());
+                if (difficulty.tierSize(tier) == 0) {
+                    assertEquals(409, started.getStatusCodeValue());
+                    assertSame(before, store.findLastGame("tier-player"));
+                } else {
+                    assertEquals(200, started.getStatusCodeValue());
+                    assertEquals(tier, difficulty.tierOfWord(store.lastGame("tier-player").getWordId()));
+                }
+            }
+        }
+        ResponseEntity<Object> rejected = controller.newGameSession("tier-player", "impossible", new MockHttpServletResponse());
+        assertEquals(400, rejected.getStatusCodeValue());
+    }
+
+    private static int score(byte[] scores, int id) {
+        return scores[id] & 0xff;
+    }
+
+    private WordDictionary dictionary(String words) throws Exception {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), words.getBytes(StandardCharsets.US_ASCII));
+        return WordDictionary.load(file.toPath());
+    }
+}